@@ -0,0 +1,35 @@
+package parag.LRUCache.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks matching a pattern at 1 to 64 threads with the GC profiler, which adds the allocation rate per operation to every
+ * result. Each thread count writes its results to {@code jmh-<threads>t.json} for comparison with an earlier run.
+ * <p>
+ * {@code java -cp target/benchmarks.jar parag.LRUCache.benchmarks.BenchmarkRunner [pattern] [maximum threads]}
+ */
+public class BenchmarkRunner {
+
+    private static final int DEFAULT_MAXIMUM_THREADS = 64;
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        int maximumThreads = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAXIMUM_THREADS;
+        for (int threads = 1; threads <= maximumThreads; threads <<= 1) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("jmh-" + threads + "t.json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package parag.LRUCache.benchmarks;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import parag.LRUCache.Cache;
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.impl.LRUCache;
+import parag.LRUCache.impl.LinkedLRUCache;
+import parag.LRUCache.impl.SegmentedLRUCache;
+import parag.LRUCache.lru.LRUManager;
+
+/**
+ * Cache implementations compared by the benchmarks
+ */
+public enum CacheType {
+
+    /**
+     * {@link LRUCache} with its {@link LRUManager} thread
+     */
+    LRU {
+        @Override
+        public <K, V> Cache<K, V> create(int maximumSize, DiskBackend<K, V> diskCache) {
+            ConcurrentLinkedQueue<K> queue = new ConcurrentLinkedQueue<>();
+            LinkedBlockingQueue<K> linkedBlockingQueue = new LinkedBlockingQueue<>();
+            Thread thread = new Thread(new LRUManager<>(queue, linkedBlockingQueue), "lru-manager");
+            // Never stops on its own, must not keep the forked benchmark VM alive
+            thread.setDaemon(true);
+            return new LRUCache<>(maximumSize, new ConcurrentHashMap<K, V>(), queue, diskCache, linkedBlockingQueue, thread);
+        }
+    },
+
+    /**
+     * {@link LinkedLRUCache}
+     */
+    LINKED {
+        @Override
+        public <K, V> Cache<K, V> create(int maximumSize, DiskBackend<K, V> diskCache) {
+            return new LinkedLRUCache<>(maximumSize, diskCache);
+        }
+    },
+
+    /**
+     * {@link SegmentedLRUCache} with a segment per available processor
+     */
+    SEGMENTED {
+        @Override
+        public <K, V> Cache<K, V> create(int maximumSize, DiskBackend<K, V> diskCache) {
+            return new SegmentedLRUCache<>(maximumSize, Runtime.getRuntime().availableProcessors(), diskCache);
+        }
+    };
+
+    /**
+     * Creates an empty cache
+     * 
+     * @param maximumSize maximum number of entries kept in memory
+     * @param diskCache disk tier, {@link NullDiskBackend} to measure the memory tier alone
+     * @return
+     */
+    public abstract <K, V> Cache<K, V> create(int maximumSize, DiskBackend<K, V> diskCache);
+
+}
@@ -0,0 +1,117 @@
+package parag.LRUCache.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parag.LRUCache.Cache;
+import parag.LRUCache.diskBacked.DiskCache;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.serializer.Serializers;
+
+/**
+ * Latency distribution of the requests the memory tier cannot answer.
+ * <p>
+ * {@link #diskRead} reads a file of the {@link DiskCache} directly. {@link #memoryMiss} asks a cache far smaller than the key space, so
+ * nearly every request is read from disk, promoted and pushes another entry out to disk. {@link #absent} asks for keys which were never
+ * stored and pays for a memory miss followed by a disk miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiskBenchmark {
+
+    @Param({ "LINKED", "SEGMENTED", "LRU" })
+    public CacheType cacheType;
+
+    @Param({ "128", "4096" })
+    public int valueSize;
+
+    @Param({ "256" })
+    public int maximumSize;
+
+    @Param({ "8192" })
+    public int keySpace;
+
+    private Path diskDirectory;
+    private Path cacheDirectory;
+    private DiskCache<Integer, byte[]> disk;
+    private Cache<Integer, byte[]> cache;
+    private Integer[] keys;
+    private Integer[] absentKeys;
+
+    @Setup
+    public void setup() throws IOException, SerializationException {
+        diskDirectory = Files.createTempDirectory("disk-benchmark");
+        cacheDirectory = Files.createTempDirectory("disk-benchmark-cache");
+        disk = new DiskCache<>(diskDirectory.toString() + "/", Serializers.BYTE_ARRAY);
+        DiskCache<Integer, byte[]> cacheDisk = new DiskCache<>(cacheDirectory.toString() + "/", Serializers.BYTE_ARRAY);
+        byte[] value = new byte[valueSize];
+        for (int i = 0; i < keySpace; i++) {
+            disk.put(i, value);
+            cacheDisk.put(i, value);
+        }
+        // Starts empty, every key is on disk only
+        cache = cacheType.create(maximumSize, cacheDisk);
+        keys = KeyDistribution.UNIFORM.keys(ThreadIndex.SAMPLES, keySpace, 42);
+        absentKeys = KeyDistribution.UNIFORM.keys(ThreadIndex.SAMPLES, keySpace, 43);
+        for (int i = 0; i < absentKeys.length; i++) {
+            absentKeys[i] = absentKeys[i] + keySpace;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        delete(diskDirectory);
+        delete(cacheDirectory);
+    }
+
+    @Benchmark
+    public byte[] diskRead(ThreadIndex thread) throws DeserializationException {
+        return disk.get(keys[thread.next()]);
+    }
+
+    @Benchmark
+    public byte[] memoryMiss(ThreadIndex thread) throws RetrievalException {
+        return cache.get(keys[thread.next()]);
+    }
+
+    @Benchmark
+    public byte[] absent(ThreadIndex thread) throws RetrievalException {
+        return cache.get(absentKeys[thread.next()]);
+    }
+
+    /**
+     * Deletes a directory and everything in it
+     * 
+     * @param directory
+     * @throws IOException
+     */
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+}
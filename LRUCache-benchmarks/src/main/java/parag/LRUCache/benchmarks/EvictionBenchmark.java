@@ -0,0 +1,99 @@
+package parag.LRUCache.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parag.LRUCache.Cache;
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.diskBacked.DiskCache;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.serializer.Serializers;
+
+/**
+ * Throughput of a get-or-put workload over a key space much larger than the cache, so most operations miss and evict an entry.
+ * <p>
+ * Without a disk tier the evicted entries are dropped and the benchmark measures the eviction policy alone. With the {@link DiskCache}
+ * every eviction writes a file and a miss on an entry evicted earlier reads it back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvictionBenchmark {
+
+    /**
+     * Disk tier the evicted entries go to
+     */
+    public enum Spill {
+        NONE, DISK
+    }
+
+    @Param({ "LINKED", "SEGMENTED", "LRU" })
+    public CacheType cacheType;
+
+    @Param({ "ZIPFIAN", "UNIFORM" })
+    public KeyDistribution distribution;
+
+    @Param({ "NONE", "DISK" })
+    public Spill spill;
+
+    @Param({ "1024" })
+    public int maximumSize;
+
+    @Param({ "16" })
+    public int keySpaceFactor;
+
+    private Path directory;
+    private Cache<Integer, Integer> cache;
+    private Integer[] keys;
+
+    @Setup
+    public void setup() throws IOException {
+        DiskBackend<Integer, Integer> diskCache;
+        if (spill == Spill.DISK) {
+            directory = Files.createTempDirectory("eviction-benchmark");
+            diskCache = new DiskCache<>(directory.toString() + "/", Serializers.INTEGER);
+        } else {
+            diskCache = new NullDiskBackend<>();
+        }
+        cache = cacheType.create(maximumSize, diskCache);
+        keys = distribution.keys(ThreadIndex.SAMPLES, maximumSize * keySpaceFactor, 42);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (directory != null) {
+            DiskBenchmark.delete(directory);
+        }
+    }
+
+    @Benchmark
+    public Integer getOrPut(ThreadIndex thread) throws RetrievalException, StoreException {
+        Integer key = keys[thread.next()];
+        Integer value = cache.get(key);
+        if (value == null) {
+            cache.put(key, key);
+            return key;
+        }
+        return value;
+    }
+
+}
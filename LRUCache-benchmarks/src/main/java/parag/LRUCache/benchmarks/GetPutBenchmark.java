@@ -0,0 +1,115 @@
+package parag.LRUCache.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import parag.LRUCache.Cache;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+
+/**
+ * Throughput of hits and updates on a cache which holds every key, so nothing is evicted and the disk tier is never touched.
+ * <p>
+ * Read only and write only benchmarks scale with the number of threads given to JMH. The groups mix readers and writers in a fixed
+ * ratio, JMH rounds the thread count up to a multiple of the group size: read heavy is 3 readers per writer, write heavy 3 writers per
+ * reader and mixed one of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetPutBenchmark {
+
+    @Param({ "LINKED", "SEGMENTED", "LRU" })
+    public CacheType cacheType;
+
+    @Param({ "ZIPFIAN", "UNIFORM" })
+    public KeyDistribution distribution;
+
+    @Param({ "16384" })
+    public int maximumSize;
+
+    private Cache<Integer, Integer> cache;
+    private Integer[] keys;
+
+    @Setup
+    public void setup() throws StoreException {
+        cache = cacheType.create(maximumSize, new NullDiskBackend<Integer, Integer>());
+        keys = distribution.keys(ThreadIndex.SAMPLES, maximumSize, 42);
+        for (int i = 0; i < maximumSize; i++) {
+            cache.put(i, i);
+        }
+    }
+
+    @Benchmark
+    public Integer readOnly(ThreadIndex thread) throws RetrievalException {
+        return cache.get(keys[thread.next()]);
+    }
+
+    @Benchmark
+    public void writeOnly(ThreadIndex thread) throws StoreException {
+        Integer key = keys[thread.next()];
+        cache.put(key, key);
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(3)
+    public Integer readHeavyGet(ThreadIndex thread) throws RetrievalException {
+        return cache.get(keys[thread.next()]);
+    }
+
+    @Benchmark
+    @Group("readHeavy")
+    @GroupThreads(1)
+    public void readHeavyPut(ThreadIndex thread) throws StoreException {
+        Integer key = keys[thread.next()];
+        cache.put(key, key);
+    }
+
+    @Benchmark
+    @Group("writeHeavy")
+    @GroupThreads(1)
+    public Integer writeHeavyGet(ThreadIndex thread) throws RetrievalException {
+        return cache.get(keys[thread.next()]);
+    }
+
+    @Benchmark
+    @Group("writeHeavy")
+    @GroupThreads(3)
+    public void writeHeavyPut(ThreadIndex thread) throws StoreException {
+        Integer key = keys[thread.next()];
+        cache.put(key, key);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Integer mixedGet(ThreadIndex thread) throws RetrievalException {
+        return cache.get(keys[thread.next()]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedPut(ThreadIndex thread) throws StoreException {
+        Integer key = keys[thread.next()];
+        cache.put(key, key);
+    }
+
+}
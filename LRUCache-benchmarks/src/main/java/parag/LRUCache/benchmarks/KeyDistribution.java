@@ -0,0 +1,87 @@
+package parag.LRUCache.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Distribution the benchmark keys are drawn from. The keys are generated up front so drawing one costs an array read and allocates
+ * nothing inside the measured code
+ */
+public enum KeyDistribution {
+
+    /**
+     * Every key equally likely
+     */
+    UNIFORM {
+        @Override
+        int next(Random random, int keySpace, double[] cdf) {
+            return random.nextInt(keySpace);
+        }
+    },
+
+    /**
+     * Few hot keys and a long tail of cold ones, with the skew of 0.99 used by YCSB
+     */
+    ZIPFIAN {
+        @Override
+        int next(Random random, int keySpace, double[] cdf) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            return index >= 0 ? index : Math.min(-index - 1, keySpace - 1);
+        }
+    };
+
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    /**
+     * Returns count keys from 0 to keySpace - 1. Hot keys are scattered over the key space so they do not share a segment
+     * 
+     * @param count
+     * @param keySpace
+     * @param seed
+     * @return
+     */
+    public Integer[] keys(int count, int keySpace, long seed) {
+        Random random = new Random(seed);
+        double[] cdf = this == ZIPFIAN ? zipfCdf(keySpace) : null;
+        int[] scatter = permutation(keySpace, random);
+        Integer[] boxed = new Integer[keySpace];
+        for (int i = 0; i < keySpace; i++) {
+            boxed[i] = i;
+        }
+        Integer[] keys = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = boxed[scatter[next(random, keySpace, cdf)]];
+        }
+        return keys;
+    }
+
+    abstract int next(Random random, int keySpace, double[] cdf);
+
+    private static double[] zipfCdf(int keySpace) {
+        double[] cdf = new double[keySpace];
+        double sum = 0;
+        for (int i = 0; i < keySpace; i++) {
+            sum += 1.0 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < keySpace; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    private static int[] permutation(int size, Random random) {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        return values;
+    }
+
+}
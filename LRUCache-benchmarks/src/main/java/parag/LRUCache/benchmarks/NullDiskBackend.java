@@ -0,0 +1,23 @@
+package parag.LRUCache.benchmarks;
+
+import parag.LRUCache.diskBacked.DiskBackend;
+
+/**
+ * Disk tier which drops every entry, so a benchmark measures the memory tier and its eviction without any I/O
+ */
+public class NullDiskBackend<K, V> implements DiskBackend<K, V> {
+
+    @Override
+    public void put(K key, V value) {
+    }
+
+    @Override
+    public V get(K key) {
+        return null;
+    }
+
+    @Override
+    public void remove(K key) {
+    }
+
+}
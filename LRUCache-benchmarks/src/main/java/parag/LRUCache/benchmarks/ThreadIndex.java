@@ -0,0 +1,32 @@
+package parag.LRUCache.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Position of a benchmark thread in the pre-generated key samples, starting at a random one so threads do not walk in lock step
+ */
+@State(Scope.Thread)
+public class ThreadIndex {
+
+    /**
+     * Number of key samples a benchmark generates, a power of two
+     */
+    public static final int SAMPLES = 1 << 20;
+
+    private static final int MASK = SAMPLES - 1;
+
+    private int index = ThreadLocalRandom.current().nextInt();
+
+    /**
+     * Returns index of the next sample
+     * 
+     * @return
+     */
+    public int next() {
+        return index++ & MASK;
+    }
+
+}
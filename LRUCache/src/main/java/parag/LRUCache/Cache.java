@@ -1,5 +1,9 @@
 package parag.LRUCache;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 import parag.LRUCache.exception.RetrievalException;
 import parag.LRUCache.exception.StoreException;
 
@@ -25,4 +29,35 @@ public interface Cache<K, V> {
      */
     void put(K key, V value) throws StoreException;
 
-}
\ No newline at end of file
+    /**
+     * Returns the values of all keys found in the cache. Implementations resolve the whole batch at once, by default every key is looked
+     * up on its own
+     * 
+     * @param keys
+     * @return mapping of every key found to its value, keys not found are absent
+     * @throws RetrievalException
+     */
+    default Map<K, V> getAll(Collection<? extends K> keys) throws RetrievalException {
+        Map<K, V> result = new HashMap<>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stores all the mappings into the cache. Implementations store the whole batch at once, by default every entry is put on its own
+     * 
+     * @param entries
+     * @throws StoreException
+     */
+    default void putAll(Map<? extends K, ? extends V> entries) throws StoreException {
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package parag.LRUCache;
+
+/**
+ * Computes the value of a key missing from every tier of the cache, e.g. by reading it from the system of record
+ */
+public interface CacheLoader<K, V> {
+
+    /**
+     * Returns value of key
+     * 
+     * @param key
+     * @return value, null if key has no value. A null value is not cached
+     * @throws Exception
+     */
+    V load(K key) throws Exception;
+
+}
@@ -0,0 +1,100 @@
+package parag.LRUCache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculates how long an entry may stay in the cache. Called with every write and read of the entry, so the lifetime can be set per
+ * entry and be extended on access. Durations are in nanoseconds, {@link #NEVER} keeps the entry until it is evicted by size.
+ */
+public interface Expiry<K, V> {
+
+    /**
+     * Duration meaning the entry does not expire. Large enough to never be reached, small enough for the sum with a ticker reading not
+     * to overflow
+     */
+    long NEVER = Long.MAX_VALUE >> 1;
+
+    /**
+     * Returns lifetime of an entry which was just created
+     * 
+     * @param key
+     * @param value
+     * @return
+     */
+    long expireAfterCreate(K key, V value);
+
+    /**
+     * Returns lifetime of an entry whose value was just replaced
+     * 
+     * @param key
+     * @param value new value
+     * @param currentDuration remaining lifetime before the update
+     * @return
+     */
+    long expireAfterUpdate(K key, V value, long currentDuration);
+
+    /**
+     * Returns lifetime of an entry which was just read
+     * 
+     * @param key
+     * @param value
+     * @param currentDuration remaining lifetime before the read
+     * @return
+     */
+    long expireAfterRead(K key, V value, long currentDuration);
+
+    /**
+     * Returns expiry which removes an entry once the duration has passed since it was created or its value last replaced
+     * 
+     * @param duration
+     * @param unit
+     * @return
+     */
+    static <K, V> Expiry<K, V> afterWrite(long duration, TimeUnit unit) {
+        final long nanos = Math.min(unit.toNanos(duration), NEVER);
+        return new Expiry<K, V>() {
+            @Override
+            public long expireAfterCreate(K key, V value) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(K key, V value, long currentDuration) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterRead(K key, V value, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    /**
+     * Returns expiry which removes an entry once the duration has passed since it was last written or read
+     * 
+     * @param duration
+     * @param unit
+     * @return
+     */
+    static <K, V> Expiry<K, V> afterAccess(long duration, TimeUnit unit) {
+        final long nanos = Math.min(unit.toNanos(duration), NEVER);
+        return new Expiry<K, V>() {
+            @Override
+            public long expireAfterCreate(K key, V value) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(K key, V value, long currentDuration) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterRead(K key, V value, long currentDuration) {
+                return nanos;
+            }
+        };
+    }
+
+}
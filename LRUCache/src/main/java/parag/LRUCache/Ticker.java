@@ -0,0 +1,24 @@
+package parag.LRUCache;
+
+/**
+ * Source of the time used to expire entries, in nanoseconds. Only the difference between two readings is meaningful
+ */
+public interface Ticker {
+
+    /**
+     * Returns the current time in nanoseconds
+     * 
+     * @return
+     */
+    long read();
+
+    /**
+     * Returns ticker backed by {@link System#nanoTime()}
+     * 
+     * @return
+     */
+    static Ticker system() {
+        return System::nanoTime;
+    }
+
+}
@@ -0,0 +1,26 @@
+package parag.LRUCache;
+
+/**
+ * Calculates the weight of a cache entry. The cache bounds the total weight of its entries instead of their count
+ */
+public interface Weigher<K, V> {
+
+    /**
+     * Returns weight of the entry, e.g. its size in bytes. Must not be negative and must not change while the entry is cached
+     * 
+     * @param key
+     * @param value
+     * @return
+     */
+    int weigh(K key, V value);
+
+    /**
+     * Returns weigher giving every entry a weight of 1, i.e. the maximum weight is an entry count
+     * 
+     * @return
+     */
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+
+}
@@ -0,0 +1,186 @@
+package parag.LRUCache.diskBacked;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.SerializationException;
+
+/**
+ * Disk tier decorator which answers lookups of keys that were never spilled without touching the disk.
+ * <p>
+ * Most memory misses are true misses, and a {@link DiskCache} only finds that out by failing to open a file. A
+ * {@link CountingBloomFilter} tracks the keys put into the wrapped tier and forgets those this decorator removes from it, a get of a key
+ * the filter has never seen returns null right away. A wrapped tier which cannot report a removal, see
+ * {@link DiskBackend#removeIfPresent(Object)}, never has keys taken out of the filter.
+ * <p>
+ * The filter is seeded with the keys the wrapped tier reports through {@link DiskBackend#recentlySpilledKeys(int)}, so a durable
+ * {@link DiskCache} keeps finding the entries of a previous process. Any other tier must start empty. A key the wrapped tier drops on its
+ * own, e.g. when it expires or exceeds a weight budget, stays in the filter and only costs the disk lookup the filter would have saved.
+ */
+public class BloomFilteredDiskCache<K, V> implements DiskBackend<K, V>, Closeable {
+
+    private static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final DiskBackend<K, V> delegate;
+    private final CountingBloomFilter<K> filter;
+    private final LongAdder filteredCount = new LongAdder();
+
+    /**
+     * Constructor. One lookup in a hundred of a key which is not on disk still goes to disk
+     * 
+     * @param delegate disk tier holding the values
+     * @param expectedInsertions number of entries expected on disk at once
+     */
+    public BloomFilteredDiskCache(DiskBackend<K, V> delegate, long expectedInsertions) {
+        this(delegate, expectedInsertions, DEFAULT_FALSE_POSITIVE_PROBABILITY);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param delegate disk tier holding the values
+     * @param expectedInsertions number of entries expected on disk at once
+     * @param falsePositiveProbability share of the lookups of keys not on disk which still go to disk
+     */
+    public BloomFilteredDiskCache(DiskBackend<K, V> delegate, long expectedInsertions, double falsePositiveProbability) {
+        this.delegate = delegate;
+        this.filter = new CountingBloomFilter<>(expectedInsertions, falsePositiveProbability);
+        for (K key : delegate.recentlySpilledKeys(Integer.MAX_VALUE)) {
+            filter.add(key);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(K key, V value) throws SerializationException {
+        put(key, value, NO_EXPIRATION);
+    }
+
+    /**
+     * Adds key to the filter before the write, so a concurrent get finds the value as soon as it is on disk
+     * 
+     * @param key
+     * @param value
+     * @param expiresAtMillis
+     * @throws SerializationException
+     */
+    @Override
+    public void put(K key, V value, long expiresAtMillis) throws SerializationException {
+        filter.add(key);
+        delegate.put(key, value, expiresAtMillis);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) throws DeserializationException {
+        if (!filter.mightContain(key)) {
+            filteredCount.increment();
+            return null;
+        }
+        return delegate.get(key);
+    }
+
+    /**
+     * Passes only the keys the filter may hold on to the wrapped tier
+     * 
+     * @param keys
+     * @return
+     * @throws DeserializationException
+     */
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) throws DeserializationException {
+        List<K> candidates = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            if (filter.mightContain(key)) {
+                candidates.add(key);
+            } else {
+                filteredCount.increment();
+            }
+        }
+        if (candidates.isEmpty()) {
+            return new HashMap<>();
+        }
+        return delegate.getAll(candidates);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#remove(java.lang.Object)
+     */
+    @Override
+    public void remove(K key) {
+        removeIfPresent(key);
+    }
+
+    /**
+     * Removes the value and takes key out of the filter only if the wrapped tier held it. A key which merely looks present may share
+     * its counters with keys on disk, decrementing them would hide those keys
+     * 
+     * @param key
+     * @return
+     */
+    @Override
+    public boolean removeIfPresent(K key) {
+        boolean removed = delegate.removeIfPresent(key);
+        if (removed) {
+            filter.remove(key);
+        }
+        return removed;
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#expirationOf(java.lang.Object)
+     */
+    @Override
+    public long expirationOf(K key) {
+        return delegate.expirationOf(key);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#recentlySpilledKeys(int)
+     */
+    @Override
+    public List<K> recentlySpilledKeys(int count) {
+        return delegate.recentlySpilledKeys(count);
+    }
+
+    /**
+     * Returns whether key may be on disk, false if it certainly is not
+     * 
+     * @param key
+     * @return
+     */
+    public boolean mightContain(K key) {
+        return filter.mightContain(key);
+    }
+
+    /**
+     * Returns number of lookups answered without touching the disk
+     * 
+     * @return
+     */
+    public long filteredCount() {
+        return filteredCount.sum();
+    }
+
+    /**
+     * Closes the wrapped disk tier if it is closeable
+     */
+    @Override
+    public void close() throws IOException {
+        if (delegate instanceof Closeable) {
+            ((Closeable) delegate).close();
+        }
+    }
+
+}
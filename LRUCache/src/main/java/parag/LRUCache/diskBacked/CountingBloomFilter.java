@@ -0,0 +1,141 @@
+package parag.LRUCache.diskBacked;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe counting Bloom filter with 4 bit counters, sixteen to a word.
+ * <p>
+ * Adding a key increments its counters and removing it decrements them, so unlike a plain Bloom filter keys can be taken out again. A
+ * negative answer is always right, a positive one is wrong with about the probability the filter was sized for. A counter which reaches
+ * 15 stays there, since it can no longer tell how many keys share it, which only makes the filter answer yes more often.
+ */
+public final class CountingBloomFilter<K> {
+
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long COUNTER_MASK = 0xFL;
+
+    private final AtomicLongArray words;
+    private final int counters;
+    private final int hashes;
+
+    /**
+     * Constructor
+     * 
+     * @param expectedInsertions number of keys expected to be in the filter at once
+     * @param falsePositiveProbability wanted probability of a positive answer for a key which is not in the filter
+     */
+    public CountingBloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0 || falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive and falsePositiveProbability in (0, 1)");
+        }
+        double bits = -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2));
+        long words = Math.max(1, (long) Math.ceil(bits / COUNTERS_PER_WORD));
+        if (words > Integer.MAX_VALUE / COUNTERS_PER_WORD) {
+            throw new IllegalArgumentException("Filter too large for " + expectedInsertions + " keys");
+        }
+        this.words = new AtomicLongArray((int) words);
+        this.counters = (int) words * COUNTERS_PER_WORD;
+        this.hashes = Math.max(1, (int) Math.round(bits / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Adds key
+     * 
+     * @param key
+     */
+    public void add(K key) {
+        long hash = spread(key);
+        for (int i = 0; i < hashes; i++) {
+            update(index(hash, i), 1);
+        }
+    }
+
+    /**
+     * Removes key, which must have been added before. Removing a key which was never added may make another key look absent
+     * 
+     * @param key
+     */
+    public void remove(K key) {
+        long hash = spread(key);
+        for (int i = 0; i < hashes; i++) {
+            update(index(hash, i), -1);
+        }
+    }
+
+    /**
+     * Returns false if key is certainly not in the filter
+     * 
+     * @param key
+     * @return
+     */
+    public boolean mightContain(K key) {
+        long hash = spread(key);
+        for (int i = 0; i < hashes; i++) {
+            if (counter(index(hash, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns number of counters, 4 bits each
+     * 
+     * @return
+     */
+    public int counterCount() {
+        return counters;
+    }
+
+    /**
+     * Returns number of counters each key updates
+     * 
+     * @return
+     */
+    public int hashCount() {
+        return hashes;
+    }
+
+    private int counter(int index) {
+        long word = words.get(index / COUNTERS_PER_WORD);
+        return (int) ((word >>> shift(index)) & COUNTER_MASK);
+    }
+
+    private void update(int index, int delta) {
+        int wordIndex = index / COUNTERS_PER_WORD;
+        int shift = shift(index);
+        while (true) {
+            long word = words.get(wordIndex);
+            long count = (word >>> shift) & COUNTER_MASK;
+            // Saturated counters stick, empty ones cannot go negative
+            if (count == COUNTER_MASK || (delta < 0 && count == 0)) {
+                return;
+            }
+            long updated = word + ((long) delta << shift);
+            if (words.compareAndSet(wordIndex, word, updated)) {
+                return;
+            }
+        }
+    }
+
+    private static int shift(int index) {
+        return (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+    }
+
+    /**
+     * Derives the i-th counter from the two halves of the hash, double hashing as in Kirsch and Mitzenmacher
+     */
+    private int index(long hash, int i) {
+        int combined = (int) hash + i * (int) (hash >>> 32);
+        return (combined & Integer.MAX_VALUE) % counters;
+    }
+
+    private static long spread(Object key) {
+        long h = key.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 29);
+    }
+
+}
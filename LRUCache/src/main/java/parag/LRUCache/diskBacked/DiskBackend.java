@@ -0,0 +1,126 @@
+package parag.LRUCache.diskBacked;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.SerializationException;
+
+/**
+ * Disk tier backing an in-memory cache. Entries evicted from memory are put here and promoted back on a memory miss
+ */
+public interface DiskBackend<K, V> {
+
+    /**
+     * Expiration time of an entry which never expires
+     */
+    long NO_EXPIRATION = Long.MAX_VALUE;
+
+    /**
+     * Stores value on disk, replacing an existing value of key if present
+     * 
+     * @param key
+     * @param value
+     * @throws SerializationException
+     */
+    void put(K key, V value) throws SerializationException;
+
+    /**
+     * Stores value on disk until the given wall clock time. A disk tier which does not support expiration keeps it until it is removed
+     * 
+     * @param key
+     * @param value
+     * @param expiresAtMillis epoch millis after which the value is no longer returned, {@link #NO_EXPIRATION} to keep it
+     * @throws SerializationException
+     */
+    default void put(K key, V value, long expiresAtMillis) throws SerializationException {
+        put(key, value);
+    }
+
+    /**
+     * Stores a batch of values, each until its own expiration time. Implementations write the batch in one go where they can, by default
+     * every entry is put on its own. A batch which fails may have been stored in part
+     * 
+     * @param entries values to store
+     * @param expiresAtMillis expiration time of each key of entries, {@link #NO_EXPIRATION} for a key whose value is kept
+     * @throws SerializationException
+     */
+    default void putAll(Map<? extends K, ? extends V> entries, ToLongFunction<? super K> expiresAtMillis) throws SerializationException {
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            put(entry.getKey(), entry.getValue(), expiresAtMillis.applyAsLong(entry.getKey()));
+        }
+    }
+
+    /**
+     * Returns the wall clock time at which the value of key expires
+     * 
+     * @param key
+     * @return epoch millis, {@link #NO_EXPIRATION} if the value does not expire or key is not on disk
+     */
+    default long expirationOf(K key) {
+        return NO_EXPIRATION;
+    }
+
+    /**
+     * Reads value from disk
+     * 
+     * @param key
+     * @return value, null if key is not on disk
+     * @throws DeserializationException
+     */
+    V get(K key) throws DeserializationException;
+
+    /**
+     * Removes key from disk if present
+     * 
+     * @param key
+     */
+    void remove(K key);
+
+    /**
+     * Removes key from disk and reports whether it was there. A disk tier which cannot tell removes key and returns false
+     * 
+     * @param key
+     * @return true if an entry of key was removed
+     */
+    default boolean removeIfPresent(K key) {
+        remove(key);
+        return false;
+    }
+
+    /**
+     * Reads the values of a batch of keys. Implementations order the reads by their position on disk, by default every key is read on
+     * its own
+     * 
+     * @param keys
+     * @return mapping of every key found on disk to its value
+     * @throws DeserializationException
+     */
+    default Map<K, V> getAll(Collection<? extends K> keys) throws DeserializationException {
+        Map<K, V> result = new HashMap<>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the keys spilled last, used to warm up the memory tier after a restart. They are the entries which were hottest in memory if
+     * it was spilled coldest first, e.g. by {@link parag.LRUCache.impl.LinkedLRUCache#spillAll()}, and merely the latest evictions
+     * otherwise
+     * 
+     * @param count maximum number of keys
+     * @return keys ordered from the most recently spilled, empty if the disk tier does not keep track
+     */
+    default List<K> recentlySpilledKeys(int count) {
+        return Collections.emptyList();
+    }
+
+}
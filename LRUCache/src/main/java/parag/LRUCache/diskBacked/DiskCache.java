@@ -1,21 +1,237 @@
 package parag.LRUCache.diskBacked;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
 
+import parag.LRUCache.Weigher;
 import parag.LRUCache.diskBacked.DiskStore;
 import parag.LRUCache.exception.DeserializationException;
 import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.serializer.Serializer;
+import parag.LRUCache.serializer.Serializers;
+import parag.LRUCache.stats.CacheStats;
+import parag.LRUCache.stats.StatsCounter;
 
 /**
  * This class is responsible for cache operations on disk
+ * <p>
+ * The disk tier is unbounded unless a maximum weight is given, in which case the files are indexed in the order they were written and
+ * the oldest ones are deleted once the total weight of the stored entries exceeds it. A tier bounded by bytes weighs every entry by the
+ * size of its file instead, and may evict the least recently read files rather than the oldest, see {@link EvictionOrder}. Files are
+ * written and deleted outside the lock guarding the budget, so puts of different keys reach the disk in parallel.
+ * <p>
+ * All files sit directly under the directory prefix unless directory levels are given. Each level adds a subdirectory named after one
+ * byte of the hash of the file name, 256 per level, so that no directory holds more than a small share of a large disk tier and the cost of
+ * opening a file stays flat as the tier grows. Subdirectories are created by the first write which needs them.
+ * <p>
+ * An entry put with an expiration time is no longer returned once it has passed, its file is deleted by the read which finds it expired
+ * or, at the latest, by a background sweeper. The sweeper takes the due entries from a queue ordered by expiration time and never lists
+ * the directory. A key holds at most one place in that queue, writing it again replaces its expiration instead of adding another.
+ * <p>
+ * Without a key serializer the disk tier only finds a file by rebuilding its name from the key and forgets its entries with the process.
+ * With one, every put and remove is recorded in a {@link DiskIndex} next to the files. A new instance on the same directory loads that
+ * index, restoring the entries together with their weights and expiration times, and can name the entries the previous process spilled
+ * last.
+ * <p>
+ * Several processes may share the directory, e.g. the nodes of a {@link parag.LRUCache.invalidation.NearCache}: files are replaced
+ * atomically, so a read never sees a partly written value. The weight budget, the eviction order, the expiration queue and the index
+ * are kept per instance though. Each one only counts and evicts the files it wrote itself, the shared directory can hold up to the sum
+ * of the budgets.
+ * <p>
+ * The bytes moved by the serializer are recorded by a {@link StatsCounter} if one is given.
  */
-public class DiskCache<K, V> {
+public class DiskCache<K, V> implements DiskBackend<K, V>, Closeable {
 
     private static final String FILE_PREFIX = "cache_";
+    private static final long SWEEP_INTERVAL_MS = 1000;
+    private static final int MAX_DIRECTORY_LEVELS = 4;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int STRIPES = 64;
+
+    /**
+     * Order in which a bounded disk tier deletes its files
+     */
+    public enum EvictionOrder {
+        /** Files written longest ago go first */
+        FIFO,
+        /** Files read or written longest ago go first */
+        LRU
+    }
+
     private final String filePath;
+    private final Serializer<V> serializer;
+    private final long maximumWeight;
+    private final Weigher<K, V> weigher;
+    // Entries weigh the bytes of their file instead of what the weigher says
+    private final boolean weighBytes;
+    private final boolean accessOrder;
+    private final int directoryLevels;
+    // Weight of every stored entry in eviction order, only kept for a bounded disk tier. Its lock is never held across file I/O
+    private final LinkedHashMap<K, Integer> weights;
+    private long weightedSize;
+    // Held while the file of a key of a bounded disk tier is written or deleted, so an eviction cannot delete a newer file of its victim
+    private final ReentrantLock[] stripes;
+    // Scheduled expiration of each key which has one, the same instance is the key's only element of the queue
+    private final ConcurrentHashMap<K, Expiration<K>> expirations = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Expiration<K>> expirationQueue = new ConcurrentSkipListSet<>();
+    private final AtomicLong expirationSequence = new AtomicLong();
+    // Started by the first put with an expiration time
+    private volatile ScheduledExecutorService sweeper;
+    // Durable index, null unless a key serializer was given
+    private final DiskIndex<K> index;
+    private final StatsCounter statsCounter;
 
+    /**
+     * Constructor. Values are stored with Java serialization
+     * 
+     * @param filePath
+     */
     public DiskCache(String filePath) {
+        this(filePath, Serializers.<V>java());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param filePath directory prefix of the files
+     * @param serializer codec of the values
+     */
+    public DiskCache(String filePath, Serializer<V> serializer) {
+        this(filePath, serializer, Long.MAX_VALUE, null, false, EvictionOrder.FIFO, 0, null, StatsCounter.disabled());
+    }
+
+    /**
+     * Constructor for a disk tier bounded by weight. Only the entries written through this instance are accounted for
+     * 
+     * @param filePath directory prefix of the files
+     * @param serializer codec of the values
+     * @param maximumWeight maximum total weight of the entries kept on disk
+     * @param weigher calculates the weight of an entry
+     */
+    public DiskCache(String filePath, Serializer<V> serializer, long maximumWeight, Weigher<K, V> weigher) {
+        this(filePath, serializer, maximumWeight, weigher, false, EvictionOrder.FIFO, 0, null, StatsCounter.disabled());
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive");
+        }
+    }
+
+    /**
+     * Constructor for a disk tier which survives a restart. Loads the entries left in the directory by a previous instance
+     * 
+     * @param filePath directory prefix of the files
+     * @param keySerializer codec of the keys in the index
+     * @param serializer codec of the values
+     * @throws IOException if the index cannot be read or written
+     */
+    public DiskCache(String filePath, Serializer<K> keySerializer, Serializer<V> serializer) throws IOException {
+        this(filePath, serializer, Long.MAX_VALUE, null, false, EvictionOrder.FIFO, 0, new DiskIndex<K>(filePath, keySerializer),
+                StatsCounter.disabled());
+        restore();
+    }
+
+    /**
+     * Constructor for a disk tier bounded by weight which survives a restart. Loads the entries left in the directory by a previous
+     * instance, deleting the oldest ones if they do not fit the budget
+     * 
+     * @param filePath directory prefix of the files
+     * @param keySerializer codec of the keys in the index
+     * @param serializer codec of the values
+     * @param maximumWeight maximum total weight of the entries kept on disk
+     * @param weigher calculates the weight of an entry
+     * @throws IOException if the index cannot be read or written
+     */
+    public DiskCache(String filePath, Serializer<K> keySerializer, Serializer<V> serializer, long maximumWeight, Weigher<K, V> weigher)
+            throws IOException {
+        this(filePath, keySerializer, serializer, maximumWeight, weigher, StatsCounter.disabled());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param filePath directory prefix of the files
+     * @param keySerializer codec of the keys in the index, null for a disk tier which does not survive a restart
+     * @param serializer codec of the values
+     * @param maximumWeight maximum total weight of the entries kept on disk, Long.MAX_VALUE without a weigher
+     * @param weigher calculates the weight of an entry, null for an unbounded disk tier
+     * @param statsCounter records the bytes read and written
+     * @throws IOException if the index cannot be read or written
+     */
+    public DiskCache(String filePath, Serializer<K> keySerializer, Serializer<V> serializer, long maximumWeight, Weigher<K, V> weigher,
+            StatsCounter statsCounter) throws IOException {
+        this(filePath, serializer, maximumWeight, weigher, false, EvictionOrder.FIFO, 0,
+                keySerializer == null ? null : new DiskIndex<K>(filePath, keySerializer), statsCounter);
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive");
+        }
+        if (index != null) {
+            restore();
+        }
+    }
+
+    /**
+     * Constructor for a disk tier bounded by the bytes of its files. With a key serializer the index records the bytes of every
+     * entry, the read order of an LRU tier is not recorded and a new instance starts from the write order
+     * 
+     * @param filePath directory prefix of the files
+     * @param keySerializer codec of the keys in the index, null for a disk tier which does not survive a restart
+     * @param serializer codec of the values
+     * @param maximumBytes maximum total size of the files, Long.MAX_VALUE for an unbounded disk tier
+     * @param evictionOrder which files are deleted first once the budget is exceeded
+     * @param directoryLevels number of hashed subdirectory levels below the directory prefix, 0 to 4
+     * @param statsCounter records the bytes read and written
+     * @throws IOException if the index cannot be read or written
+     */
+    public DiskCache(String filePath, Serializer<K> keySerializer, Serializer<V> serializer, long maximumBytes, EvictionOrder evictionOrder,
+            int directoryLevels, StatsCounter statsCounter) throws IOException {
+        this(filePath, serializer, maximumBytes, null, maximumBytes != Long.MAX_VALUE, evictionOrder, directoryLevels,
+                keySerializer == null ? null : new DiskIndex<K>(filePath, keySerializer), statsCounter);
+        if (maximumBytes <= 0) {
+            throw new IllegalArgumentException("maximumBytes must be positive");
+        }
+        if (index != null) {
+            restore();
+        }
+    }
+
+    private DiskCache(String filePath, Serializer<V> serializer, long maximumWeight, Weigher<K, V> weigher, boolean weighBytes,
+            EvictionOrder evictionOrder, int directoryLevels, DiskIndex<K> index, StatsCounter statsCounter) {
+        if (directoryLevels < 0 || directoryLevels > MAX_DIRECTORY_LEVELS) {
+            throw new IllegalArgumentException("directoryLevels must be between 0 and " + MAX_DIRECTORY_LEVELS);
+        }
         this.filePath = filePath;
+        this.serializer = serializer;
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.weighBytes = weighBytes;
+        this.accessOrder = evictionOrder == EvictionOrder.LRU;
+        this.directoryLevels = directoryLevels;
+        this.weights = weigher == null && !weighBytes ? null : new LinkedHashMap<K, Integer>(16, 0.75f, accessOrder);
+        this.stripes = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.index = index;
+        this.statsCounter = statsCounter;
     }
 
     /**
@@ -25,10 +241,208 @@ public class DiskCache<K, V> {
      * @param value
      * @throws SerializationException
      */
+    @Override
     public void put(K key, V value) throws SerializationException {
+        put(key, value, NO_EXPIRATION);
+    }
+
+    /**
+     * Serialize, the file is deleted once expiresAtMillis has passed
+     * 
+     * @param key
+     * @param value
+     * @param expiresAtMillis
+     * @throws SerializationException
+     */
+    @Override
+    public void put(K key, V value, long expiresAtMillis) throws SerializationException {
+        // Recorded before the write so the sweeper cannot take the new file for the expired old one
+        schedule(key, expiresAtMillis);
+        if (weights != null) {
+            putWeighted(key, value, expiresAtMillis);
+            return;
+        }
+        write(key, value);
+        index(key, expiresAtMillis, 1);
+    }
+
+    /**
+     * Writes the files of the batch sorted by name, so files of one directory are written in the order they are listed in it
+     * 
+     * @param entries
+     * @param expiresAtMillis
+     * @throws SerializationException
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> entries, ToLongFunction<? super K> expiresAtMillis) throws SerializationException {
+        List<Map.Entry<String, K>> files = new ArrayList<>(entries.size());
+        for (K key : entries.keySet()) {
+            files.add(new AbstractMap.SimpleImmutableEntry<>(findFileName(key), key));
+        }
+        files.sort(Map.Entry.comparingByKey());
+        for (Map.Entry<String, K> file : files) {
+            K key = file.getValue();
+            put(key, entries.get(key), expiresAtMillis.applyAsLong(key));
+        }
+    }
+
+    /**
+     * Writes the entry and deletes the oldest or least recently used files until the budget is met again. An entry heavier than the
+     * whole budget is not stored, the previous file of the key is removed instead
+     * 
+     * @param key
+     * @param value
+     * @param expiresAtMillis
+     * @throws SerializationException
+     */
+    private void putWeighted(K key, V value, long expiresAtMillis) throws SerializationException {
+        // Weighed by the bytes written when bounded by bytes
+        int weight = weighBytes ? 0 : weigher.weigh(key, value);
+        List<K> victims;
+        ReentrantLock stripe = stripes[stripeIndex(key)];
+        stripe.lock();
+        try {
+            // The file is written outside the lock of the weights, so puts of different keys write in parallel
+            if (weight <= maximumWeight) {
+                int bytes = write(key, value);
+                if (weighBytes) {
+                    weight = bytes;
+                }
+            }
+            synchronized (weights) {
+                Integer oldWeight = weights.remove(key);
+                if (oldWeight != null) {
+                    weightedSize -= oldWeight;
+                }
+                if (weight > maximumWeight) {
+                    unindex(key);
+                    victims = Collections.emptyList();
+                } else {
+                    weights.put(key, weight);
+                    weightedSize += weight;
+                    index(key, expiresAtMillis, weight);
+                    victims = evictIfNeeded();
+                }
+            }
+            if (weight > maximumWeight) {
+                DiskStore.deleteFile(findFileName(key));
+            }
+        } finally {
+            stripe.unlock();
+        }
+        deleteFiles(victims);
+    }
+
+    /**
+     * Drops the oldest or least recently used entries from the weights and the index until the budget is met. Caller must hold the lock
+     * of the weights and delete the files of the returned keys once it has released it, see {@link #deleteFiles(List)}
+     * 
+     * @return keys whose files are to be deleted
+     */
+    private List<K> evictIfNeeded() {
+        List<K> victims = new ArrayList<>();
+        Iterator<Map.Entry<K, Integer>> oldest = weights.entrySet().iterator();
+        while (weightedSize > maximumWeight && oldest.hasNext()) {
+            Map.Entry<K, Integer> entry = oldest.next();
+            oldest.remove();
+            weightedSize -= entry.getValue();
+            unindex(entry.getKey());
+            victims.add(entry.getKey());
+        }
+        return victims;
+    }
+
+    /**
+     * Deletes the files of evicted keys, each under the lock of its stripe. A key written again since it was evicted keeps its new file
+     * 
+     * @param victims
+     */
+    private void deleteFiles(List<K> victims) {
+        for (K victim : victims) {
+            ReentrantLock stripe = stripes[stripeIndex(victim)];
+            stripe.lock();
+            try {
+                synchronized (weights) {
+                    if (weights.containsKey(victim)) {
+                        continue;
+                    }
+                }
+                DiskStore.deleteFile(findFileName(victim));
+            } finally {
+                stripe.unlock();
+            }
+        }
+    }
+
+    private void index(K key, long expiresAtMillis, int weight) throws SerializationException {
+        if (index != null) {
+            try {
+                index.put(key, expiresAtMillis, weight);
+            } catch (IOException e) {
+                throw new SerializationException("Error while updating disk index", e);
+            }
+        }
+    }
+
+    private void unindex(K key) {
+        if (index != null) {
+            try {
+                index.remove(key);
+            } catch (IOException e) {
+                // The file is gone already, an index entry left behind only makes a later get miss
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the in-memory state from the loaded index, dropping the entries which expired while no process was running
+     */
+    private void restore() {
+        long now = System.currentTimeMillis();
+        for (DiskIndex.Entry<K> entry : index.entries()) {
+            if (entry.expiresAtMillis != NO_EXPIRATION && entry.expiresAtMillis <= now) {
+                DiskStore.deleteFile(findFileName(entry.key));
+                unindex(entry.key);
+                continue;
+            }
+            schedule(entry.key, entry.expiresAtMillis);
+            if (weights != null) {
+                synchronized (weights) {
+                    weights.put(entry.key, entry.weight);
+                    weightedSize += entry.weight;
+                }
+            }
+        }
+        if (weights != null) {
+            List<K> victims;
+            synchronized (weights) {
+                victims = evictIfNeeded();
+            }
+            deleteFiles(victims);
+        }
+    }
+
+    /**
+     * Writes the file of the entry, creating its subdirectories if they do not exist yet
+     * 
+     * @param key
+     * @param value
+     * @return number of bytes written
+     * @throws SerializationException
+     */
+    private int write(K key, V value) throws SerializationException {
         String file = findFileName(key);
         try {
-            DiskStore.<K, V>serialize(value, file);
+            try {
+                return DiskStore.serialize(value, serializer, file, statsCounter);
+            } catch (FileNotFoundException e) {
+                File directory = new File(file).getParentFile();
+                // Another writer may be creating the same directory
+                if (directoryLevels == 0 || !(directory.mkdirs() || directory.isDirectory())) {
+                    throw e;
+                }
+                return DiskStore.serialize(value, serializer, file, statsCounter);
+            }
         } catch (IOException e) {
             throw new SerializationException("Error while putting on disk", e);
         }
@@ -41,36 +455,324 @@ public class DiskCache<K, V> {
      * @return
      * @throws DeserializationException
      */
+    @Override
     public V get(K key) throws DeserializationException {
-
+        if (expireIfDue(key)) {
+            return null;
+        }
         String file = findFileName(key);
         V value = null;
         try {
-            value = DiskStore.<K, V>deserialize(file);
-        } catch (ClassNotFoundException | IOException e) {
+            value = DiskStore.deserialize(file, serializer, statsCounter);
+        } catch (IOException e) {
             throw new DeserializationException("Error while getting from disk", e);
         }
+        if (value != null) {
+            touch(key);
+        }
         return value;
     }
     
+    /**
+     * Reads the files of the batch sorted by name, so files of one directory are opened in the order they are listed in it
+     * 
+     * @param keys
+     * @return
+     * @throws DeserializationException
+     */
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) throws DeserializationException {
+        TreeMap<String, K> files = new TreeMap<>();
+        for (K key : keys) {
+            if (!expireIfDue(key)) {
+                files.put(findFileName(key), key);
+            }
+        }
+        Map<K, V> result = new HashMap<>();
+        try {
+            for (Map.Entry<String, K> file : files.entrySet()) {
+                V value = DiskStore.deserialize(file.getKey(), serializer, statsCounter);
+                if (value != null) {
+                    result.put(file.getValue(), value);
+                    touch(file.getValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new DeserializationException("Error while getting from disk", e);
+        }
+        return result;
+    }
+
     /**
      * Remove file
      * 
      * @param key
      */
+    @Override
     public void remove(K key) {
-        DiskStore.deleteFile(findFileName(key));
+        removeIfPresent(key);
+    }
+
+    /**
+     * Remove file, true if there was one
+     * 
+     * @param key
+     * @return
+     */
+    @Override
+    public boolean removeIfPresent(K key) {
+        schedule(key, NO_EXPIRATION);
+        return removeFile(key);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#expirationOf(java.lang.Object)
+     */
+    @Override
+    public long expirationOf(K key) {
+        Expiration<K> expiration = expirations.get(key);
+        return expiration == null ? NO_EXPIRATION : expiration.expiresAtMillis;
+    }
+
+    /**
+     * Deletes the files of all entries whose expiration time has passed. Runs periodically in the background, may be called directly
+     */
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        for (Expiration<K> expiration : expirationQueue) {
+            if (expiration.expiresAtMillis > now) {
+                break;
+            }
+            // Skips keys removed or written again meanwhile
+            if (expirationQueue.remove(expiration) && expirations.remove(expiration.key, expiration)) {
+                removeFile(expiration.key);
+            }
+        }
+    }
+
+    /**
+     * Returns number of expiration times waiting for the sweeper, at most one per key
+     * 
+     * @return
+     */
+    public int scheduledExpirations() {
+        return expirationQueue.size();
+    }
+
+    /**
+     * Returns the keys written last, whatever their reads since. Empty without a durable index
+     * 
+     * @param count
+     * @return keys ordered from the most recently written
+     */
+    @Override
+    public List<K> recentlySpilledKeys(int count) {
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        return index.mostRecent(count);
+    }
+
+    /**
+     * Returns number of entries in the durable index, 0 without one
+     * 
+     * @return
+     */
+    public int indexedCount() {
+        return index == null ? 0 : index.size();
+    }
+
+    /**
+     * Writes the durable index to a new checkpoint right away
+     * 
+     * @throws IOException
+     */
+    public void checkpoint() throws IOException {
+        if (index != null) {
+            index.checkpoint();
+        }
+    }
+
+    /**
+     * Stops the sweeper and checkpoints the durable index. Files stay on disk
+     */
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService executor = sweeper;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    /**
+     * Deletes the file of key if its expiration time has passed
+     * 
+     * @param key
+     * @return true if key is expired
+     */
+    private boolean expireIfDue(K key) {
+        Expiration<K> expiration = expirations.get(key);
+        if (expiration == null || expiration.expiresAtMillis > System.currentTimeMillis()) {
+            return false;
+        }
+        if (expirations.remove(key, expiration)) {
+            expirationQueue.remove(expiration);
+            removeFile(key);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the scheduled expiration of key, or drops it for NO_EXPIRATION. Atomic per key, so the queue never holds two
+     * expirations of one key
+     * 
+     * @param key
+     * @param expiresAtMillis
+     */
+    private void schedule(K key, long expiresAtMillis) {
+        expirations.compute(key, (k, previous) -> {
+            if (previous != null) {
+                expirationQueue.remove(previous);
+            }
+            if (expiresAtMillis == NO_EXPIRATION) {
+                return null;
+            }
+            Expiration<K> expiration = new Expiration<>(k, expiresAtMillis, expirationSequence.getAndIncrement());
+            expirationQueue.add(expiration);
+            return expiration;
+        });
+        if (expiresAtMillis != NO_EXPIRATION) {
+            startSweeper();
+        }
+    }
+
+    private void startSweeper() {
+        if (sweeper == null) {
+            synchronized (expirationQueue) {
+                if (sweeper == null) {
+                    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "disk-cache-sweeper");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    sweeper = executor;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves key to the most recently used end of an LRU disk tier
+     * 
+     * @param key
+     */
+    private void touch(K key) {
+        if (accessOrder) {
+            synchronized (weights) {
+                weights.get(key);
+            }
+        }
+    }
+
+    private boolean removeFile(K key) {
+        if (weights == null) {
+            boolean deleted = DiskStore.deleteFile(findFileName(key));
+            unindex(key);
+            return deleted;
+        }
+        ReentrantLock stripe = stripes[stripeIndex(key)];
+        stripe.lock();
+        try {
+            synchronized (weights) {
+                Integer weight = weights.remove(key);
+                if (weight != null) {
+                    weightedSize -= weight;
+                }
+                unindex(key);
+            }
+            return DiskStore.deleteFile(findFileName(key));
+        } finally {
+            stripe.unlock();
+        }
     }
 
     /**
-     * Forms Full file path
+     * Returns total weight of the entries written through this instance, their bytes for a tier bounded by bytes, 0 for an unbounded
+     * disk tier
+     * 
+     * @return
+     */
+    public long weightedSize() {
+        if (weights == null) {
+            return 0;
+        }
+        synchronized (weights) {
+            return weightedSize;
+        }
+    }
+
+    /**
+     * Returns the statistics recorded so far, empty unless a stats counter was given
+     * 
+     * @return
+     */
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Forms Full file path, e.g. prefix/3f/a2/cache_key with two directory levels
      * 
      * @param key
      * @return
      */
     private String findFileName(K key) {
-        String fileName = filePath + FILE_PREFIX + key.toString();
-        return fileName;
+        String name = key.toString();
+        if (directoryLevels == 0) {
+            return filePath + FILE_PREFIX + name;
+        }
+        StringBuilder fileName = new StringBuilder(filePath.length() + directoryLevels * 3 + FILE_PREFIX.length() + name.length());
+        fileName.append(filePath);
+        // Hashes the name rather than the key, so a key whose hashCode differs between JVMs still finds its indexed file after a restart
+        int hash = name.hashCode() * 0x9E3779B9;
+        for (int level = 0; level < directoryLevels; level++) {
+            int bits = hash >>> (24 - level * 8);
+            fileName.append(HEX_DIGITS[(bits >>> 4) & 0xF]).append(HEX_DIGITS[bits & 0xF]).append(File.separatorChar);
+        }
+        return fileName.append(FILE_PREFIX).append(name).toString();
+    }
+
+    private static int stripeIndex(Object key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return hash >>> 26;
+    }
+
+    /**
+     * Entry of the sweeper queue, due once its expiration time has passed. Ordered by expiration time, ties broken by the order they were
+     * scheduled in
+     */
+    private static final class Expiration<K> implements Comparable<Expiration<K>> {
+
+        private final K key;
+        private final long expiresAtMillis;
+        private final long sequence;
+
+        private Expiration(K key, long expiresAtMillis, long sequence) {
+            this.key = key;
+            this.expiresAtMillis = expiresAtMillis;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Expiration<K> other) {
+            int order = Long.compare(expiresAtMillis, other.expiresAtMillis);
+            return order != 0 ? order : Long.compare(sequence, other.sequence);
+        }
+
     }
 
 }
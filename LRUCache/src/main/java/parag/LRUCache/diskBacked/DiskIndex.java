@@ -0,0 +1,264 @@
+package parag.LRUCache.diskBacked;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import parag.LRUCache.serializer.Serializer;
+
+/**
+ * Durable index of the entries held by a {@link DiskCache}, so the disk tier survives a restart.
+ * <p>
+ * Every put and remove is appended to a manifest. Once the manifest has grown well beyond the number of live entries the whole index is
+ * written to a checkpoint, which is swapped in atomically, and the manifest starts over. Loading reads the checkpoint and replays the
+ * manifest on top of it, so a restart costs time proportional to the number of entries and never touches the value files. A record
+ * torn by a crash ends the replay.
+ * <p>
+ * Each entry carries a sequence number which grows with every put, the highest sequence numbers name the entries written last. Reads
+ * are not recorded, so these are the hottest entries only if the memory tier was spilled coldest first.
+ */
+final class DiskIndex<K> implements Closeable {
+
+    private static final String MANIFEST = "index.manifest";
+    private static final String CHECKPOINT = "index.checkpoint";
+    private static final int CHECKPOINT_MAGIC = 0x4C525531;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int MIN_CHECKPOINT_RECORDS = 1024;
+
+    private final File manifestFile;
+    private final File checkpointFile;
+    private final Serializer<K> keySerializer;
+    private final ByteArrayOutputStream keyBytes = new ByteArrayOutputStream();
+    private final DataOutputStream keyOutput = new DataOutputStream(keyBytes);
+
+    // Guarded by this
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    private DataOutputStream manifest;
+    private int manifestRecords;
+    private long nextSequence;
+
+    /**
+     * Constructor. Loads the index found in the directory and compacts it into a fresh checkpoint
+     * 
+     * @param filePath directory prefix of the index files
+     * @param keySerializer codec of the keys
+     * @throws IOException
+     */
+    DiskIndex(String filePath, Serializer<K> keySerializer) throws IOException {
+        this.manifestFile = new File(filePath + MANIFEST);
+        this.checkpointFile = new File(filePath + CHECKPOINT);
+        this.keySerializer = keySerializer;
+        synchronized (this) {
+            load();
+            checkpoint();
+        }
+    }
+
+    /**
+     * Returns the live entries ordered by sequence number, oldest first
+     * 
+     * @return
+     */
+    synchronized List<Entry<K>> entries() {
+        List<Entry<K>> list = new ArrayList<>(entries.values());
+        list.sort(Comparator.comparingLong(entry -> entry.sequence));
+        return list;
+    }
+
+    /**
+     * Records a put
+     * 
+     * @param key
+     * @param expiresAtMillis
+     * @param weight
+     * @throws IOException
+     */
+    synchronized void put(K key, long expiresAtMillis, int weight) throws IOException {
+        Entry<K> entry = new Entry<>(key, nextSequence++, expiresAtMillis, weight);
+        entries.put(key, entry);
+        writeRecord(manifest, PUT, entry);
+        afterRecord();
+    }
+
+    /**
+     * Records a remove of a key which is in the index
+     * 
+     * @param key
+     * @throws IOException
+     */
+    synchronized void remove(K key) throws IOException {
+        if (entries.remove(key) != null) {
+            writeRecord(manifest, REMOVE, new Entry<>(key, 0, 0, 0));
+            afterRecord();
+        }
+    }
+
+    /**
+     * Returns the keys with the highest sequence numbers, highest first
+     * 
+     * @param count
+     * @return
+     */
+    synchronized List<K> mostRecent(int count) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Entry<K>> top = new PriorityQueue<>(Comparator.comparingLong(entry -> entry.sequence));
+        for (Entry<K> entry : entries.values()) {
+            top.add(entry);
+            if (top.size() > count) {
+                top.poll();
+            }
+        }
+        List<K> keys = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            keys.add(top.poll().key);
+        }
+        Collections.reverse(keys);
+        return keys;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes all live entries to a new checkpoint, swaps it in and starts a new manifest
+     * 
+     * @throws IOException
+     */
+    synchronized void checkpoint() throws IOException {
+        File temp = new File(checkpointFile.getPath() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(entries.size());
+            for (Entry<K> entry : entries()) {
+                writeRecord(out, PUT, entry);
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // A crash before the manifest is emptied replays it on top of the checkpoint, which leads to the same entries
+        if (manifest != null) {
+            manifest.close();
+        }
+        manifest = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(manifestFile, false)));
+        manifestRecords = 0;
+    }
+
+    /**
+     * Checkpoints and closes the manifest
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        checkpoint();
+        manifest.close();
+    }
+
+    private void afterRecord() throws IOException {
+        manifest.flush();
+        manifestRecords++;
+        if (manifestRecords > Math.max(MIN_CHECKPOINT_RECORDS, 2 * entries.size())) {
+            checkpoint();
+        }
+    }
+
+    private void load() throws IOException {
+        if (checkpointFile.exists()) {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(checkpointFile.toPath()));
+            if (in.remaining() < 8 || in.getInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("Not a disk index checkpoint: " + checkpointFile);
+            }
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                readRecord(in);
+            }
+        }
+        if (manifestFile.exists()) {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(manifestFile.toPath()));
+            try {
+                while (in.hasRemaining()) {
+                    readRecord(in);
+                }
+            } catch (BufferUnderflowException | IOException e) {
+                // Torn tail of a manifest which was being appended to when the process died
+            }
+        }
+    }
+
+    private void readRecord(ByteBuffer in) throws IOException {
+        byte type = in.get();
+        long sequence = in.getLong();
+        long expiresAtMillis = in.getLong();
+        int weight = in.getInt();
+        int keyLength = in.getInt();
+        if (keyLength < 0 || keyLength > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        ByteBuffer keyBuffer = in.slice();
+        keyBuffer.limit(keyLength);
+        in.position(in.position() + keyLength);
+        K key = keySerializer.read(keyBuffer);
+        if (type == PUT) {
+            entries.put(key, new Entry<>(key, sequence, expiresAtMillis, weight));
+            nextSequence = Math.max(nextSequence, sequence + 1);
+        } else if (type == REMOVE) {
+            entries.remove(key);
+        } else {
+            throw new IOException("Unknown disk index record " + type);
+        }
+    }
+
+    /**
+     * Record layout: type (byte), sequence (long), expiration (long), weight (int), key length (int) followed by the serialized key
+     */
+    private void writeRecord(DataOutputStream out, byte type, Entry<K> entry) throws IOException {
+        keyBytes.reset();
+        keySerializer.write(entry.key, keyOutput);
+        keyOutput.flush();
+        out.writeByte(type);
+        out.writeLong(entry.sequence);
+        out.writeLong(entry.expiresAtMillis);
+        out.writeInt(entry.weight);
+        out.writeInt(keyBytes.size());
+        keyBytes.writeTo(out);
+    }
+
+    /**
+     * Indexed entry
+     */
+    static final class Entry<K> {
+
+        final K key;
+        final long sequence;
+        final long expiresAtMillis;
+        final int weight;
+
+        private Entry(K key, long sequence, long expiresAtMillis, int weight) {
+            this.key = key;
+            this.sequence = sequence;
+            this.expiresAtMillis = expiresAtMillis;
+            this.weight = weight;
+        }
+
+    }
+
+}
@@ -8,12 +8,30 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+import parag.LRUCache.serializer.BufferOutput;
+import parag.LRUCache.serializer.Serializer;
+import parag.LRUCache.stats.StatsCounter;
 
 /**
  * This class directly interacts with Disk storage
+ * <p>
+ * A file is never written in place: the value goes to a temporary file next to it, which is then renamed over the file in one atomic step.
+ * A reader, in this process or another one sharing the directory, therefore sees either the old content or the new one, never a truncated
+ * or half written file.
  */
 public class DiskStore {
 
+    private static final int MAX_RETAINED_READ_BUFFER = 1024 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER = new ThreadLocal<>();
+
     /**
      * Store Object in file
      * 
@@ -22,8 +40,15 @@ public class DiskStore {
      * @throws IOException
      */
     public static <K, V> void serialize(V object, String filePath) throws IOException {
-        try (FileOutputStream fos = new FileOutputStream(filePath); ObjectOutputStream oos = new ObjectOutputStream(fos)) {
-            oos.writeObject(object);
+        String tempPath = tempPath(filePath);
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tempPath); ObjectOutputStream oos = new ObjectOutputStream(fos)) {
+                oos.writeObject(object);
+            }
+            replace(tempPath, filePath);
+        } catch (IOException | RuntimeException e) {
+            deleteFile(tempPath);
+            throw e;
         }
     }
 
@@ -47,6 +72,87 @@ public class DiskStore {
         return object;
     }
 
+    /**
+     * Store value in file using serializer. The value is encoded into the reusable buffer of the calling thread and written with a single
+     * call
+     * 
+     * @param object
+     * @param serializer
+     * @param filePath
+     * @throws IOException
+     */
+    public static <V> void serialize(V object, Serializer<V> serializer, String filePath) throws IOException {
+        serialize(object, serializer, filePath, StatsCounter.disabled());
+    }
+
+    /**
+     * Store value in file using serializer, recording the number of bytes written
+     * 
+     * @param object
+     * @param serializer
+     * @param filePath
+     * @param statsCounter
+     * @return number of bytes written
+     * @throws IOException
+     */
+    public static <V> int serialize(V object, Serializer<V> serializer, String filePath, StatsCounter statsCounter) throws IOException {
+        BufferOutput output = BufferOutput.get();
+        serializer.write(object, output.dataOutput());
+        ByteBuffer bytes = output.toByteBuffer();
+        int size = bytes.remaining();
+        String tempPath = tempPath(filePath);
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tempPath); FileChannel channel = fos.getChannel()) {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+            replace(tempPath, filePath);
+        } catch (IOException | RuntimeException e) {
+            deleteFile(tempPath);
+            throw e;
+        }
+        statsCounter.recordBytesWritten(size);
+        return size;
+    }
+
+    /**
+     * Retrieve value from file using serializer. The file is read into the reusable buffer of the calling thread
+     * 
+     * @param filePath
+     * @param serializer
+     * @return value, null if file does not exist
+     * @throws IOException
+     */
+    public static <V> V deserialize(String filePath, Serializer<V> serializer) throws IOException {
+        return deserialize(filePath, serializer, StatsCounter.disabled());
+    }
+
+    /**
+     * Retrieve value from file using serializer, recording the number of bytes read
+     * 
+     * @param filePath
+     * @param serializer
+     * @param statsCounter
+     * @return value, null if file does not exist
+     * @throws IOException
+     */
+    public static <V> V deserialize(String filePath, Serializer<V> serializer, StatsCounter statsCounter) throws IOException {
+        try (FileInputStream fis = new FileInputStream(filePath); FileChannel channel = fis.getChannel()) {
+            ByteBuffer buffer = readBuffer((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of file " + filePath);
+                }
+            }
+            buffer.flip();
+            statsCounter.recordBytesRead(buffer.remaining());
+            return serializer.read(buffer);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
     /**
      * Delete file
      * 
@@ -58,4 +164,44 @@ public class DiskStore {
         return file.delete();
     }
 
+    /**
+     * Returns a name next to filePath for the temporary file of one write, unique among concurrent writers of any process
+     * 
+     * @param filePath
+     * @return
+     */
+    private static String tempPath(String filePath) {
+        return filePath + '.' + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp";
+    }
+
+    /**
+     * Renames the written temporary file over filePath in one atomic step
+     * 
+     * @param tempPath
+     * @param filePath
+     * @throws IOException
+     */
+    private static void replace(String tempPath, String filePath) throws IOException {
+        Files.move(Paths.get(tempPath), Paths.get(filePath), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the read buffer of the calling thread cleared and limited to size, growing it if needed
+     * 
+     * @param size
+     * @return
+     */
+    private static ByteBuffer readBuffer(int size) {
+        ByteBuffer buffer = READ_BUFFER.get();
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(size);
+            if (size <= MAX_RETAINED_READ_BUFFER) {
+                READ_BUFFER.set(buffer);
+            }
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
 }
@@ -0,0 +1,111 @@
+package parag.LRUCache.diskBacked;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One append-only data file of {@link LogStructuredDiskCache}.
+ * <p>
+ * The file is preallocated to its capacity and mapped into memory once. Appends copy the record into the mapping and reads return a
+ * slice of it, so neither path makes a system call or copies the record into a heap buffer. The mapping stays valid after the file is
+ * closed and deleted, a reader holding a slice of a compacted segment can still finish reading it.
+ */
+class LogSegment {
+
+    private final int id;
+    private final File file;
+    private final MappedByteBuffer mapping;
+    private final AtomicLong deadBytes = new AtomicLong();
+    private volatile int size;
+
+    /**
+     * Constructor
+     * 
+     * @param id sequence number of the segment in the log
+     * @param file
+     * @param capacity size of the file and the mapping, at most 2 GB
+     * @throws IOException
+     */
+    LogSegment(int id, File file, int capacity) throws IOException {
+        this.id = id;
+        this.file = file;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            raf.setLength(capacity);
+            this.mapping = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+    int id() {
+        return id;
+    }
+
+    /**
+     * Returns true if record of length bytes fits in the remaining capacity
+     * 
+     * @param length
+     * @return
+     */
+    boolean hasRoom(int length) {
+        return mapping.capacity() - size >= length;
+    }
+
+    /**
+     * Appends record at the end of the segment. Only one thread may append at a time
+     * 
+     * @param record
+     * @return offset of the record
+     */
+    int append(ByteBuffer record) {
+        int offset = size;
+        ByteBuffer target = mapping.duplicate();
+        target.position(offset);
+        target.put(record);
+        size = target.position();
+        return offset;
+    }
+
+    /**
+     * Returns read only view of length bytes at offset, backed by the mapping
+     * 
+     * @param offset
+     * @param length
+     * @return
+     */
+    ByteBuffer read(int offset, int length) {
+        ByteBuffer view = mapping.asReadOnlyBuffer();
+        view.limit(offset + length).position(offset);
+        return view.slice();
+    }
+
+    void markDead(int length) {
+        deadBytes.addAndGet(length);
+    }
+
+    /**
+     * Returns share of the segment occupied by overwritten or removed records
+     * 
+     * @return
+     */
+    double deadRatio() {
+        int total = size;
+        return total == 0 ? 0 : (double) deadBytes.get() / total;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Deletes the data file. Memory of the mapping is released once no slice references it any more
+     */
+    void delete() {
+        file.delete();
+    }
+
+}
@@ -0,0 +1,425 @@
+package parag.LRUCache.diskBacked;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.serializer.BufferOutput;
+import parag.LRUCache.serializer.Serializer;
+import parag.LRUCache.serializer.Serializers;
+
+/**
+ * Disk tier which appends every record to large segment files instead of writing one file per key.
+ * <p>
+ * An in-memory index maps each key to the segment and offset of its latest record, so a put is one sequential write and a remove touches
+ * no file at all. Segments are memory mapped: a put copies the record into the mapping and a get deserializes straight from a slice of
+ * it, without opening a stream or allocating a read buffer. Overwritten and removed records stay in their segment as dead bytes until a
+ * background task copies the live records of mostly dead segments to the end of the log and deletes the old files.
+ * <p>
+ * Record layout: value length (int) followed by the serialized value. The index lives only in memory and holds the expiration time of
+ * each record, segments found in the directory on startup are discarded.
+ */
+public class LogStructuredDiskCache<K, V> implements DiskBackend<K, V>, Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment_";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = 4;
+    private static final Comparator<Map.Entry<?, Location>> LOCATION_ORDER = Comparator
+            .<Map.Entry<?, Location>> comparingInt(entry -> entry.getValue().segment.id())
+            .thenComparingInt(entry -> entry.getValue().offset);
+
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    private static final long COMPACTION_INTERVAL_MS = 1000;
+
+    private final File directory;
+    private final int segmentSize;
+    private final double compactionThreshold;
+    private final Serializer<V> serializer;
+
+    private final Map<K, Location> index = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<LogSegment> sealedSegments = new CopyOnWriteArrayList<>();
+    private final Object appendLock = new Object();
+    private final ScheduledExecutorService compactor;
+
+    private volatile LogSegment activeSegment;
+    private int nextSegmentId;
+
+    /**
+     * Constructor. 64 MB segments, compacted once half of a segment is dead, values stored with Java serialization
+     * 
+     * @param directory
+     * @throws IOException
+     */
+    public LogStructuredDiskCache(String directory) throws IOException {
+        this(directory, Serializers.<V>java());
+    }
+
+    /**
+     * Constructor. 64 MB segments, compacted once half of a segment is dead
+     * 
+     * @param directory
+     * @param serializer codec of the values
+     * @throws IOException
+     */
+    public LogStructuredDiskCache(String directory, Serializer<V> serializer) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMPACTION_THRESHOLD, serializer);
+    }
+
+    /**
+     * Constructor. Values stored with Java serialization
+     * 
+     * @param directory directory holding the segment files
+     * @param segmentSize size of a segment file, a record larger than that gets a segment of its own
+     * @param compactionThreshold share of dead bytes which makes a sealed segment eligible for compaction
+     * @throws IOException
+     */
+    public LogStructuredDiskCache(String directory, int segmentSize, double compactionThreshold) throws IOException {
+        this(directory, segmentSize, compactionThreshold, Serializers.<V>java());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param directory directory holding the segment files
+     * @param segmentSize size of a segment file, a record larger than that gets a segment of its own
+     * @param compactionThreshold share of dead bytes which makes a sealed segment eligible for compaction
+     * @param serializer codec of the values
+     * @throws IOException
+     */
+    public LogStructuredDiskCache(String directory, int segmentSize, double compactionThreshold, Serializer<V> serializer)
+            throws IOException {
+        if (segmentSize <= HEADER_SIZE || compactionThreshold <= 0 || compactionThreshold > 1) {
+            throw new IllegalArgumentException("Invalid segmentSize or compactionThreshold");
+        }
+        this.directory = new File(directory);
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = compactionThreshold;
+        this.serializer = serializer;
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        deleteStaleSegments();
+        this.activeSegment = newSegment(segmentSize);
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "disk-cache-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.compactor.scheduleWithFixedDelay(this::compactQuietly, COMPACTION_INTERVAL_MS, COMPACTION_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(K key, V value) throws SerializationException {
+        put(key, value, NO_EXPIRATION);
+    }
+
+    /**
+     * Appends the record and keeps its expiration time in the index, a get after that time finds nothing
+     * 
+     * @param key
+     * @param value
+     * @param expiresAtMillis
+     * @throws SerializationException
+     */
+    @Override
+    public void put(K key, V value, long expiresAtMillis) throws SerializationException {
+        ByteBuffer record;
+        try {
+            record = serialize(value);
+        } catch (IOException e) {
+            throw new SerializationException("Error while putting on disk", e);
+        }
+        try {
+            synchronized (appendLock) {
+                Location location = append(record, expiresAtMillis);
+                release(index.put(key, location));
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Error while putting on disk", e);
+        }
+    }
+
+    /**
+     * Appends the records of the whole batch back to back under one acquisition of the append lock
+     * 
+     * @param entries
+     * @param expiresAtMillis
+     * @throws SerializationException
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> entries, ToLongFunction<? super K> expiresAtMillis) throws SerializationException {
+        try {
+            synchronized (appendLock) {
+                for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                    // Copied into the segment before the thread local buffer is reused for the next record
+                    Location location = append(serialize(entry.getValue()), expiresAtMillis.applyAsLong(entry.getKey()));
+                    release(index.put(entry.getKey(), location));
+                }
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Error while putting on disk", e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) throws DeserializationException {
+        Location location = index.get(key);
+        if (location == null || expireIfDue(key, location)) {
+            return null;
+        }
+        ByteBuffer record = location.segment.read(location.offset, location.length);
+        try {
+            record.position(HEADER_SIZE);
+            return serializer.read(record);
+        } catch (IOException e) {
+            throw new DeserializationException("Error while getting from disk", e);
+        }
+    }
+
+    /**
+     * Resolves the location of every key first and reads the records segment by segment in offset order, so the batch walks each
+     * mapping front to back instead of jumping around it
+     * 
+     * @param keys
+     * @return
+     * @throws DeserializationException
+     */
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) throws DeserializationException {
+        List<Map.Entry<K, Location>> locations = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            Location location = index.get(key);
+            if (location != null && !expireIfDue(key, location)) {
+                locations.add(new AbstractMap.SimpleImmutableEntry<>(key, location));
+            }
+        }
+        locations.sort(LOCATION_ORDER);
+        Map<K, V> result = new HashMap<>();
+        try {
+            for (Map.Entry<K, Location> entry : locations) {
+                Location location = entry.getValue();
+                ByteBuffer record = location.segment.read(location.offset, location.length);
+                record.position(HEADER_SIZE);
+                result.put(entry.getKey(), serializer.read(record));
+            }
+        } catch (IOException e) {
+            throw new DeserializationException("Error while getting from disk", e);
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#remove(java.lang.Object)
+     */
+    @Override
+    public void remove(K key) {
+        removeIfPresent(key);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#removeIfPresent(java.lang.Object)
+     */
+    @Override
+    public boolean removeIfPresent(K key) {
+        synchronized (appendLock) {
+            Location location = index.remove(key);
+            release(location);
+            return location != null;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#expirationOf(java.lang.Object)
+     */
+    @Override
+    public long expirationOf(K key) {
+        Location location = index.get(key);
+        return location == null ? NO_EXPIRATION : location.expiresAtMillis;
+    }
+
+    /**
+     * Returns number of keys on disk
+     * 
+     * @return
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns number of segment files including the one being appended to
+     * 
+     * @return
+     */
+    public int segmentCount() {
+        return sealedSegments.size() + 1;
+    }
+
+    /**
+     * Copies the live records of every sealed segment whose dead share reached the threshold to the end of the log and deletes the
+     * segment. Runs periodically in the background, may be called directly
+     * 
+     * @throws IOException
+     */
+    public synchronized void compact() throws IOException {
+        for (LogSegment segment : sealedSegments) {
+            if (segment.deadRatio() >= compactionThreshold) {
+                compact(segment);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        compactor.shutdownNow();
+        synchronized (appendLock) {
+            for (LogSegment segment : sealedSegments) {
+                segment.delete();
+            }
+            sealedSegments.clear();
+            activeSegment.delete();
+            index.clear();
+        }
+    }
+
+    private void compact(LogSegment segment) throws IOException {
+        for (Map.Entry<K, Location> entry : index.entrySet()) {
+            Location location = entry.getValue();
+            if (location.segment != segment) {
+                continue;
+            }
+            // Expired records are dropped instead of copied
+            if (expireIfDue(entry.getKey(), location)) {
+                continue;
+            }
+            ByteBuffer record = segment.read(location.offset, location.length);
+            synchronized (appendLock) {
+                // Key may have been overwritten or removed while we were copying
+                if (index.get(entry.getKey()) == location) {
+                    index.put(entry.getKey(), append(record, location.expiresAtMillis));
+                }
+            }
+        }
+        sealedSegments.remove(segment);
+        segment.delete();
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            // Leave the segment in place, next run retries
+        }
+    }
+
+    /**
+     * Appends record to the active segment, rolling over to a new one when full. Caller must hold the append lock
+     * 
+     * @param record
+     * @return
+     * @throws IOException
+     */
+    private Location append(ByteBuffer record, long expiresAtMillis) throws IOException {
+        int length = record.remaining();
+        if (!activeSegment.hasRoom(length)) {
+            sealedSegments.add(activeSegment);
+            activeSegment = newSegment(Math.max(segmentSize, length));
+        }
+        int offset = activeSegment.append(record);
+        return new Location(activeSegment, offset, length, expiresAtMillis);
+    }
+
+    /**
+     * Removes key if its record has expired, unless it has been written again since
+     * 
+     * @param key
+     * @param location
+     * @return true if the record has expired
+     */
+    private boolean expireIfDue(K key, Location location) {
+        if (location.expiresAtMillis == NO_EXPIRATION || location.expiresAtMillis > System.currentTimeMillis()) {
+            return false;
+        }
+        synchronized (appendLock) {
+            if (index.remove(key, location)) {
+                release(location);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the record of value, length first, in the thread local buffer of the calling thread
+     */
+    private ByteBuffer serialize(V value) throws IOException {
+        BufferOutput output = BufferOutput.get();
+        output.dataOutput().writeInt(0);
+        serializer.write(value, output.dataOutput());
+        output.putInt(0, output.size() - HEADER_SIZE);
+        return output.toByteBuffer();
+    }
+
+    private void release(Location location) {
+        if (location != null) {
+            location.segment.markDead(location.length);
+        }
+    }
+
+    private LogSegment newSegment(int capacity) throws IOException {
+        int id = nextSegmentId++;
+        return new LogSegment(id, new File(directory, SEGMENT_PREFIX + id + SEGMENT_SUFFIX), capacity);
+    }
+
+    private void deleteStaleSegments() {
+        File[] stale = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (stale != null) {
+            for (File file : stale) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Position of the latest record of a key
+     */
+    private static final class Location {
+
+        private final LogSegment segment;
+        private final int offset;
+        private final int length;
+        private final long expiresAtMillis;
+
+        private Location(LogSegment segment, int offset, int length, long expiresAtMillis) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+    }
+
+}
@@ -0,0 +1,396 @@
+package parag.LRUCache.diskBacked;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.SerializationException;
+
+/**
+ * Disk tier decorator which moves the writes of another {@link DiskBackend} to a background thread.
+ * <p>
+ * A put only parks the value in a pending map and queues its key, so an eviction no longer waits for the file write while it holds the
+ * cache lock. A single writer thread takes the queued keys in batches and hands the latest pending value of each to the wrapped disk tier
+ * in one {@link DiskBackend#putAll(Map, ToLongFunction)}. Until a value is written a get is served from the pending map, so a spilled
+ * entry is never invisible. A remove does not wait for the writer, a value it removes while being written is deleted again afterwards.
+ * <p>
+ * The queue is bounded: once it is full a put blocks until the writer catches up, which keeps memory bounded when the disk falls behind.
+ * A value whose write fails stays pending and is written again by the next batch, see {@link #failureCount()}. While the writes keep
+ * failing a put which finds the queue full gives up with an exception, so the caller keeps its entry instead of waiting for the disk.
+ */
+public class WriteBehindDiskCache<K, V> implements DiskBackend<K, V>, Closeable {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final DiskBackend<K, V> delegate;
+    private final int batchSize;
+    private final ConcurrentHashMap<K, Pending<V>> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<K> queue;
+    // Serializes the writes of the writer thread with those of flush(), so a pending value which vanishes during a write was removed
+    private final Object writeLock = new Object();
+    private final Thread writer;
+    private final LongAdder failureCount = new LongAdder();
+
+    private volatile boolean closed;
+    // Whether the last batch left values unwritten, and why
+    private volatile SerializationException failure;
+
+    /**
+     * Constructor. At most 1024 pending keys, written 64 at a time
+     * 
+     * @param delegate disk tier the values are written to
+     */
+    public WriteBehindDiskCache(DiskBackend<K, V> delegate) {
+        this(delegate, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param delegate disk tier the values are written to
+     * @param capacity maximum number of queued keys before a put blocks
+     * @param batchSize maximum number of keys the writer takes from the queue at once
+     */
+    public WriteBehindDiskCache(DiskBackend<K, V> delegate, int capacity, int batchSize) {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("capacity and batchSize must be positive");
+        }
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::writeLoop, "disk-cache-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Parks value for the background writer, blocking while the queue is full
+     * 
+     * @param key
+     * @param value
+     * @throws SerializationException if the queue is full while background writes are failing, the value is not kept
+     */
+    @Override
+    public void put(K key, V value) throws SerializationException {
+        put(key, value, NO_EXPIRATION);
+    }
+
+    /**
+     * Parks value and its expiration time for the background writer, blocking while the queue is full
+     * 
+     * @param key
+     * @param value
+     * @param expiresAtMillis
+     * @throws SerializationException if the queue is full while background writes are failing, the value is not kept
+     */
+    @Override
+    public void put(K key, V value, long expiresAtMillis) throws SerializationException {
+        if (closed) {
+            synchronized (writeLock) {
+                pending.remove(key);
+                delegate.put(key, value, expiresAtMillis);
+            }
+            return;
+        }
+        // A key already pending is still queued, the writer picks up the newer value
+        Pending<V> parked = new Pending<>(value, expiresAtMillis);
+        if (pending.put(key, parked) != null) {
+            return;
+        }
+        try {
+            // Back-pressure, gives up waiting once the writer is stopped and nobody will drain the queue
+            while (!queue.offer(key, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    writeNow(key);
+                    return;
+                }
+                SerializationException failed = failure;
+                if (failed != null) {
+                    // The disk is not taking writes, the caller keeps the value rather than waiting for it
+                    pending.remove(key, parked);
+                    throw new SerializationException("Error while spilling to disk in background", failed);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeNow(key);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) throws DeserializationException {
+        Pending<V> value = pending.get(key);
+        if (value != null) {
+            return value.isExpired() ? null : value.value;
+        }
+        // Writer removes the pending value only after it is on disk
+        return delegate.get(key);
+    }
+
+    /**
+     * Serves the pending values and reads the rest of the batch from the wrapped disk tier in one call
+     * 
+     * @param keys
+     * @return
+     * @throws DeserializationException
+     */
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) throws DeserializationException {
+        Map<K, V> result = new HashMap<>();
+        List<K> written = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            Pending<V> value = pending.get(key);
+            if (value != null) {
+                if (!value.isExpired()) {
+                    result.put(key, value.value);
+                }
+            } else {
+                written.add(key);
+            }
+        }
+        if (!written.isEmpty()) {
+            result.putAll(delegate.getAll(written));
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#remove(java.lang.Object)
+     */
+    @Override
+    public void remove(K key) {
+        removeIfPresent(key);
+    }
+
+    /**
+     * Drops a pending write of key and removes it from the wrapped tier, true if either held it. Does not wait for a write of key in
+     * progress, the writer deletes that value again once it is written
+     * 
+     * @param key
+     * @return
+     */
+    @Override
+    public boolean removeIfPresent(K key) {
+        boolean pendingRemoved = pending.remove(key) != null;
+        return delegate.removeIfPresent(key) || pendingRemoved;
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#expirationOf(java.lang.Object)
+     */
+    @Override
+    public long expirationOf(K key) {
+        Pending<V> value = pending.get(key);
+        return value != null ? value.expiresAtMillis : delegate.expirationOf(key);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.diskBacked.DiskBackend#recentlySpilledKeys(int)
+     */
+    @Override
+    public List<K> recentlySpilledKeys(int count) {
+        return delegate.recentlySpilledKeys(count);
+    }
+
+    /**
+     * Writes every pending value from the calling thread
+     * 
+     * @throws SerializationException if some values could not be written, they stay pending
+     */
+    public void flush() throws SerializationException {
+        List<K> failed = write(new ArrayList<>(pending.keySet()));
+        if (!failed.isEmpty()) {
+            throw new SerializationException("Error while writing " + failed.size() + " pending values", failure);
+        }
+    }
+
+    /**
+     * Returns number of values not yet written to disk
+     * 
+     * @return
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Returns number of background writes which failed and were left pending to be tried again
+     * 
+     * @return
+     */
+    public long failureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * Stops the writer, writes the remaining values and closes the wrapped disk tier if it is closeable
+     */
+    @Override
+    public void close() throws IOException {
+        // Not interrupted, an interrupt would abort a write in progress on an interruptible channel
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } catch (SerializationException e) {
+            throw new IOException("Error while flushing pending values", e);
+        } finally {
+            if (delegate instanceof Closeable) {
+                ((Closeable) delegate).close();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<K> batch = new ArrayList<>(batchSize);
+        while (!closed) {
+            try {
+                if (batch.isEmpty()) {
+                    K key = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    if (key == null) {
+                        continue;
+                    }
+                    batch.add(key);
+                } else {
+                    // Values of the last batch are still pending, gives the disk time before trying them again
+                    Thread.sleep(POLL_INTERVAL_MS);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            List<K> failed = write(batch);
+            batch.clear();
+            batch.addAll(failed);
+        }
+    }
+
+    /**
+     * Writes the pending values of keys in one batch. Values replaced during the write are written again, values removed during the
+     * write are deleted again. Keys without a pending value are skipped
+     * 
+     * @param keys
+     * @return keys whose values could not be written, still pending
+     */
+    private List<K> write(List<K> keys) {
+        List<K> failed = new ArrayList<>();
+        SerializationException lastFailure = null;
+        synchronized (writeLock) {
+            Map<K, Pending<V>> batch = new LinkedHashMap<>();
+            for (K key : keys) {
+                Pending<V> value = pending.get(key);
+                if (value != null) {
+                    batch.put(key, value);
+                }
+            }
+            while (!batch.isEmpty()) {
+                Map<K, V> values = new LinkedHashMap<>();
+                for (Map.Entry<K, Pending<V>> entry : batch.entrySet()) {
+                    values.put(entry.getKey(), entry.getValue().value);
+                }
+                Map<K, Pending<V>> written = batch;
+                try {
+                    delegate.putAll(values, key -> written.get(key).expiresAtMillis);
+                } catch (SerializationException | RuntimeException e) {
+                    // Falls back to one write per key to find the values which fail
+                    Iterator<Map.Entry<K, Pending<V>>> entries = batch.entrySet().iterator();
+                    while (entries.hasNext()) {
+                        Map.Entry<K, Pending<V>> entry = entries.next();
+                        try {
+                            delegate.put(entry.getKey(), entry.getValue().value, entry.getValue().expiresAtMillis);
+                        } catch (SerializationException | RuntimeException keyFailure) {
+                            lastFailure = keyFailure instanceof SerializationException ? (SerializationException) keyFailure
+                                    : new SerializationException("Error while putting on disk", keyFailure);
+                            failureCount.increment();
+                            failed.add(entry.getKey());
+                            entries.remove();
+                        }
+                    }
+                }
+                batch = settle(batch);
+            }
+        }
+        failure = lastFailure;
+        return failed;
+    }
+
+    /**
+     * Drops the written values from the pending map. Caller must hold the write lock, so a value which vanished from the pending map
+     * during the write was removed, possibly before the write reached the disk
+     * 
+     * @param written
+     * @return values which replaced written ones during the write, to be written next
+     */
+    private Map<K, Pending<V>> settle(Map<K, Pending<V>> written) {
+        Map<K, Pending<V>> replaced = new LinkedHashMap<>();
+        for (Map.Entry<K, Pending<V>> entry : written.entrySet()) {
+            K key = entry.getKey();
+            // Compared by identity, the same value put again is written again
+            if (pending.remove(key, entry.getValue())) {
+                continue;
+            }
+            Pending<V> newer = pending.get(key);
+            if (newer != null) {
+                replaced.put(key, newer);
+            } else {
+                delegate.remove(key);
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * Writes the pending value of key from the calling thread
+     * 
+     * @param key
+     * @throws SerializationException if the value could not be written, it stays pending
+     */
+    private void writeNow(K key) throws SerializationException {
+        if (!write(Collections.singletonList(key)).isEmpty()) {
+            throw new SerializationException("Error while putting on disk", failure);
+        }
+    }
+
+    /**
+     * Value waiting for the writer
+     */
+    private static final class Pending<V> {
+
+        private final V value;
+        private final long expiresAtMillis;
+
+        private Pending(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private boolean isExpired() {
+            return expiresAtMillis != NO_EXPIRATION && expiresAtMillis <= System.currentTimeMillis();
+        }
+
+    }
+
+}
@@ -0,0 +1,450 @@
+package parag.LRUCache.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+
+/**
+ * Disk Backed LRU Cache whose disk reads and spills run on an executor instead of the calling thread, so no lock is held across I/O.
+ * <p>
+ * The memory tier is a {@link LinkedLRUCache}, a hit completes the returned future in the calling thread. A miss reads the disk tier in a
+ * task on the executor without holding any lock, then takes the cache lock only to move the value into memory; concurrent misses on one
+ * key share a single read, a read which overlaps a write of its key reads again. Evicted entries are parked in memory and written by a
+ * task on the executor, a get finds them there until the write is done. One slow disk read or write therefore only delays the callers
+ * of its own key.
+ * <p>
+ * Disk tasks run on virtual threads when the JVM has them, Java 21 or later, and on a pool of daemon threads otherwise. Writes of one key
+ * are serialized by a striped {@link ReentrantLock}, which unlike a monitor does not pin a virtual thread to its carrier. Reads take no
+ * lock, they only wait for a write of their stripe which is running.
+ * An evicted entry whose write fails stays parked, so gets still find it, and its write is tried again once a later spill is written and
+ * by close. The next put fails with the error instead of storing its value, {@link #failureCount()} counts every failed write.
+ */
+public class AsyncCache<K, V> implements Closeable {
+
+    private static final int STRIPES = 64;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final LinkedLRUCache<K, V> memory;
+    private final DiskBackend<K, V> diskCache;
+    private final Executor executor;
+    // Shut down by close, null if the executor was given by the caller
+    private final ExecutorService ownedExecutor;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> reads = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, Pending<V>> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    // Bumped under the stripe lock before and after every write, odd while one is running. A read which sees it odd or changed may have
+    // read a value written over since
+    private final AtomicLongArray writeGenerations = new AtomicLongArray(STRIPES);
+    // Parked entries whose last write failed, written again by the task of the next spill which succeeds
+    private final Set<K> failedWrites = ConcurrentHashMap.newKeySet();
+    private final LongAdder failureCount = new LongAdder();
+
+    private volatile SerializationException failure;
+
+    /**
+     * Constructor. Disk tasks run on virtual threads if available
+     * 
+     * @param maxSize maximum number of entries kept in memory
+     * @param diskCache disk tier for evicted entries
+     */
+    public AsyncCache(int maxSize, DiskBackend<K, V> diskCache) {
+        this(maxSize, diskCache, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize maximum number of entries kept in memory
+     * @param diskCache disk tier for evicted entries
+     * @param executor runs the disk reads and writes, null for virtual threads if available
+     */
+    public AsyncCache(int maxSize, DiskBackend<K, V> diskCache, Executor executor) {
+        this.diskCache = diskCache;
+        this.ownedExecutor = executor == null ? defaultExecutor() : null;
+        this.executor = executor == null ? ownedExecutor : executor;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.memory = new LinkedLRUCache<>(maxSize, new SpillBuffer());
+    }
+
+    /**
+     * Returns a future of the value, null if it is neither in memory nor on disk. Completed already on a memory hit
+     * 
+     * @param key
+     * @return
+     */
+    public CompletableFuture<V> get(K key) {
+        if (key == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            V value = memory.get(key);
+            if (value != null) {
+                return CompletableFuture.completedFuture(value);
+            }
+        } catch (RetrievalException e) {
+            return failed(e);
+        }
+        CompletableFuture<V> read = reads.get(key);
+        if (read != null) {
+            return read;
+        }
+        CompletableFuture<V> started = new CompletableFuture<>();
+        read = reads.putIfAbsent(key, started);
+        if (read != null) {
+            return read;
+        }
+        try {
+            executor.execute(() -> complete(key, started));
+        } catch (RuntimeException e) {
+            reads.remove(key, started);
+            started.completeExceptionally(e);
+        }
+        return started;
+    }
+
+    /**
+     * Returns a future of the values of all keys found in memory or on disk
+     * 
+     * @param keys
+     * @return
+     */
+    public CompletableFuture<Map<K, V>> getAll(Collection<? extends K> keys) {
+        Map<K, CompletableFuture<V>> futures = new HashMap<>();
+        for (K key : keys) {
+            if (key != null) {
+                futures.put(key, get(key));
+            }
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Map<K, V> result = new HashMap<>();
+            for (Map.Entry<K, CompletableFuture<V>> future : futures.entrySet()) {
+                V value = future.getValue().join();
+                if (value != null) {
+                    result.put(future.getKey(), value);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Stores the value in memory. Evicted entries are written to disk in the background, the returned future is already complete
+     * 
+     * @param key
+     * @param value
+     * @return
+     */
+    public CompletableFuture<Void> put(K key, V value) {
+        SerializationException failed = failure;
+        if (failed != null) {
+            failure = null;
+            return failed(new StoreException("Error while writing to disk in the background", failed));
+        }
+        try {
+            memory.put(key, value);
+            return CompletableFuture.completedFuture(null);
+        } catch (StoreException e) {
+            return failed(e);
+        }
+    }
+
+    /**
+     * Returns number of evicted entries not yet written to disk
+     * 
+     * @return
+     */
+    public int spillBacklog() {
+        return pending.size();
+    }
+
+    /**
+     * Returns number of background writes which failed so far, including failed retries of one entry
+     * 
+     * @return
+     */
+    public long failureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * Returns number of entries held in memory
+     * 
+     * @return
+     */
+    public int size() {
+        return memory.size();
+    }
+
+    /**
+     * Writes the spills still pending in the calling thread, including the ones which failed before, and shuts down the executor if the
+     * cache created it. A failed write is reported here if no put has reported it yet
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+        // Write tasks on a given executor may never run, e.g. once it is shut down; write skips entries a task already wrote
+        for (Map.Entry<K, Pending<V>> entry : pending.entrySet()) {
+            write(entry.getKey(), entry.getValue());
+        }
+        if (ownedExecutor != null) {
+            try {
+                ownedExecutor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        SerializationException failed = failure;
+        if (failed != null) {
+            failure = null;
+            throw new IOException("Error while writing to disk in the background", failed);
+        }
+    }
+
+    /**
+     * Reads key from disk without a lock, then moves it into memory. Reads again if a write to the stripe ran meanwhile, waiting on the
+     * stripe lock first if one is running
+     */
+    private void complete(K key, CompletableFuture<V> read) {
+        try {
+            int stripeIndex = stripeIndex(key);
+            ReentrantLock stripe = stripes[stripeIndex];
+            while (true) {
+                long readGeneration = writeGenerations.get(stripeIndex);
+                if ((readGeneration & 1) != 0) {
+                    stripe.lock();
+                    stripe.unlock();
+                    continue;
+                }
+                V diskValue;
+                try {
+                    diskValue = diskCache.get(key);
+                } catch (DeserializationException e) {
+                    // May have read a file while it was written
+                    if (writeGenerations.get(stripeIndex) != readGeneration) {
+                        continue;
+                    }
+                    throw e;
+                }
+                if (diskValue == null) {
+                    read.complete(memory.get(key));
+                    return;
+                }
+                V value = memory.promoteRead(key, diskValue, () -> writeGenerations.get(stripeIndex) == readGeneration);
+                if (value != null || writeGenerations.get(stripeIndex) == readGeneration) {
+                    read.complete(value);
+                    return;
+                }
+            }
+        } catch (DeserializationException | RetrievalException | RuntimeException e) {
+            read.completeExceptionally(e);
+        } finally {
+            reads.remove(key, read);
+        }
+    }
+
+    /**
+     * Writes a parked entry unless it has been promoted or replaced since. It stays parked if the write fails
+     * 
+     * @return false if the write failed
+     */
+    private boolean write(K key, Pending<V> entry) {
+        int stripeIndex = stripeIndex(key);
+        ReentrantLock stripe = stripes[stripeIndex];
+        stripe.lock();
+        try {
+            if (pending.get(key) != entry) {
+                return true;
+            }
+            writeGenerations.incrementAndGet(stripeIndex);
+            try {
+                diskCache.put(key, entry.value, entry.expiresAtMillis);
+                pending.remove(key, entry);
+            } finally {
+                writeGenerations.incrementAndGet(stripeIndex);
+            }
+            return true;
+        } catch (SerializationException e) {
+            failedWrites.add(key);
+            failureCount.increment();
+            failure = e;
+            return false;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Writes again the parked entries whose write failed, stops at the first one which fails again
+     */
+    private void retryFailedWrites() {
+        for (K key : failedWrites) {
+            failedWrites.remove(key);
+            Pending<V> entry = pending.get(key);
+            if (entry != null && !write(key, entry)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Deletes the file of a promoted key unless it has been spilled again since
+     */
+    private void delete(K key) {
+        ReentrantLock stripe = stripeOf(key);
+        stripe.lock();
+        try {
+            if (!pending.containsKey(key)) {
+                diskCache.remove(key);
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private ReentrantLock stripeOf(K key) {
+        return stripes[stripeIndex(key)];
+    }
+
+    private static int stripeIndex(Object key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return hash >>> 26;
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable cause) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(cause);
+        return future;
+    }
+
+    /**
+     * Returns a virtual thread per task executor on Java 21 or later, looked up reflectively so the cache still runs on Java 8
+     */
+    private static ExecutorService defaultExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "async-cache-io");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Disk tier of the memory tier. Called under the cache lock, it only parks and looks up entries in memory and leaves the I/O to tasks
+     * on the executor
+     */
+    private final class SpillBuffer implements DiskBackend<K, V> {
+
+        /* (non-Javadoc)
+         * @see parag.LRUCache.diskBacked.DiskBackend#put(java.lang.Object, java.lang.Object)
+         */
+        @Override
+        public void put(K key, V value) {
+            put(key, value, NO_EXPIRATION);
+        }
+
+        /* (non-Javadoc)
+         * @see parag.LRUCache.diskBacked.DiskBackend#put(java.lang.Object, java.lang.Object, long)
+         */
+        @Override
+        public void put(K key, V value, long expiresAtMillis) {
+            Pending<V> entry = new Pending<>(value, expiresAtMillis);
+            pending.put(key, entry);
+            try {
+                executor.execute(() -> {
+                    if (write(key, entry)) {
+                        retryFailedWrites();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Executor shut down, write in the evicting thread rather than lose the entry
+                write(key, entry);
+            }
+        }
+
+        /* (non-Javadoc)
+         * @see parag.LRUCache.diskBacked.DiskBackend#get(java.lang.Object)
+         */
+        @Override
+        public V get(K key) {
+            Pending<V> entry = pending.get(key);
+            return entry == null ? null : entry.value;
+        }
+
+        /**
+         * Drops a parked entry which is promoted back to memory and deletes its file in the background
+         * 
+         * @param key
+         */
+        @Override
+        public void remove(K key) {
+            pending.remove(key);
+            try {
+                executor.execute(() -> delete(key));
+            } catch (RuntimeException e) {
+                delete(key);
+            }
+        }
+
+        /* (non-Javadoc)
+         * @see parag.LRUCache.diskBacked.DiskBackend#expirationOf(java.lang.Object)
+         */
+        @Override
+        public long expirationOf(K key) {
+            Pending<V> entry = pending.get(key);
+            return entry == null ? diskCache.expirationOf(key) : entry.expiresAtMillis;
+        }
+
+        /* (non-Javadoc)
+         * @see parag.LRUCache.diskBacked.DiskBackend#recentlySpilledKeys(int)
+         */
+        @Override
+        public List<K> recentlySpilledKeys(int count) {
+            return diskCache.recentlySpilledKeys(count);
+        }
+
+    }
+
+    /**
+     * Evicted entry waiting for its write
+     */
+    private static final class Pending<V> {
+
+        private final V value;
+        private final long expiresAtMillis;
+
+        private Pending(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+    }
+
+}
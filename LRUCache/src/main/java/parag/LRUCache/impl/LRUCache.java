@@ -1,19 +1,31 @@
 package parag.LRUCache.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.locks.ReentrantLock;
 
 import parag.LRUCache.Cache;
-import parag.LRUCache.diskBacked.DiskCache;
+import parag.LRUCache.diskBacked.DiskBackend;
 import parag.LRUCache.exception.DeserializationException;
 import parag.LRUCache.exception.RetrievalException;
 import parag.LRUCache.exception.SerializationException;
 import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.listener.RemovalCause;
+import parag.LRUCache.listener.RemovalDispatcher;
+import parag.LRUCache.listener.RemovalNotification;
+import parag.LRUCache.stats.CacheStats;
+import parag.LRUCache.stats.StatsCounter;
 
 /**
  * Tread Safe Disk Backed LRU Cache Implementation
+ * <p>
+ * Entries spilled to disk and entries promoted back from disk are published to a {@link RemovalDispatcher} if one is given, once the
+ * lock is released.
  */
 public class LRUCache<K, V> implements Cache<K, V> {
 
@@ -22,8 +34,12 @@ public class LRUCache<K, V> implements Cache<K, V> {
     private final Integer maxSize;
     private final Map<K, V> map;
     private final ConcurrentLinkedQueue<K> queue;
-    private final DiskCache<K, V> diskCache;
+    private final DiskBackend<K, V> diskCache;
     private final LinkedBlockingQueue<K> linkedBlockingQueue;
+    private final StatsCounter statsCounter;
+    private final RemovalDispatcher<K, V> removalDispatcher;
+    // Collected under the lock and published once it is released
+    private final ConcurrentLinkedQueue<RemovalNotification<K, V>> removals = new ConcurrentLinkedQueue<>();
 
     /**
      * Constructor
@@ -32,13 +48,43 @@ public class LRUCache<K, V> implements Cache<K, V> {
      * @param map
      * @param queue
      */
-    public LRUCache(Integer maxSize, Map<K, V> map, ConcurrentLinkedQueue<K> queue, DiskCache<K, V> diskLRUCache,
+    public LRUCache(Integer maxSize, Map<K, V> map, ConcurrentLinkedQueue<K> queue, DiskBackend<K, V> diskLRUCache,
             LinkedBlockingQueue<K> linkedBlockingQueue, Thread thread) {
+        this(maxSize, map, queue, diskLRUCache, linkedBlockingQueue, thread, StatsCounter.disabled());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize
+     * @param map
+     * @param queue
+     * @param statsCounter records the statistics, {@link StatsCounter#disabled()} to record nothing
+     */
+    public LRUCache(Integer maxSize, Map<K, V> map, ConcurrentLinkedQueue<K> queue, DiskBackend<K, V> diskLRUCache,
+            LinkedBlockingQueue<K> linkedBlockingQueue, Thread thread, StatsCounter statsCounter) {
+        this(maxSize, map, queue, diskLRUCache, linkedBlockingQueue, thread, statsCounter, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize
+     * @param map
+     * @param queue
+     * @param statsCounter records the statistics, {@link StatsCounter#disabled()} to record nothing
+     * @param removalDispatcher delivers the spilled and promoted entries to a listener, null to publish nothing
+     */
+    public LRUCache(Integer maxSize, Map<K, V> map, ConcurrentLinkedQueue<K> queue, DiskBackend<K, V> diskLRUCache,
+            LinkedBlockingQueue<K> linkedBlockingQueue, Thread thread, StatsCounter statsCounter,
+            RemovalDispatcher<K, V> removalDispatcher) {
         this.maxSize = maxSize;
         this.map = map;
         this.queue = queue;
         this.diskCache = diskLRUCache;
         this.linkedBlockingQueue = linkedBlockingQueue;
+        this.statsCounter = statsCounter;
+        this.removalDispatcher = removalDispatcher;
         startLRUManagerThread(thread);
     }
 
@@ -59,30 +105,35 @@ public class LRUCache<K, V> implements Cache<K, V> {
         if (key == null) {
             return;
         }
-        lock.tryLock();
+        lock.lock();
         try {
-            // While loop to truncate the size the map i.e delete LRU entries if size of map goes beyond max size
-            while (map.size() >= maxSize) {
-                try {
-                    removeLRUEntry();
-                } catch (SerializationException e) {
-                    throw new StoreException("Error while PUT operation", e);
-                }
-            }
-
-            V oldFile = map.put(key, cachedFile);
+            store(key, cachedFile);
+        } catch (SerializationException e) {
+            throw new StoreException("Error while PUT operation", e);
+        } finally {
+            unlock();
+        }
+    }
 
-            /**
-             * If Old value for key is not null then Key was already present. We are reinserting the key again to tail. We assume it to be
-             * recently used. If old value is null then add new entry
-             */
-            if (null != oldFile) {
-                linkedBlockingQueue.offer(key);
-            } else {
-                queue.offer(key);
+    /**
+     * Stores all the mappings under one acquisition of the lock
+     * 
+     * @param entries
+     * @throws StoreException
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> entries) throws StoreException {
+        lock.lock();
+        try {
+            for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                if (entry.getKey() != null) {
+                    store(entry.getKey(), entry.getValue());
+                }
             }
+        } catch (SerializationException e) {
+            throw new StoreException("Error while PUT operation", e);
         } finally {
-            lock.unlock();
+            unlock();
         }
     }
 
@@ -100,15 +151,21 @@ public class LRUCache<K, V> implements Cache<K, V> {
             value = map.get(key);
 
             if (value != null) {
+                statsCounter.recordHits(1);
                 linkedBlockingQueue.offer(key);
             } else {
+                statsCounter.recordMisses(1);
                 try {
                     // If key not found in memory then check on disk. Return null if not present
                     V diskValue = diskCache.get(key);
                     if (diskValue != null) {
+                        statsCounter.recordDiskHits(1);
                         put(key, diskValue);
                         queue.offer(key);
                         diskCache.remove(key);
+                        publish(key, diskValue, RemovalCause.PROMOTED);
+                    } else {
+                        statsCounter.recordDiskMisses(1);
                     }
                     return diskValue;
                 } catch (DeserializationException | StoreException e) {
@@ -116,11 +173,102 @@ public class LRUCache<K, V> implements Cache<K, V> {
                 }
             }
         } finally {
-            lock.unlock();
+            unlock();
         }
         return value;
     }
 
+    /**
+     * Resolves all the keys under one acquisition of the lock. Keys missing from memory are read from disk in one batch
+     * 
+     * @param keys
+     * @return mapping of every key found to its value
+     * @throws RetrievalException
+     */
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) throws RetrievalException {
+        Map<K, V> result = new HashMap<>();
+        List<K> misses = new ArrayList<>();
+        lock.lock();
+        try {
+            for (K key : keys) {
+                if (key == null) {
+                    continue;
+                }
+                V value = map.get(key);
+                if (value != null) {
+                    linkedBlockingQueue.offer(key);
+                    result.put(key, value);
+                } else {
+                    misses.add(key);
+                }
+            }
+            statsCounter.recordHits(result.size());
+            if (misses.isEmpty()) {
+                return result;
+            }
+            statsCounter.recordMisses(misses.size());
+            Map<K, V> diskValues = diskCache.getAll(misses);
+            statsCounter.recordDiskHits(diskValues.size());
+            statsCounter.recordDiskMisses(misses.size() - diskValues.size());
+            for (Map.Entry<K, V> entry : diskValues.entrySet()) {
+                store(entry.getKey(), entry.getValue());
+                diskCache.remove(entry.getKey());
+                publish(entry.getKey(), entry.getValue(), RemovalCause.PROMOTED);
+            }
+            result.putAll(diskValues);
+        } catch (DeserializationException | SerializationException e) {
+            throw new RetrievalException("Error while GET operation", e);
+        } finally {
+            unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the statistics recorded so far, empty unless a stats counter was given
+     * 
+     * @return
+     */
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Returns number of hits waiting for the {@link parag.LRUCache.lru.LRUManager} to move their keys to the tail of the queue
+     * 
+     * @return
+     */
+    public int backlog() {
+        return linkedBlockingQueue.size();
+    }
+
+    /**
+     * Puts the entry into memory, backing up LRU entries on disk if size of map goes beyond max size. Caller must hold the lock
+     * 
+     * @param key
+     * @param cachedFile
+     * @throws SerializationException
+     */
+    private void store(K key, V cachedFile) throws SerializationException {
+        // While loop to truncate the size the map i.e delete LRU entries if size of map goes beyond max size
+        while (map.size() >= maxSize) {
+            removeLRUEntry();
+        }
+
+        V oldFile = map.put(key, cachedFile);
+
+        /**
+         * If Old value for key is not null then Key was already present. We are reinserting the key again to tail. We assume it to be
+         * recently used. If old value is null then add new entry
+         */
+        if (null != oldFile) {
+            linkedBlockingQueue.offer(key);
+        } else {
+            queue.offer(key);
+        }
+    }
+
     /**
      * Remove Least Recently Used entry from Map as well as key from Queue And Back it up on disk
      * 
@@ -130,12 +278,37 @@ public class LRUCache<K, V> implements Cache<K, V> {
         K leastUsedKey = queue.poll();
         if (null != leastUsedKey) {
             V value = map.get(leastUsedKey);
+            statsCounter.recordEviction(1);
             // Adding entry to disk first and then removing from memory
             if (null != value) {
+                long start = statsCounter.isEnabled() ? System.nanoTime() : 0;
                 diskCache.put(leastUsedKey, value);
+                if (statsCounter.isEnabled()) {
+                    statsCounter.recordSpill(System.nanoTime() - start);
+                }
+                publish(leastUsedKey, value, RemovalCause.SPILLED);
             }
             map.remove(leastUsedKey);
         }
     }
 
+    private void publish(K key, V value, RemovalCause cause) {
+        if (removalDispatcher != null) {
+            removals.add(new RemovalNotification<>(key, value, cause));
+        }
+    }
+
+    /**
+     * Releases the lock, then publishes the notifications collected while it was held
+     */
+    private void unlock() {
+        lock.unlock();
+        if (removalDispatcher != null && !lock.isHeldByCurrentThread()) {
+            RemovalNotification<K, V> removal;
+            while ((removal = removals.poll()) != null) {
+                removalDispatcher.publish(removal);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,906 @@
+package parag.LRUCache.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import parag.LRUCache.Cache;
+import parag.LRUCache.Expiry;
+import parag.LRUCache.Ticker;
+import parag.LRUCache.Weigher;
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.listener.RemovalCause;
+import parag.LRUCache.listener.RemovalDispatcher;
+import parag.LRUCache.listener.RemovalNotification;
+import parag.LRUCache.lru.AccessOrderDeque;
+import parag.LRUCache.lru.Node;
+import parag.LRUCache.lru.ReadBuffer;
+import parag.LRUCache.lru.TimerWheel;
+import parag.LRUCache.policy.EvictionPolicy;
+import parag.LRUCache.policy.LruPolicy;
+import parag.LRUCache.stats.CacheStats;
+import parag.LRUCache.stats.StatsCounter;
+
+/**
+ * Thread Safe Disk Backed LRU Cache Implementation which keeps map entries and recency links in one {@link Node}.
+ * <p>
+ * Unlike {@link LRUCache} a hit does not need to search the queue for the key, the node is relinked at the tail of the
+ * {@link AccessOrderDeque} in constant time no matter how many entries the cache holds.
+ * <p>
+ * Hits take no lock. Like {@link parag.LRUCache.lru.LRUManager} the access order is rearranged asynchronously: a hit is only recorded in a
+ * striped {@link ReadBuffer}, and a single maintenance task replays the recorded hits in batches once a stripe fills up. Writes apply the
+ * pending hits before they change the access order.
+ * <p>
+ * Which entry is backed up on disk is decided by a pluggable {@link EvictionPolicy}, plain LRU unless another one is given. The cache is
+ * bounded by the total {@link Weigher weight} of its entries; without a weigher every entry weighs 1 and the bound is an entry count.
+ * <p>
+ * Entries may expire after write or access as decided per entry by an {@link Expiry}. Expiration times are kept in a {@link TimerWheel}
+ * which the writes and the maintenance task advance, an expired entry is dropped without being spilled. A hit on an entry whose time
+ * has passed is a miss even before the wheel removes it. A spilled entry takes the remaining lifetime with it to the disk tier.
+ * <p>
+ * Victims are spilled while the cache lock is held. Wrap the disk tier in a
+ * {@link parag.LRUCache.diskBacked.WriteBehindDiskCache} to have the file writes done in the background instead.
+ * <p>
+ * Hits, misses, evictions and the time spent spilling are recorded by a {@link StatsCounter} if one is given, see {@link #stats()}.
+ * <p>
+ * Entries leaving memory, whether evicted, spilled, expired or invalidated, and entries promoted back from disk are published to a
+ * {@link RemovalDispatcher} if one is given, which hands them to its listener in batches on its own thread. They are published once the
+ * lock is released.
+ */
+public class LinkedLRUCache<K, V> implements Cache<K, V> {
+
+    private static final int PREWARM_BATCH_SIZE = 64;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final long maximumWeight;
+    private final Weigher<K, V> weigher;
+    private long weightedSize;
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+    private final EvictionPolicy<K, V> policy;
+    private final DiskBackend<K, V> diskCache;
+
+    private final ReadBuffer<K, V> readBuffer = new ReadBuffer<>();
+    private final Executor maintenanceExecutor;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Consumer<Node<K, V>> onAccess = this::onAccess;
+    private final Runnable drainTask = this::tryToDrainBuffers;
+
+    private final Expiry<K, V> expiry;
+    private final Ticker ticker;
+    private final TimerWheel<K, V> timerWheel;
+    private final Consumer<Node<K, V>> onExpired = this::onExpired;
+
+    private final StatsCounter statsCounter;
+    // Copied from the counter so the disabled one costs no clock reads
+    private final boolean recordStats;
+    private final RemovalDispatcher<K, V> removalDispatcher;
+    // Collected under the lock and published once it is released
+    private final ConcurrentLinkedQueue<RemovalNotification<K, V>> removals = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructor. Recorded hits are drained by the reader which fills up a buffer
+     * 
+     * @param maxSize maximum number of entries kept in memory
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     */
+    public LinkedLRUCache(int maxSize, DiskBackend<K, V> diskCache) {
+        this(maxSize, diskCache, new LruPolicy<K, V>(), Runnable::run);
+    }
+
+    /**
+     * Constructor. Recorded hits are drained by the reader which fills up a buffer
+     * 
+     * @param maxSize maximum number of entries kept in memory
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param policy decides which entry is evicted, must not be shared with another cache
+     */
+    public LinkedLRUCache(int maxSize, DiskBackend<K, V> diskCache, EvictionPolicy<K, V> policy) {
+        this(maxSize, diskCache, policy, Runnable::run);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize maximum number of entries kept in memory
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param maintenanceExecutor executor running the task which drains recorded hits into the access order
+     */
+    public LinkedLRUCache(int maxSize, DiskBackend<K, V> diskCache, Executor maintenanceExecutor) {
+        this(maxSize, diskCache, new LruPolicy<K, V>(), maintenanceExecutor);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize maximum number of entries kept in memory
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param policy decides which entry is evicted, must not be shared with another cache
+     * @param maintenanceExecutor executor running the task which drains recorded hits into the access order
+     */
+    public LinkedLRUCache(int maxSize, DiskBackend<K, V> diskCache, EvictionPolicy<K, V> policy, Executor maintenanceExecutor) {
+        this(maxSize, Weigher.<K, V>singleton(), diskCache, policy, maintenanceExecutor);
+    }
+
+    /**
+     * Constructor. Recorded hits are drained by the reader which fills up a buffer
+     * 
+     * @param maxSize maximum number of entries kept in memory
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param expiry lifetime of the entries, e.g. {@link Expiry#afterWrite(long, TimeUnit)}
+     */
+    public LinkedLRUCache(int maxSize, DiskBackend<K, V> diskCache, Expiry<K, V> expiry) {
+        this(maxSize, Weigher.<K, V>singleton(), diskCache, new LruPolicy<K, V>(), Runnable::run, expiry, Ticker.system());
+    }
+
+    /**
+     * Constructor. Evicts least recently used entries, recorded hits are drained by the reader which fills up a buffer
+     * 
+     * @param maximumWeight maximum total weight of the entries kept in memory
+     * @param weigher calculates the weight of an entry
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     */
+    public LinkedLRUCache(long maximumWeight, Weigher<K, V> weigher, DiskBackend<K, V> diskCache) {
+        this(maximumWeight, weigher, diskCache, new LruPolicy<K, V>(), Runnable::run);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maximumWeight maximum total weight of the entries kept in memory
+     * @param weigher calculates the weight of an entry
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param policy decides which entry is evicted, must not be shared with another cache
+     * @param maintenanceExecutor executor running the task which drains recorded hits into the access order
+     */
+    public LinkedLRUCache(long maximumWeight, Weigher<K, V> weigher, DiskBackend<K, V> diskCache, EvictionPolicy<K, V> policy,
+            Executor maintenanceExecutor) {
+        this(maximumWeight, weigher, diskCache, policy, maintenanceExecutor, null, Ticker.system());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maximumWeight maximum total weight of the entries kept in memory
+     * @param weigher calculates the weight of an entry
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param policy decides which entry is evicted, must not be shared with another cache
+     * @param maintenanceExecutor executor running the task which drains recorded hits into the access order
+     * @param expiry lifetime of the entries, null if entries do not expire
+     * @param ticker time source of the expiration
+     */
+    public LinkedLRUCache(long maximumWeight, Weigher<K, V> weigher, DiskBackend<K, V> diskCache, EvictionPolicy<K, V> policy,
+            Executor maintenanceExecutor, Expiry<K, V> expiry, Ticker ticker) {
+        this(maximumWeight, weigher, diskCache, policy, maintenanceExecutor, expiry, ticker, StatsCounter.disabled());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maximumWeight maximum total weight of the entries kept in memory
+     * @param weigher calculates the weight of an entry
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param policy decides which entry is evicted, must not be shared with another cache
+     * @param maintenanceExecutor executor running the task which drains recorded hits into the access order
+     * @param expiry lifetime of the entries, null if entries do not expire
+     * @param ticker time source of the expiration
+     * @param statsCounter records the statistics, {@link StatsCounter#disabled()} to record nothing
+     */
+    public LinkedLRUCache(long maximumWeight, Weigher<K, V> weigher, DiskBackend<K, V> diskCache, EvictionPolicy<K, V> policy,
+            Executor maintenanceExecutor, Expiry<K, V> expiry, Ticker ticker, StatsCounter statsCounter) {
+        this(maximumWeight, weigher, diskCache, policy, maintenanceExecutor, expiry, ticker, statsCounter, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maximumWeight maximum total weight of the entries kept in memory
+     * @param weigher calculates the weight of an entry
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param policy decides which entry is evicted, must not be shared with another cache
+     * @param maintenanceExecutor executor running the task which drains recorded hits into the access order
+     * @param expiry lifetime of the entries, null if entries do not expire
+     * @param ticker time source of the expiration
+     * @param statsCounter records the statistics, {@link StatsCounter#disabled()} to record nothing
+     * @param removalDispatcher delivers the removed, spilled and promoted entries to a listener, null to publish nothing
+     */
+    public LinkedLRUCache(long maximumWeight, Weigher<K, V> weigher, DiskBackend<K, V> diskCache, EvictionPolicy<K, V> policy,
+            Executor maintenanceExecutor, Expiry<K, V> expiry, Ticker ticker, StatsCounter statsCounter,
+            RemovalDispatcher<K, V> removalDispatcher) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive");
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.map = new ConcurrentHashMap<>();
+        this.diskCache = diskCache;
+        this.policy = policy;
+        this.maintenanceExecutor = maintenanceExecutor;
+        this.expiry = expiry;
+        this.ticker = ticker;
+        this.timerWheel = expiry == null ? null : new TimerWheel<K, V>(ticker.read());
+        this.statsCounter = statsCounter;
+        this.recordStats = statsCounter.isEnabled();
+        this.removalDispatcher = removalDispatcher;
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#get(java.lang.Object)
+     */
+    @Override
+    public V get(final K key) throws RetrievalException {
+        if (key == null) {
+            return null;
+        }
+        Node<K, V> node = map.get(key);
+        if (node != null) {
+            return read(node);
+        }
+        if (diskCache == null) {
+            statsCounter.recordMisses(1);
+            return null;
+        }
+        lock.lock();
+        try {
+            // Another thread may have promoted the key while we were waiting for the lock
+            node = map.get(key);
+            if (node != null) {
+                return read(node);
+            }
+            statsCounter.recordMisses(1);
+            // If key not found in memory then check on disk. Return null if not present
+            V diskValue = diskCache.get(key);
+            if (diskValue != null) {
+                drainBuffers();
+                if (!promote(key, diskValue)) {
+                    statsCounter.recordDiskMisses(1);
+                    return null;
+                }
+                statsCounter.recordDiskHits(1);
+            } else {
+                statsCounter.recordDiskMisses(1);
+            }
+            return diskValue;
+        } catch (DeserializationException | SerializationException e) {
+            throw new RetrievalException("Error while GET operation", e);
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Moves a value the caller read from disk without holding the lock into memory. A value found in memory, or a newer one the disk tier
+     * of this cache returns, e.g. one spilled while the caller was reading, wins over diskValue. Otherwise diskValue is only promoted if
+     * current still holds, checked under the lock, so a value written to disk since the caller read it is not replaced by the stale one.
+     * Used by {@link AsyncCache}, whose disk tier answers from memory
+     * 
+     * @param key
+     * @param diskValue
+     * @param current true if diskValue is still the latest value on disk
+     * @return value now cached, null if the entry has expired or diskValue is no longer current
+     * @throws RetrievalException
+     */
+    V promoteRead(K key, V diskValue, BooleanSupplier current) throws RetrievalException {
+        lock.lock();
+        try {
+            Node<K, V> node = map.get(key);
+            if (node != null) {
+                return read(node);
+            }
+            drainBuffers();
+            V newer = diskCache.get(key);
+            if (newer == null && !current.getAsBoolean()) {
+                return null;
+            }
+            V value = newer != null ? newer : diskValue;
+            if (!promote(key, value)) {
+                statsCounter.recordDiskMisses(1);
+                return null;
+            }
+            statsCounter.recordDiskHits(1);
+            return value;
+        } catch (DeserializationException | SerializationException e) {
+            throw new RetrievalException("Error while GET operation", e);
+        } finally {
+            unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(final K key, final V value) throws StoreException {
+        if (key == null) {
+            return;
+        }
+        int weight = weigher.weigh(key, value);
+        lock.lock();
+        try {
+            drainBuffers();
+            store(key, value, weight);
+        } catch (SerializationException e) {
+            throw new StoreException("Error while PUT operation", e);
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Returns the values of all the keys. Hits take no lock, the misses are resolved under one acquisition of the lock and read from
+     * disk in one batch
+     * 
+     * @param keys
+     * @return mapping of every key found to its value
+     * @throws RetrievalException
+     */
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) throws RetrievalException {
+        Map<K, V> result = new HashMap<>();
+        List<K> misses = new ArrayList<>();
+        for (K key : keys) {
+            if (key == null) {
+                continue;
+            }
+            Node<K, V> node = map.get(key);
+            if (node != null) {
+                V value = read(node);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            } else {
+                misses.add(key);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+        if (diskCache == null) {
+            statsCounter.recordMisses(misses.size());
+            return result;
+        }
+        lock.lock();
+        try {
+            List<K> diskKeys = new ArrayList<>(misses.size());
+            for (K key : misses) {
+                // Another thread may have promoted the key while we were waiting for the lock
+                Node<K, V> node = map.get(key);
+                if (node != null) {
+                    V value = read(node);
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                } else {
+                    diskKeys.add(key);
+                }
+            }
+            if (diskKeys.isEmpty()) {
+                return result;
+            }
+            statsCounter.recordMisses(diskKeys.size());
+            Map<K, V> diskValues = diskCache.getAll(diskKeys);
+            drainBuffers();
+            int diskHits = 0;
+            for (Map.Entry<K, V> entry : diskValues.entrySet()) {
+                if (promote(entry.getKey(), entry.getValue())) {
+                    result.put(entry.getKey(), entry.getValue());
+                    diskHits++;
+                }
+            }
+            statsCounter.recordDiskHits(diskHits);
+            statsCounter.recordDiskMisses(diskKeys.size() - diskHits);
+            return result;
+        } catch (DeserializationException | SerializationException e) {
+            throw new RetrievalException("Error while GET operation", e);
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Stores all the mappings under one acquisition of the lock
+     * 
+     * @param entries
+     * @throws StoreException
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> entries) throws StoreException {
+        lock.lock();
+        try {
+            drainBuffers();
+            for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                K key = entry.getKey();
+                if (key != null) {
+                    store(key, entry.getValue(), weigher.weigh(key, entry.getValue()));
+                }
+            }
+        } catch (SerializationException e) {
+            throw new StoreException("Error while PUT operation", e);
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Removes key from memory without backing it up, its copy on disk is left alone
+     * 
+     * @param key
+     */
+    public void invalidate(K key) {
+        if (key == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            drainBuffers();
+            Node<K, V> node = map.get(key);
+            if (node != null) {
+                remove(node);
+                publish(node, RemovalCause.EXPLICIT);
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Returns number of entries held in memory
+     * 
+     * @return
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * Returns total weight of the entries held in memory
+     * 
+     * @return
+     */
+    public long weightedSize() {
+        lock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Returns the statistics recorded so far, empty unless a stats counter was given
+     * 
+     * @return
+     */
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Evicts every entry to the disk tier, coldest first, e.g. before a shutdown so the next process can warm up from a durable disk
+     * tier. A memory only cache is just emptied
+     * 
+     * @throws StoreException
+     */
+    public void spillAll() throws StoreException {
+        lock.lock();
+        try {
+            drainBuffers();
+            while (removeLRUEntry()) {
+                // Keep evicting
+            }
+        } catch (SerializationException e) {
+            throw new StoreException("Error while spilling to disk", e);
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Promotes the entries spilled last back into memory, e.g. right after a restart on a durable disk tier. After {@link #spillAll()},
+     * which spills the coldest entries first, these are the entries which were hottest before the shutdown. Runs in the executor: the
+     * candidates are read from the most recently spilled on and weighed until they fill the maximum weight, then promoted the other way
+     * round so the most recently spilled end up most recently used. Each promoted entry is therefore read from disk twice
+     * 
+     * @param count maximum number of entries to promote
+     * @param executor
+     * @return future completed with the number of entries found
+     */
+    public CompletableFuture<Integer> prewarm(int count, Executor executor) {
+        if (diskCache == null) {
+            return CompletableFuture.completedFuture(0);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                List<K> candidates = fittingPrefix(diskCache, weigher, maximumWeight, diskCache.recentlySpilledKeys(count));
+                int found = 0;
+                for (int end = candidates.size(); end > 0; end -= PREWARM_BATCH_SIZE) {
+                    found += getAll(candidates.subList(Math.max(0, end - PREWARM_BATCH_SIZE), end)).size();
+                }
+                return found;
+            } catch (DeserializationException | RetrievalException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Returns the longest prefix of keys whose values on disk weigh at most maximumWeight together, keys missing on disk weigh nothing.
+     * Reads the values in batches and stops at the first one which does not fit
+     * 
+     * @param diskCache
+     * @param weigher
+     * @param maximumWeight
+     * @param keys
+     * @return
+     * @throws DeserializationException
+     */
+    static <K, V> List<K> fittingPrefix(DiskBackend<K, V> diskCache, Weigher<K, V> weigher, long maximumWeight, List<K> keys)
+            throws DeserializationException {
+        long weight = 0;
+        for (int start = 0; start < keys.size(); start += PREWARM_BATCH_SIZE) {
+            List<K> batch = keys.subList(start, Math.min(keys.size(), start + PREWARM_BATCH_SIZE));
+            Map<K, V> values = diskCache.getAll(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                V value = values.get(batch.get(i));
+                if (value != null) {
+                    weight += weigher.weigh(batch.get(i), value);
+                    if (weight > maximumWeight) {
+                        return keys.subList(0, start + i);
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Applies all recorded hits to the access order and removes the expired entries right away
+     */
+    public void cleanUp() {
+        lock.lock();
+        try {
+            drainBuffers();
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Returns value of a node found in the map, null if it has expired. Extends the lifetime of the entry if its expiry asks for it
+     * 
+     * @param node
+     * @return
+     */
+    private V read(Node<K, V> node) {
+        V value = node.getValue();
+        if (expiry != null) {
+            long now = ticker.read();
+            long remaining = node.getExpiresAt() - now;
+            if (remaining <= 0) {
+                // Let the maintenance task remove it
+                scheduleDrain();
+                statsCounter.recordMisses(1);
+                return null;
+            }
+            node.setExpiresAt(now + lifetime(expiry.expireAfterRead(node.getKey(), value, remaining)));
+        }
+        afterRead(node);
+        statsCounter.recordHits(1);
+        return value;
+    }
+
+    /**
+     * Records the hit and schedules the maintenance task once the buffer of the calling thread is full
+     * 
+     * @param node
+     */
+    private void afterRead(Node<K, V> node) {
+        if (readBuffer.offer(node) == ReadBuffer.FULL) {
+            scheduleDrain();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                maintenanceExecutor.execute(drainTask);
+            } catch (RejectedExecutionException e) {
+                drainScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Maintenance task. Never waits for the lock, if a writer holds the lock it drains the buffers itself
+     */
+    private void tryToDrainBuffers() {
+        if (lock.tryLock()) {
+            try {
+                drainBuffers();
+            } finally {
+                unlock();
+            }
+        }
+        drainScheduled.set(false);
+    }
+
+    /**
+     * Applies the recorded hits and removes the entries whose time has passed. Caller must hold the lock
+     */
+    private void drainBuffers() {
+        readBuffer.drainTo(onAccess);
+        if (timerWheel != null) {
+            timerWheel.advance(ticker.read(), onExpired);
+        }
+    }
+
+    private void onAccess(Node<K, V> node) {
+        // Node may have been evicted after the hit was recorded
+        if (!node.isRetired()) {
+            policy.onAccess(node);
+            if (timerWheel != null) {
+                timerWheel.reschedule(node);
+            }
+        }
+    }
+
+    private void onExpired(Node<K, V> node) {
+        if (!node.isRetired()) {
+            remove(node);
+            publish(node, RemovalCause.EXPIRED);
+        }
+    }
+
+    /**
+     * Caps a duration returned by the expiry so adding it to a ticker reading cannot overflow
+     * 
+     * @param duration
+     * @return
+     */
+    private static long lifetime(long duration) {
+        return Math.max(0, Math.min(duration, Expiry.NEVER));
+    }
+
+    /**
+     * Converts the remaining lifetime of an entry to the wall clock time the disk tier works with
+     * 
+     * @param remaining
+     * @return
+     */
+    private static long toExpirationMillis(long remaining) {
+        // Anything beyond half of NEVER was meant to never expire
+        if (remaining > Expiry.NEVER >> 1) {
+            return DiskBackend.NO_EXPIRATION;
+        }
+        return System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(remaining);
+    }
+
+    /**
+     * Inserts or replaces the entry. Caller must hold the lock and have drained the buffers
+     * 
+     * @param key
+     * @param value
+     * @param weight
+     * @throws SerializationException
+     */
+    private void store(K key, V value, int weight) throws SerializationException {
+        Node<K, V> node = map.get(key);
+        long now = 0;
+        long duration = 0;
+        if (expiry != null) {
+            now = ticker.read();
+            // An expired entry which the wheel has not removed yet is replaced like a missing one
+            long remaining = node == null ? 0 : node.getExpiresAt() - now;
+            duration = lifetime(remaining > 0 ? expiry.expireAfterUpdate(key, value, remaining) : expiry.expireAfterCreate(key, value));
+        }
+        if (weight > maximumWeight) {
+            // Rejected by the memory tier, goes straight to disk if there is one
+            if (node != null) {
+                remove(node);
+            }
+            RemovalCause cause = RemovalCause.SIZE;
+            if (diskCache != null) {
+                if (expiry == null) {
+                    diskCache.put(key, value);
+                    cause = RemovalCause.SPILLED;
+                } else if (duration > 0) {
+                    diskCache.put(key, value, toExpirationMillis(duration));
+                    cause = RemovalCause.SPILLED;
+                }
+            }
+            publish(key, value, cause);
+        } else if (node != null) {
+            int oldWeight = node.getWeight();
+            node.setValue(value);
+            node.setWeight(weight);
+            weightedSize += weight - oldWeight;
+            policy.onUpdate(node, oldWeight);
+            if (timerWheel != null) {
+                node.setExpiresAt(now + duration);
+                timerWheel.reschedule(node);
+            }
+            evictIfNeeded();
+        } else {
+            insert(key, value, weight, now + duration);
+        }
+    }
+
+    /**
+     * Moves an entry read from disk back into memory with the lifetime it had left on disk. An entry heavier than the whole memory
+     * budget stays on disk. Caller must hold the lock and have drained the buffers
+     * 
+     * @param key
+     * @param diskValue
+     * @return false if the entry expired on disk
+     * @throws SerializationException
+     */
+    private boolean promote(K key, V diskValue) throws SerializationException {
+        long now = 0;
+        long duration = 0;
+        if (expiry != null) {
+            now = ticker.read();
+            long expiresAtMillis = diskCache.expirationOf(key);
+            duration = expiresAtMillis == DiskBackend.NO_EXPIRATION ? lifetime(expiry.expireAfterCreate(key, diskValue))
+                    : TimeUnit.MILLISECONDS.toNanos(expiresAtMillis - System.currentTimeMillis());
+            if (duration <= 0) {
+                diskCache.remove(key);
+                publish(key, diskValue, RemovalCause.EXPIRED);
+                return false;
+            }
+            duration = lifetime(expiry.expireAfterRead(key, diskValue, duration));
+        }
+        int weight = weigher.weigh(key, diskValue);
+        if (weight <= maximumWeight) {
+            diskCache.remove(key);
+            publish(key, diskValue, RemovalCause.PROMOTED);
+            insert(key, diskValue, weight, now + duration);
+        }
+        return true;
+    }
+
+    /**
+     * Adds a new entry to the eviction policy and evicts entries chosen by the policy if weight goes beyond the maximum. Caller must
+     * hold the lock
+     * 
+     * @param key
+     * @param value
+     * @param weight
+     * @param expiresAt ticker time the entry expires at, ignored without an expiry
+     * @throws SerializationException
+     */
+    private void insert(K key, V value, int weight, long expiresAt) throws SerializationException {
+        Node<K, V> node = new Node<>(key, value);
+        node.setWeight(weight);
+        map.put(key, node);
+        weightedSize += weight;
+        policy.onInsert(node);
+        if (timerWheel != null) {
+            node.setExpiresAt(expiresAt);
+            timerWheel.schedule(node);
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * While loop to truncate the weight of the map i.e evict entries until the total weight fits. Caller must hold the lock
+     * 
+     * @throws SerializationException
+     */
+    private void evictIfNeeded() throws SerializationException {
+        while (weightedSize > maximumWeight) {
+            if (!removeLRUEntry()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Removes node from memory without backing it up. Caller must hold the lock
+     * 
+     * @param node
+     */
+    private void remove(Node<K, V> node) {
+        policy.onRemove(node);
+        if (timerWheel != null) {
+            timerWheel.deschedule(node);
+        }
+        node.retire();
+        weightedSize -= node.getWeight();
+        map.remove(node.getKey());
+    }
+
+    /**
+     * Remove entry chosen by the eviction policy from Map And Back it up on disk
+     * 
+     * @return false if there was nothing to evict
+     * @throws SerializationException
+     */
+    private boolean removeLRUEntry() throws SerializationException {
+        Node<K, V> victim = policy.victim();
+        if (null == victim) {
+            return false;
+        }
+        RemovalCause cause = RemovalCause.SIZE;
+        // Adding entry to disk first and then removing from memory. A failed disk write leaves the entry and the policy untouched
+        if (diskCache != null && null != victim.getValue()) {
+            long start = recordStats ? System.nanoTime() : 0;
+            // Only an entry which has expired is not spilled
+            cause = spill(victim) ? RemovalCause.SPILLED : RemovalCause.EXPIRED;
+            if (cause == RemovalCause.SPILLED && recordStats) {
+                statsCounter.recordSpill(System.nanoTime() - start);
+            }
+        }
+        policy.onEvict(victim);
+        victim.retire();
+        weightedSize -= victim.getWeight();
+        if (timerWheel != null) {
+            timerWheel.deschedule(victim);
+        }
+        statsCounter.recordEviction(victim.getWeight());
+        map.remove(victim.getKey());
+        publish(victim, cause);
+        return true;
+    }
+
+    private void publish(Node<K, V> node, RemovalCause cause) {
+        publish(node.getKey(), node.getValue(), cause);
+    }
+
+    private void publish(K key, V value, RemovalCause cause) {
+        if (removalDispatcher != null) {
+            removals.add(new RemovalNotification<>(key, value, cause));
+        }
+    }
+
+    /**
+     * Releases the lock, then hands the notifications collected while it was held to the dispatcher. A full dispatcher queue therefore
+     * only blocks the calling thread, never the other users of the cache
+     */
+    private void unlock() {
+        lock.unlock();
+        if (removalDispatcher != null && !lock.isHeldByCurrentThread()) {
+            RemovalNotification<K, V> removal;
+            while ((removal = removals.poll()) != null) {
+                removalDispatcher.publish(removal);
+            }
+        }
+    }
+
+    /**
+     * Backs up an evicted entry on disk with the lifetime it has left. An entry which has already expired is dropped
+     * 
+     * @param victim
+     * @return false if the entry was dropped
+     * @throws SerializationException
+     */
+    private boolean spill(Node<K, V> victim) throws SerializationException {
+        if (timerWheel == null) {
+            diskCache.put(victim.getKey(), victim.getValue());
+            return true;
+        }
+        long remaining = victim.getExpiresAt() - ticker.read();
+        if (remaining > 0) {
+            diskCache.put(victim.getKey(), victim.getValue(), toExpirationMillis(remaining));
+            return true;
+        }
+        return false;
+    }
+
+}
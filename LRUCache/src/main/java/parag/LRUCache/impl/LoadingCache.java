@@ -0,0 +1,322 @@
+package parag.LRUCache.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+import parag.LRUCache.Cache;
+import parag.LRUCache.CacheLoader;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.stats.CacheStats;
+import parag.LRUCache.stats.StatsCounter;
+
+/**
+ * Cache decorator which loads a missing value instead of returning null.
+ * <p>
+ * Concurrent misses on one key are coalesced: the first caller registers an in-flight load and every other caller waits for the same
+ * result instead of computing the value again, so a popular key falling out of the cache causes one load rather than a stampede. The
+ * loaded value is put into the wrapped cache before the in-flight load is unregistered, so a later caller finds it there. A failed load
+ * is not cached, the next miss retries it.
+ * <p>
+ * A put through this cache unregisters the load in flight for its key, and a load only puts its value while it is still registered, so
+ * a value put during a load is never overwritten by the loaded one. Callers waiting on such a load get the value put instead. Puts made
+ * to the wrapped cache directly are not seen.
+ * <p>
+ * The time spent in the loader is recorded by a {@link StatsCounter} if one is given. Pass the counter of the wrapped cache to see loads
+ * next to its hits and misses.
+ */
+public class LoadingCache<K, V> implements Cache<K, V> {
+
+    private static final int STRIPES = 64;
+
+    private final Cache<K, V> cache;
+    private final CacheLoader<K, V> loader;
+    private final Executor executor;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+    private final StatsCounter statsCounter;
+    // Orders a put against the end of a load of the same key
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    /**
+     * Constructor. Asynchronous loads run in the common fork join pool
+     * 
+     * @param cache cache holding the loaded values
+     * @param loader default loader, used when a get does not name one
+     */
+    public LoadingCache(Cache<K, V> cache, CacheLoader<K, V> loader) {
+        this(cache, loader, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param cache cache holding the loaded values
+     * @param loader default loader, used when a get does not name one
+     * @param executor runs the loads started by {@link #getAsync(Object)}
+     */
+    public LoadingCache(Cache<K, V> cache, CacheLoader<K, V> loader, Executor executor) {
+        this(cache, loader, executor, StatsCounter.disabled());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param cache cache holding the loaded values
+     * @param loader default loader, used when a get does not name one
+     * @param executor runs the loads started by {@link #getAsync(Object)}
+     * @param statsCounter records the loads, {@link StatsCounter#disabled()} to record nothing
+     */
+    public LoadingCache(Cache<K, V> cache, CacheLoader<K, V> loader, Executor executor, StatsCounter statsCounter) {
+        this.cache = cache;
+        this.loader = loader;
+        this.executor = executor;
+        this.statsCounter = statsCounter;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the cached value, loading it with the default loader on a miss
+     * 
+     * @param key
+     * @return
+     * @throws RetrievalException
+     */
+    @Override
+    public V get(K key) throws RetrievalException {
+        return get(key, loader);
+    }
+
+    /**
+     * Returns the cached value, loading it on a miss. The load runs in the calling thread unless one is already in flight for key
+     * 
+     * @param key
+     * @param loader
+     * @return
+     * @throws RetrievalException
+     */
+    public V get(K key, CacheLoader<K, V> loader) throws RetrievalException {
+        if (key == null) {
+            return null;
+        }
+        V value = cache.get(key);
+        if (value != null) {
+            return value;
+        }
+        try {
+            return load(key, loader, Runnable::run).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RetrievalException) {
+                throw (RetrievalException) cause;
+            }
+            throw new RetrievalException("Error while loading", cause);
+        }
+    }
+
+    /**
+     * Returns the cached value, loading it with the default loader on a miss
+     * 
+     * @param key
+     * @return
+     */
+    public CompletableFuture<V> getAsync(K key) {
+        return getAsync(key, loader);
+    }
+
+    /**
+     * Returns the cached value, loading it on a miss. The cache is looked up in the calling thread, the load runs in the executor
+     * 
+     * @param key
+     * @param loader
+     * @return future completed with the value, or exceptionally with the failure of the lookup or the load
+     */
+    public CompletableFuture<V> getAsync(K key, CacheLoader<K, V> loader) {
+        if (key == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            V value = cache.get(key);
+            if (value != null) {
+                return CompletableFuture.completedFuture(value);
+            }
+        } catch (RetrievalException e) {
+            CompletableFuture<V> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return load(key, loader, executor);
+    }
+
+    /**
+     * Returns the cached values, loading the missing ones with the default loader
+     * 
+     * @param keys
+     * @return
+     * @throws RetrievalException
+     */
+    @Override
+    public Map<K, V> getAll(Collection<? extends K> keys) throws RetrievalException {
+        Map<K, V> result = cache.getAll(keys);
+        List<K> misses = new ArrayList<>();
+        for (K key : keys) {
+            if (key != null && !result.containsKey(key)) {
+                misses.add(key);
+            }
+        }
+        for (K key : misses) {
+            V value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(K key, V value) throws StoreException {
+        if (key != null) {
+            supersede(key);
+        }
+        cache.put(key, value);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#putAll(java.util.Map)
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> entries) throws StoreException {
+        for (K key : entries.keySet()) {
+            if (key != null) {
+                supersede(key);
+            }
+        }
+        cache.putAll(entries);
+    }
+
+    /**
+     * Returns the statistics recorded so far, empty unless a stats counter was given
+     * 
+     * @return
+     */
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Returns number of loads in flight
+     * 
+     * @return
+     */
+    public int loadCount() {
+        return loads.size();
+    }
+
+    /**
+     * Joins the load in flight for key or starts a new one in the executor
+     * 
+     * @param key
+     * @param loader
+     * @param executor
+     * @return
+     */
+    private CompletableFuture<V> load(K key, CacheLoader<K, V> loader, Executor executor) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loads.putIfAbsent(key, future);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        try {
+            executor.execute(() -> {
+                V value;
+                try {
+                    // A load which finished between our miss and the registration has already put the value
+                    value = cache.get(key);
+                    if (value == null) {
+                        value = loadAndRecord(key, loader);
+                        if (value != null) {
+                            value = store(key, value, future);
+                        }
+                    }
+                } catch (Throwable e) {
+                    loads.remove(key, future);
+                    future.completeExceptionally(e);
+                    return;
+                }
+                // Unregistered before completion so a caller woken by a failure can start a fresh load
+                loads.remove(key, future);
+                future.complete(value);
+            });
+        } catch (RuntimeException e) {
+            loads.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Puts a loaded value unless the load was superseded by a put meanwhile
+     * 
+     * @return the value to complete the load with, the one put meanwhile if there was one
+     */
+    private V store(K key, V value, CompletableFuture<V> future) throws StoreException, RetrievalException {
+        ReentrantLock stripe = stripes[stripeIndex(key)];
+        stripe.lock();
+        try {
+            if (loads.get(key) == future) {
+                cache.put(key, value);
+                return value;
+            }
+        } finally {
+            stripe.unlock();
+        }
+        V newer = cache.get(key);
+        return newer != null ? newer : value;
+    }
+
+    /**
+     * Unregisters the load in flight for key, if any, so it does not put its value over the one about to be put
+     */
+    private void supersede(K key) {
+        ReentrantLock stripe = stripes[stripeIndex(key)];
+        stripe.lock();
+        try {
+            loads.remove(key);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private static int stripeIndex(Object key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return hash >>> 26;
+    }
+
+    private V loadAndRecord(K key, CacheLoader<K, V> loader) throws Exception {
+        if (!statsCounter.isEnabled()) {
+            return loader.load(key);
+        }
+        long start = System.nanoTime();
+        try {
+            V value = loader.load(key);
+            statsCounter.recordLoadSuccess(System.nanoTime() - start);
+            return value;
+        } catch (Exception | Error e) {
+            statsCounter.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,385 @@
+package parag.LRUCache.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.LongFunction;
+
+import parag.LRUCache.Cache;
+import parag.LRUCache.Expiry;
+import parag.LRUCache.Ticker;
+import parag.LRUCache.Weigher;
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.listener.RemovalDispatcher;
+import parag.LRUCache.policy.EvictionPolicy;
+import parag.LRUCache.policy.LruPolicy;
+import parag.LRUCache.stats.CacheStats;
+import parag.LRUCache.stats.StatsCounter;
+
+/**
+ * Thread Safe Disk Backed LRU Cache split into independently locked segments.
+ * <p>
+ * Each key is routed by its hash to one {@link LinkedLRUCache} segment which has its own lock, its own access order and an equal share of
+ * the capacity. Writers on different segments never contend, at the cost of the LRU order being maintained per segment rather than
+ * globally. All segments spill to the same {@link DiskBackend}, a key always maps to the same segment so its disk record is only ever
+ * touched under one segment lock.
+ * <p>
+ * The bound is enforced per segment: an entry heavier than the share of its segment, {@link #maximumEntryWeight()}, is never kept in
+ * memory and goes straight to the disk tier, or is dropped without one, even though it would fit the total. The segment count is limited
+ * so that every share holds at least the maximum entry weight given to the constructor, one by default.
+ * <p>
+ * All segments record into the same {@link StatsCounter}, {@link #stats()} covers the whole cache, and publish to the same
+ * {@link RemovalDispatcher}.
+ */
+public class SegmentedLRUCache<K, V> implements Cache<K, V> {
+
+    private static final int PREWARM_BATCH_SIZE = 64;
+
+    private final LinkedLRUCache<K, V>[] segments;
+    private final int segmentShift;
+    private final DiskBackend<K, V> diskCache;
+    private final long maximumWeight;
+    private final Weigher<K, V> weigher;
+    private final long maximumEntryWeight;
+    private final StatsCounter statsCounter;
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize maximum number of entries kept in memory across all segments
+     * @param concurrencyLevel expected number of concurrently writing threads, rounded up to a power of two segments
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     */
+    public SegmentedLRUCache(int maxSize, int concurrencyLevel, DiskBackend<K, V> diskCache) {
+        this(maxSize, concurrencyLevel, diskCache, segmentSize -> new LruPolicy<K, V>());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize maximum number of entries kept in memory across all segments
+     * @param concurrencyLevel expected number of concurrently writing threads, rounded up to a power of two segments
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param policyFactory creates the eviction policy of each segment from the segment's capacity, e.g. {@code SlruPolicy::new}
+     */
+    public SegmentedLRUCache(int maxSize, int concurrencyLevel, DiskBackend<K, V> diskCache,
+            LongFunction<EvictionPolicy<K, V>> policyFactory) {
+        this(maxSize, Weigher.<K, V>singleton(), concurrencyLevel, diskCache, policyFactory);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maximumWeight maximum total weight of the entries kept in memory across all segments
+     * @param weigher calculates the weight of an entry
+     * @param concurrencyLevel expected number of concurrently writing threads, rounded up to a power of two segments
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param policyFactory creates the eviction policy of each segment from the segment's capacity, e.g. {@code SlruPolicy::new}
+     */
+    public SegmentedLRUCache(long maximumWeight, Weigher<K, V> weigher, int concurrencyLevel, DiskBackend<K, V> diskCache,
+            LongFunction<EvictionPolicy<K, V>> policyFactory) {
+        this(maximumWeight, weigher, concurrencyLevel, diskCache, policyFactory, null, Ticker.system());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maximumWeight maximum total weight of the entries kept in memory across all segments
+     * @param weigher calculates the weight of an entry
+     * @param concurrencyLevel expected number of concurrently writing threads, rounded up to a power of two segments
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param policyFactory creates the eviction policy of each segment from the segment's capacity, e.g. {@code SlruPolicy::new}
+     * @param expiry lifetime of the entries, null if entries do not expire
+     * @param ticker time source of the expiration
+     */
+    public SegmentedLRUCache(long maximumWeight, Weigher<K, V> weigher, int concurrencyLevel, DiskBackend<K, V> diskCache,
+            LongFunction<EvictionPolicy<K, V>> policyFactory, Expiry<K, V> expiry, Ticker ticker) {
+        this(maximumWeight, weigher, concurrencyLevel, diskCache, policyFactory, expiry, ticker, StatsCounter.disabled());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maximumWeight maximum total weight of the entries kept in memory across all segments
+     * @param weigher calculates the weight of an entry
+     * @param concurrencyLevel expected number of concurrently writing threads, rounded up to a power of two segments
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param policyFactory creates the eviction policy of each segment from the segment's capacity, e.g. {@code SlruPolicy::new}
+     * @param expiry lifetime of the entries, null if entries do not expire
+     * @param ticker time source of the expiration
+     * @param statsCounter records the statistics of all segments, {@link StatsCounter#disabled()} to record nothing
+     */
+    public SegmentedLRUCache(long maximumWeight, Weigher<K, V> weigher, int concurrencyLevel, DiskBackend<K, V> diskCache,
+            LongFunction<EvictionPolicy<K, V>> policyFactory, Expiry<K, V> expiry, Ticker ticker, StatsCounter statsCounter) {
+        this(maximumWeight, weigher, concurrencyLevel, diskCache, policyFactory, expiry, ticker, statsCounter, null);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maximumWeight maximum total weight of the entries kept in memory across all segments
+     * @param weigher calculates the weight of an entry
+     * @param concurrencyLevel expected number of concurrently writing threads, rounded up to a power of two segments
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param policyFactory creates the eviction policy of each segment from the segment's capacity, e.g. {@code SlruPolicy::new}
+     * @param expiry lifetime of the entries, null if entries do not expire
+     * @param ticker time source of the expiration
+     * @param statsCounter records the statistics of all segments, {@link StatsCounter#disabled()} to record nothing
+     * @param removalDispatcher delivers the removed, spilled and promoted entries of all segments to a listener, null to publish nothing
+     */
+    public SegmentedLRUCache(long maximumWeight, Weigher<K, V> weigher, int concurrencyLevel, DiskBackend<K, V> diskCache,
+            LongFunction<EvictionPolicy<K, V>> policyFactory, Expiry<K, V> expiry, Ticker ticker, StatsCounter statsCounter,
+            RemovalDispatcher<K, V> removalDispatcher) {
+        this(maximumWeight, 1, weigher, concurrencyLevel, diskCache, policyFactory, expiry, ticker, statsCounter, removalDispatcher);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maximumWeight maximum total weight of the entries kept in memory across all segments
+     * @param maximumEntryWeight weight of the heaviest entry which must fit in memory, fewer segments are created than the concurrency
+     *            level asks for if their shares would be lighter
+     * @param weigher calculates the weight of an entry
+     * @param concurrencyLevel expected number of concurrently writing threads, rounded up to a power of two segments
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param policyFactory creates the eviction policy of each segment from the segment's capacity, e.g. {@code SlruPolicy::new}
+     * @param expiry lifetime of the entries, null if entries do not expire
+     * @param ticker time source of the expiration
+     * @param statsCounter records the statistics of all segments, {@link StatsCounter#disabled()} to record nothing
+     * @param removalDispatcher delivers the removed, spilled and promoted entries of all segments to a listener, null to publish nothing
+     */
+    @SuppressWarnings("unchecked")
+    public SegmentedLRUCache(long maximumWeight, long maximumEntryWeight, Weigher<K, V> weigher, int concurrencyLevel,
+            DiskBackend<K, V> diskCache, LongFunction<EvictionPolicy<K, V>> policyFactory, Expiry<K, V> expiry, Ticker ticker,
+            StatsCounter statsCounter, RemovalDispatcher<K, V> removalDispatcher) {
+        if (maximumWeight <= 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("maximumWeight and concurrencyLevel must be positive");
+        }
+        if (maximumEntryWeight <= 0 || maximumEntryWeight > maximumWeight) {
+            throw new IllegalArgumentException("maximumEntryWeight must be positive and at most maximumWeight");
+        }
+        int shift = 0;
+        int count = 1;
+        // Every segment needs room for the heaviest entry
+        while (count < concurrencyLevel && maximumWeight / (count << 1) >= maximumEntryWeight) {
+            count <<= 1;
+            shift++;
+        }
+        this.segmentShift = 32 - shift;
+        this.segments = new LinkedLRUCache[count];
+        this.diskCache = diskCache;
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.maximumEntryWeight = maximumWeight / count;
+        this.statsCounter = statsCounter;
+        long share = maximumWeight / count;
+        long remainder = maximumWeight % count;
+        for (int i = 0; i < count; i++) {
+            long segmentWeight = i < remainder ? share + 1 : share;
+            segments[i] = new LinkedLRUCache<>(segmentWeight, weigher, diskCache, policyFactory.apply(segmentWeight), Runnable::run,
+                    expiry, ticker, statsCounter, removalDispatcher);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) throws RetrievalException {
+        if (key == null) {
+            return null;
+        }
+        return segmentFor(key).get(key);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(K key, V value) throws StoreException {
+        if (key == null) {
+            return;
+        }
+        segmentFor(key).put(key, value);
+    }
+
+    /**
+     * Splits the keys by segment and resolves each group with one call to its segment
+     * 
+     * @param keys
+     * @return mapping of every key found to its value
+     * @throws RetrievalException
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<K, V> getAll(Collection<? extends K> keys) throws RetrievalException {
+        List<K>[] groups = new List[segments.length];
+        for (K key : keys) {
+            if (key != null) {
+                int index = segmentIndex(key);
+                if (groups[index] == null) {
+                    groups[index] = new ArrayList<>();
+                }
+                groups[index].add(key);
+            }
+        }
+        Map<K, V> result = new HashMap<>();
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] != null) {
+                result.putAll(segments[i].getAll(groups[i]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits the entries by segment and stores each group with one call to its segment
+     * 
+     * @param entries
+     * @throws StoreException
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void putAll(Map<? extends K, ? extends V> entries) throws StoreException {
+        Map<K, V>[] groups = new Map[segments.length];
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            if (entry.getKey() != null) {
+                int index = segmentIndex(entry.getKey());
+                if (groups[index] == null) {
+                    groups[index] = new HashMap<>();
+                }
+                groups[index].put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] != null) {
+                segments[i].putAll(groups[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns number of entries held in memory by all segments
+     * 
+     * @return
+     */
+    public int size() {
+        int size = 0;
+        for (LinkedLRUCache<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns total weight of the entries held in memory by all segments
+     * 
+     * @return
+     */
+    public long weightedSize() {
+        long weightedSize = 0;
+        for (LinkedLRUCache<K, V> segment : segments) {
+            weightedSize += segment.weightedSize();
+        }
+        return weightedSize;
+    }
+
+    /**
+     * Returns the statistics recorded so far by all segments, empty unless a stats counter was given
+     * 
+     * @return
+     */
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Evicts every entry of every segment to the disk tier, coldest first within a segment
+     * 
+     * @throws StoreException
+     */
+    public void spillAll() throws StoreException {
+        for (LinkedLRUCache<K, V> segment : segments) {
+            segment.spillAll();
+        }
+    }
+
+    /**
+     * Promotes the entries spilled last back into memory, e.g. right after a restart on a durable disk tier. After {@link #spillAll()},
+     * which spills each segment coldest first and the segments one after another, these are the hottest entries of the last segments
+     * spilled. Runs in the executor: the candidates are read from the most recently spilled on and weighed until they fill the maximum
+     * weight of the whole cache, then promoted the other way round so the most recently spilled end up most recently used. Each promoted
+     * entry is therefore read from disk twice
+     * 
+     * @param count maximum number of entries to promote
+     * @param executor
+     * @return future completed with the number of entries found
+     */
+    public CompletableFuture<Integer> prewarm(int count, Executor executor) {
+        if (diskCache == null) {
+            return CompletableFuture.completedFuture(0);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                List<K> candidates = LinkedLRUCache.fittingPrefix(diskCache, weigher, maximumWeight, diskCache.recentlySpilledKeys(count));
+                int found = 0;
+                for (int end = candidates.size(); end > 0; end -= PREWARM_BATCH_SIZE) {
+                    found += getAll(candidates.subList(Math.max(0, end - PREWARM_BATCH_SIZE), end)).size();
+                }
+                return found;
+            } catch (DeserializationException | RetrievalException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Applies all recorded hits of every segment to its access order and removes its expired entries
+     */
+    public void cleanUp() {
+        for (LinkedLRUCache<K, V> segment : segments) {
+            segment.cleanUp();
+        }
+    }
+
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Returns weight of the heaviest entry every segment keeps in memory, the smallest share of the maximum weight. A heavier entry
+     * skips memory
+     * 
+     * @return
+     */
+    public long maximumEntryWeight() {
+        return maximumEntryWeight;
+    }
+
+    /**
+     * Picks segment from the high bits of the spread hash so the choice does not correlate with bucket index in segment's own map
+     * 
+     * @param key
+     * @return
+     */
+    private LinkedLRUCache<K, V> segmentFor(K key) {
+        return segments[segmentIndex(key)];
+    }
+
+    private int segmentIndex(K key) {
+        if (segments.length == 1) {
+            return 0;
+        }
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) >>> segmentShift & (segments.length - 1);
+    }
+
+}
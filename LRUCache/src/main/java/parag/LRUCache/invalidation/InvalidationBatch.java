@@ -0,0 +1,38 @@
+package parag.LRUCache.invalidation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keys invalidated together by one node
+ */
+public final class InvalidationBatch<K> {
+
+    private final String sourceNodeId;
+    private final List<K> keys;
+
+    /**
+     * Constructor
+     * 
+     * @param sourceNodeId node which changed the keys
+     * @param keys distinct keys to drop from memory
+     */
+    public InvalidationBatch(String sourceNodeId, List<K> keys) {
+        this.sourceNodeId = sourceNodeId;
+        this.keys = Collections.unmodifiableList(keys);
+    }
+
+    public String getSourceNodeId() {
+        return sourceNodeId;
+    }
+
+    public List<K> getKeys() {
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return sourceNodeId + " " + keys;
+    }
+
+}
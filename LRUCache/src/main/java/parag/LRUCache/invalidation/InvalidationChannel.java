@@ -0,0 +1,234 @@
+package parag.LRUCache.invalidation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts the keys changed on this node to the other nodes, batched and coalesced, and passes the keys they changed to local receivers.
+ * <p>
+ * An invalidated key is only added to a set of pending keys, so a key written many times in a row is sent once. A sender thread sends
+ * the pending keys when the batch is full or the first of them has waited for the maximum delay, which bounds how long another node may
+ * still serve the old value. Batches a node sent itself are skipped on receipt.
+ * <p>
+ * A batch the transport fails to send is dropped and counted, see {@link #failureCount()}. Other nodes then keep the old values until
+ * they are evicted or written again.
+ */
+public class InvalidationChannel<K> implements Closeable {
+
+    private static final int DEFAULT_BATCH_SIZE = 256;
+    private static final long DEFAULT_MAX_DELAY_MS = 10;
+
+    private final String nodeId;
+    private final InvalidationTransport<K> transport;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final List<Consumer<List<K>>> receivers = new CopyOnWriteArrayList<>();
+    private final Thread sender;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition keysPending = lock.newCondition();
+    private LinkedHashSet<K> pending = new LinkedHashSet<>();
+
+    private final LongAdder sentBatchCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * Constructor. At most 256 keys a batch, sent at most 10 ms after they are invalidated
+     * 
+     * @param nodeId name of this node, unique within the cluster
+     * @param transport
+     */
+    public InvalidationChannel(String nodeId, InvalidationTransport<K> transport) {
+        this(nodeId, transport, DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY_MS);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param nodeId name of this node, unique within the cluster
+     * @param transport
+     * @param batchSize maximum number of keys in one batch, a full batch is sent right away
+     * @param maxDelayMillis maximum time a key waits for its batch to fill
+     */
+    public InvalidationChannel(String nodeId, InvalidationTransport<K> transport, int batchSize, long maxDelayMillis) {
+        if (batchSize <= 0 || maxDelayMillis < 0) {
+            throw new IllegalArgumentException("batchSize must be positive and maxDelayMillis not negative");
+        }
+        this.nodeId = nodeId;
+        this.transport = transport;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        transport.register(this::receive);
+        this.sender = new Thread(this::sendLoop, "invalidation-sender");
+        this.sender.setDaemon(true);
+        this.sender.start();
+    }
+
+    /**
+     * Queues key for the next batch, unless it is already queued
+     * 
+     * @param key
+     */
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            if (!pending.add(key)) {
+                coalescedCount.increment();
+            } else if (pending.size() == 1 || pending.size() >= batchSize) {
+                // Starts the delay of a new batch, or cuts it short once the batch is full
+                keysPending.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the pending keys in the calling thread without waiting for the batch to fill
+     */
+    public void flush() {
+        send(takePending());
+    }
+
+    /**
+     * Registers receiver for the keys invalidated by other nodes. Called on the thread the transport delivers on
+     * 
+     * @param receiver
+     */
+    public void onInvalidation(Consumer<List<K>> receiver) {
+        receivers.add(receiver);
+    }
+
+    /**
+     * Returns the name of this node
+     * 
+     * @return
+     */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Returns number of batches sent so far
+     * 
+     * @return
+     */
+    public long sentBatchCount() {
+        return sentBatchCount.sum();
+    }
+
+    /**
+     * Returns number of invalidations folded into a key already pending
+     * 
+     * @return
+     */
+    public long coalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * Returns number of batches lost because the transport failed
+     * 
+     * @return
+     */
+    public long failureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * Sends the pending keys and stops the sender thread. The transport is left open, other channels may share it
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            keysPending.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            sender.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void receive(InvalidationBatch<K> batch) {
+        if (nodeId.equals(batch.getSourceNodeId())) {
+            return;
+        }
+        for (Consumer<List<K>> receiver : receivers) {
+            receiver.accept(batch.getKeys());
+        }
+    }
+
+    private void sendLoop() {
+        while (!closed) {
+            List<K> keys;
+            lock.lock();
+            try {
+                while (!closed && pending.isEmpty()) {
+                    keysPending.await();
+                }
+                long remaining = maxDelayNanos;
+                while (!closed && pending.size() < batchSize && remaining > 0) {
+                    remaining = keysPending.awaitNanos(remaining);
+                }
+                keys = swapPending();
+            } catch (InterruptedException e) {
+                continue;
+            } finally {
+                lock.unlock();
+            }
+            send(keys);
+        }
+    }
+
+    private List<K> takePending() {
+        lock.lock();
+        try {
+            return swapPending();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the pending set, so keys invalidated while the batch is sent are queued for the next one. Caller must hold the lock
+     */
+    private List<K> swapPending() {
+        if (pending.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<K> keys = new ArrayList<>(pending);
+        pending = new LinkedHashSet<>();
+        return keys;
+    }
+
+    private void send(List<K> keys) {
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<K> chunk = new ArrayList<>(keys.subList(from, Math.min(keys.size(), from + batchSize)));
+            try {
+                transport.send(new InvalidationBatch<>(nodeId, chunk));
+                sentBatchCount.increment();
+            } catch (IOException | RuntimeException e) {
+                failureCount.increment();
+            }
+        }
+    }
+
+}
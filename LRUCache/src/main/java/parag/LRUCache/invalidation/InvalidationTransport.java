@@ -0,0 +1,28 @@
+package parag.LRUCache.invalidation;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidation batches between the nodes of a cluster. A network transport serializes the keys, e.g. with a
+ * {@link parag.LRUCache.serializer.Serializer}, and may deliver a batch more than once or to its own sender, invalidating is idempotent
+ * and {@link InvalidationChannel} skips its own batches.
+ */
+public interface InvalidationTransport<K> {
+
+    /**
+     * Sends the batch to every node, returns once the transport has accepted it
+     * 
+     * @param batch
+     * @throws IOException
+     */
+    void send(InvalidationBatch<K> batch) throws IOException;
+
+    /**
+     * Registers receiver for the batches sent by any node. Receivers may be called on any thread
+     * 
+     * @param receiver
+     */
+    void register(Consumer<InvalidationBatch<K>> receiver);
+
+}
@@ -0,0 +1,45 @@
+package parag.LRUCache.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Transport within one JVM, standing in for a real one in tests and local runs. All nodes share one instance, a batch is handed to
+ * every registered receiver in the sending thread before send returns
+ */
+public class LoopbackTransport<K> implements InvalidationTransport<K> {
+
+    private final List<Consumer<InvalidationBatch<K>>> receivers = new CopyOnWriteArrayList<>();
+    private final LongAdder sentCount = new LongAdder();
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.invalidation.InvalidationTransport#send(parag.LRUCache.invalidation.InvalidationBatch)
+     */
+    @Override
+    public void send(InvalidationBatch<K> batch) {
+        sentCount.increment();
+        for (Consumer<InvalidationBatch<K>> receiver : receivers) {
+            receiver.accept(batch);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.invalidation.InvalidationTransport#register(java.util.function.Consumer)
+     */
+    @Override
+    public void register(Consumer<InvalidationBatch<K>> receiver) {
+        receivers.add(receiver);
+    }
+
+    /**
+     * Returns number of batches sent so far
+     * 
+     * @return
+     */
+    public long sentCount() {
+        return sentCount.sum();
+    }
+
+}
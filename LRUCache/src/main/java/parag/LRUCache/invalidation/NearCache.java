@@ -0,0 +1,199 @@
+package parag.LRUCache.invalidation;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import parag.LRUCache.Cache;
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.impl.LinkedLRUCache;
+import parag.LRUCache.stats.CacheStats;
+
+/**
+ * Cache of one node of a cluster whose nodes share a disk tier, e.g. a {@link parag.LRUCache.diskBacked.DiskCache} on a shared volume.
+ * <p>
+ * The shared tier holds every entry: a put writes the value through to it before keeping it in the local memory tier, and a memory miss
+ * copies the value from it without removing it, so the other nodes still find it. Each write is announced on an
+ * {@link InvalidationChannel}; the other nodes drop the key from memory and read the new value from the shared tier on their next get. A
+ * node therefore serves stale values for at most the delay of the channel, while hits never touch the disk.
+ * <p>
+ * A value read from disk is only kept in memory if no write or invalidation of a key of the same stripe arrived during the read, so a read
+ * racing with a write on another node cannot put the old value back after its invalidation. Writes of one key on this node hold its
+ * stripe lock from the disk write to the memory update, so memory and disk end up with the same value.
+ * <p>
+ * A {@link parag.LRUCache.diskBacked.DiskCache} replaces its files atomically, so a node reading a key another node is writing gets the
+ * old value or the new one. Its weight budget and index are per process, each node bounds only the files it wrote.
+ */
+public class NearCache<K, V> implements Cache<K, V>, Closeable {
+
+    private static final int STRIPES = 64;
+
+    private final LinkedLRUCache<K, V> memory;
+    private final DiskBackend<K, V> sharedDisk;
+    private final InvalidationChannel<K> channel;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    // Bumped under the stripe lock by every write and invalidation, a disk read which sees its stripe change does not fill memory
+    private final AtomicLongArray epochs = new AtomicLongArray(STRIPES);
+    private final LongAdder invalidatedCount = new LongAdder();
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize maximum number of entries kept in memory
+     * @param sharedDisk disk tier shared by all nodes
+     * @param channel carries the invalidations of this node and the others, closed with the cache
+     */
+    public NearCache(int maxSize, DiskBackend<K, V> sharedDisk, InvalidationChannel<K> channel) {
+        this.memory = new LinkedLRUCache<>(maxSize, null);
+        this.sharedDisk = sharedDisk;
+        this.channel = channel;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        channel.onInvalidation(this::invalidateLocally);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) throws RetrievalException {
+        if (key == null) {
+            return null;
+        }
+        V value = memory.get(key);
+        if (value != null) {
+            return value;
+        }
+        int stripe = stripeIndex(key);
+        long observed = epochs.get(stripe);
+        V diskValue;
+        try {
+            diskValue = sharedDisk.get(key);
+        } catch (DeserializationException e) {
+            throw new RetrievalException("Error while GET operation", e);
+        }
+        if (diskValue == null) {
+            return null;
+        }
+        stripes[stripe].lock();
+        try {
+            if (epochs.get(stripe) == observed) {
+                memory.put(key, diskValue);
+            }
+        } catch (StoreException e) {
+            throw new RetrievalException("Error while GET operation", e);
+        } finally {
+            stripes[stripe].unlock();
+        }
+        return diskValue;
+    }
+
+    /**
+     * Writes the value through to the shared disk tier, keeps it in memory and invalidates it on the other nodes
+     * 
+     * @param key
+     * @param value
+     * @throws StoreException
+     */
+    @Override
+    public void put(K key, V value) throws StoreException {
+        if (key == null) {
+            return;
+        }
+        int stripe = stripeIndex(key);
+        stripes[stripe].lock();
+        try {
+            sharedDisk.put(key, value);
+            epochs.incrementAndGet(stripe);
+            memory.put(key, value);
+        } catch (SerializationException e) {
+            throw new StoreException("Error while PUT operation", e);
+        } finally {
+            stripes[stripe].unlock();
+        }
+        channel.invalidate(key);
+    }
+
+    /**
+     * Removes key from the shared disk tier and from memory on every node
+     * 
+     * @param key
+     */
+    public void remove(K key) {
+        if (key == null) {
+            return;
+        }
+        int stripe = stripeIndex(key);
+        stripes[stripe].lock();
+        try {
+            sharedDisk.remove(key);
+            epochs.incrementAndGet(stripe);
+            memory.invalidate(key);
+        } finally {
+            stripes[stripe].unlock();
+        }
+        channel.invalidate(key);
+    }
+
+    /**
+     * Returns number of entries held in memory
+     * 
+     * @return
+     */
+    public int size() {
+        return memory.size();
+    }
+
+    /**
+     * Returns number of keys dropped from memory on request of other nodes
+     * 
+     * @return
+     */
+    public long invalidatedCount() {
+        return invalidatedCount.sum();
+    }
+
+    /**
+     * Returns the statistics of the memory tier
+     * 
+     * @return
+     */
+    public CacheStats stats() {
+        return memory.stats();
+    }
+
+    /**
+     * Sends the pending invalidations and closes the channel
+     */
+    @Override
+    public void close() {
+        channel.close();
+    }
+
+    private void invalidateLocally(List<K> keys) {
+        for (K key : keys) {
+            int stripe = stripeIndex(key);
+            stripes[stripe].lock();
+            try {
+                epochs.incrementAndGet(stripe);
+                memory.invalidate(key);
+            } finally {
+                stripes[stripe].unlock();
+            }
+        }
+        invalidatedCount.add(keys.size());
+    }
+
+    private static int stripeIndex(Object key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return hash >>> 26;
+    }
+
+}
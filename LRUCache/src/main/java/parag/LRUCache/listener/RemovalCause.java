@@ -0,0 +1,23 @@
+package parag.LRUCache.listener;
+
+/**
+ * Why an entry left the memory tier of a cache, or came back to it
+ */
+public enum RemovalCause {
+
+    /** Evicted to make room and dropped, there is no disk tier */
+    SIZE,
+
+    /** Lifetime ran out, in memory or on disk */
+    EXPIRED,
+
+    /** Removed by the caller */
+    EXPLICIT,
+
+    /** Evicted to make room and written to the disk tier */
+    SPILLED,
+
+    /** Read from the disk tier and moved back into memory, the value is no longer on disk */
+    PROMOTED
+
+}
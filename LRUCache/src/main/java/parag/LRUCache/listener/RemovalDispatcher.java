@@ -0,0 +1,168 @@
+package parag.LRUCache.listener;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers removal notifications to a {@link RemovalListener} on a background thread.
+ * <p>
+ * A cache collects the notifications of an operation while it holds its lock and queues them once it has released it, a single
+ * dispatcher thread takes the queued notifications in batches and hands each batch to the listener, so listener work never runs on the
+ * put path. Notifications are delivered in the order they were queued. One dispatcher may be shared by several caches.
+ * <p>
+ * The queue is bounded: once it is full publishing blocks until the listener catches up, so notifications are never lost and memory
+ * stays bounded when the listener falls behind. Only the publishing thread waits, the cache lock is already released. A listener which
+ * throws loses its batch, see {@link #failureCount()}.
+ */
+public class RemovalDispatcher<K, V> implements Closeable {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final int DEFAULT_BATCH_SIZE = 256;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final RemovalListener<K, V> listener;
+    private final int batchSize;
+    private final BlockingQueue<RemovalNotification<K, V>> queue;
+    private final Thread dispatcher;
+    // Published by the listener itself, only touched by the dispatcher thread
+    private final ArrayDeque<RemovalNotification<K, V>> overflow = new ArrayDeque<>();
+    private final LongAdder failureCount = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * Constructor. At most 4096 queued notifications, delivered 256 at a time
+     * 
+     * @param listener
+     */
+    public RemovalDispatcher(RemovalListener<K, V> listener) {
+        this(listener, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param listener
+     * @param capacity maximum number of queued notifications before publishing blocks
+     * @param batchSize maximum number of notifications handed to the listener at once
+     */
+    public RemovalDispatcher(RemovalListener<K, V> listener, int capacity, int batchSize) {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("capacity and batchSize must be positive");
+        }
+        this.listener = listener;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.dispatcher = new Thread(this::dispatchLoop, "removal-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Queues a notification, blocking while the queue is full. Ignored once the dispatcher is closed
+     * 
+     * @param key
+     * @param value
+     * @param cause
+     */
+    public void publish(K key, V value, RemovalCause cause) {
+        publish(new RemovalNotification<>(key, value, cause));
+    }
+
+    /**
+     * Queues a notification, blocking while the queue is full. An interrupt does not drop the notification, it is kept for the caller
+     * once the notification is queued. A listener publishing through a cache it calls back into is never blocked, its notifications
+     * go to the next batch. Ignored once the dispatcher is closed
+     * 
+     * @param notification
+     */
+    public void publish(RemovalNotification<K, V> notification) {
+        if (closed) {
+            return;
+        }
+        if (Thread.currentThread() == dispatcher) {
+            // Waiting for the queue to drain would wait for this thread
+            overflow.add(notification);
+            return;
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(notification);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns number of notifications waiting for delivery
+     * 
+     * @return
+     */
+    public int backlog() {
+        return queue.size();
+    }
+
+    /**
+     * Returns number of batches lost because the listener threw
+     * 
+     * @return
+     */
+    public long failureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * Delivers the queued notifications and stops the dispatcher thread
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (!closed || !queue.isEmpty() || !overflow.isEmpty()) {
+            // A new list per batch, the listener may keep it
+            List<RemovalNotification<K, V>> batch = new ArrayList<>(Math.min(batchSize, queue.size() + overflow.size() + 1));
+            while (batch.size() < batchSize && !overflow.isEmpty()) {
+                batch.add(overflow.poll());
+            }
+            if (batch.isEmpty()) {
+                RemovalNotification<K, V> first;
+                try {
+                    first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            try {
+                listener.onRemoval(Collections.unmodifiableList(batch));
+            } catch (RuntimeException e) {
+                failureCount.increment();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package parag.LRUCache.listener;
+
+import java.util.List;
+
+/**
+ * Receives the entries removed from, spilled by or promoted into a cache, in batches on the thread of a {@link RemovalDispatcher}
+ */
+@FunctionalInterface
+public interface RemovalListener<K, V> {
+
+    /**
+     * Handles a batch of notifications in the order the cache published them. An exception is counted by the dispatcher and the batch
+     * is not delivered again
+     * 
+     * @param notifications
+     */
+    void onRemoval(List<RemovalNotification<K, V>> notifications);
+
+}
@@ -0,0 +1,42 @@
+package parag.LRUCache.listener;
+
+/**
+ * Entry which moved, with the reason it moved
+ */
+public final class RemovalNotification<K, V> {
+
+    private final K key;
+    private final V value;
+    private final RemovalCause cause;
+
+    /**
+     * Constructor
+     * 
+     * @param key
+     * @param value
+     * @param cause
+     */
+    public RemovalNotification(K key, V value, RemovalCause cause) {
+        this.key = key;
+        this.value = value;
+        this.cause = cause;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    public RemovalCause getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + value + " (" + cause + ")";
+    }
+
+}
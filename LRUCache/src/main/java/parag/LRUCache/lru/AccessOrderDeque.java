@@ -0,0 +1,118 @@
+package parag.LRUCache.lru;
+
+/**
+ * Intrusive doubly linked list of {@link Node}s ordered from least recently used (head) to most recently used (tail).
+ * <p>
+ * The links live in the nodes themselves, so unlinking and relinking an entry is O(1) regardless of the size of the cache. This class is
+ * not thread safe, callers must guard it with their own lock.
+ */
+public final class AccessOrderDeque<K, V> {
+
+    private Node<K, V> head;
+    private Node<K, V> tail;
+    private int size;
+
+    /**
+     * Links node at the tail i.e most recently used position
+     * 
+     * @param node
+     */
+    public void addLast(Node<K, V> node) {
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        size++;
+    }
+
+    /**
+     * Unlinks node from the deque
+     * 
+     * @param node
+     */
+    public void remove(Node<K, V> node) {
+        Node<K, V> prev = node.prev;
+        Node<K, V> next = node.next;
+        if (prev == null) {
+            head = next;
+        } else {
+            prev.next = next;
+        }
+        if (next == null) {
+            tail = prev;
+        } else {
+            next.prev = prev;
+        }
+        node.prev = null;
+        node.next = null;
+        size--;
+    }
+
+    /**
+     * Moves node to the tail. Method to be used for key which is recently used
+     * 
+     * @param node
+     */
+    public void moveToBack(Node<K, V> node) {
+        if (node == tail) {
+            return;
+        }
+        remove(node);
+        addLast(node);
+    }
+
+    /**
+     * Returns true if node is currently linked into this deque
+     * 
+     * @param node
+     * @return
+     */
+    public boolean contains(Node<K, V> node) {
+        return node.prev != null || node.next != null || head == node;
+    }
+
+    /**
+     * Returns least recently used node without removing it
+     * 
+     * @return
+     */
+    public Node<K, V> peekFirst() {
+        return head;
+    }
+
+    /**
+     * Removes and returns least recently used node
+     * 
+     * @return
+     */
+    public Node<K, V> pollFirst() {
+        Node<K, V> first = head;
+        if (first != null) {
+            remove(first);
+        }
+        return first;
+    }
+
+    /**
+     * Returns node following node towards the most recently used end, null if node is the tail
+     * 
+     * @param node
+     * @return
+     */
+    public Node<K, V> next(Node<K, V> node) {
+        return node.next;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+}
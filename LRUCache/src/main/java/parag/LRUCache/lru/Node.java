@@ -0,0 +1,94 @@
+package parag.LRUCache.lru;
+
+/**
+ * Entry of the in-memory cache. A single node is both the value stored in the map and the element linked into the access order, so
+ * moving an entry to the most recently used position never needs a lookup or a scan.
+ */
+public final class Node<K, V> {
+
+    private final K key;
+    private volatile V value;
+
+    Node<K, V> prev;
+    Node<K, V> next;
+    // Links of the timer wheel bucket, guarded by the cache lock
+    Node<K, V> prevInTime;
+    Node<K, V> nextInTime;
+    private volatile long expiresAt;
+
+    // Guarded by the cache lock
+    private int queueType;
+    private boolean retired;
+    private int weight = 1;
+
+    /**
+     * Constructor
+     * 
+     * @param key
+     * @param value
+     */
+    public Node(K key, V value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    public void setValue(V value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the queue of the eviction policy this node is linked into
+     * 
+     * @return
+     */
+    public int getQueueType() {
+        return queueType;
+    }
+
+    public void setQueueType(int queueType) {
+        this.queueType = queueType;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * Returns the ticker time at which the entry expires
+     * 
+     * @return
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Returns true once the node was removed from the cache. Hits recorded for a retired node are ignored
+     * 
+     * @return
+     */
+    public boolean isRetired() {
+        return retired;
+    }
+
+    public void retire() {
+        this.retired = true;
+    }
+
+}
@@ -0,0 +1,109 @@
+package parag.LRUCache.lru;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Striped, lossy ring buffers recording cache hits.
+ * <p>
+ * Readers never block: a hit is written to the stripe picked by the current thread and simply dropped if that stripe is full or another
+ * thread won the race for the slot. Losing a few recency updates only makes the LRU order slightly approximate, which is the price for a
+ * read path that scales with the number of cores. The buffers are drained in batches by a single thread holding the cache lock.
+ */
+public final class ReadBuffer<K, V> {
+
+    /** Result of {@link #offer(Node)} */
+    public static final int SUCCESS = 0;
+    public static final int FAILED = 1;
+    public static final int FULL = 2;
+
+    private static final int BUFFER_SIZE = 16;
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+    private static final int MAX_STRIPES = 64;
+
+    private final Stripe<K, V>[] stripes;
+    private final int stripeMask;
+
+    /**
+     * Constructor. Creates one stripe per available processor rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public ReadBuffer() {
+        int count = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while (count < processors && count < MAX_STRIPES) {
+            count <<= 1;
+        }
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        stripeMask = count - 1;
+    }
+
+    /**
+     * Records access of node in the stripe of the calling thread
+     * 
+     * @param node
+     * @return {@link #SUCCESS}, {@link #FAILED} if the slot was contended or {@link #FULL} if the stripe needs to be drained
+     */
+    public int offer(Node<K, V> node) {
+        return stripes[probe() & stripeMask].offer(node);
+    }
+
+    /**
+     * Drains all stripes, applying consumer to every recorded node in the order it was recorded. Only one thread may drain at a time
+     * 
+     * @param consumer
+     */
+    public void drainTo(Consumer<Node<K, V>> consumer) {
+        for (Stripe<K, V> stripe : stripes) {
+            stripe.drainTo(consumer);
+        }
+    }
+
+    private static int probe() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Stripe<K, V> {
+
+        private final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private final AtomicLong readCounter = new AtomicLong();
+
+        int offer(Node<K, V> node) {
+            long head = readCounter.get();
+            long tail = writeCounter.get();
+            if (tail - head >= BUFFER_SIZE) {
+                return FULL;
+            }
+            if (!writeCounter.compareAndSet(tail, tail + 1)) {
+                return FAILED;
+            }
+            buffer.lazySet((int) (tail & BUFFER_MASK), node);
+            return tail - head + 1 >= BUFFER_SIZE ? FULL : SUCCESS;
+        }
+
+        void drainTo(Consumer<Node<K, V>> consumer) {
+            long head = readCounter.get();
+            long tail = writeCounter.get();
+            for (; head < tail; head++) {
+                int index = (int) (head & BUFFER_MASK);
+                Node<K, V> node = buffer.get(index);
+                if (node == null) {
+                    // Slot claimed but not yet published, pick it up on the next drain
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(node);
+            }
+            readCounter.lazySet(head);
+        }
+
+    }
+
+}
@@ -0,0 +1,178 @@
+package parag.LRUCache.lru;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding the {@link Node}s of entries which expire.
+ * <p>
+ * Each level is a ring of buckets covering a span of time: one second buckets for the next minute, one minute buckets for the next
+ * hour, one hour buckets for the next day and so on up to an overflow bucket. A node is linked into the bucket of its expiration time,
+ * scheduling and removing it is O(1). Advancing the clock only visits the buckets whose time has passed; a node found there is either
+ * expired or, when it sits on a coarse level, moved down to a finer one. No operation scans all the entries.
+ * <p>
+ * The links live in the nodes themselves like those of {@link AccessOrderDeque}. This class is not thread safe, callers must guard it
+ * with their own lock.
+ */
+public final class TimerWheel<K, V> {
+
+    private static final int[] BUCKETS = { 64, 64, 32, 4, 1 };
+    // Span of one bucket per level, rounded up to a power of two so the bucket of a time is a shift and a mask
+    private static final long[] SPANS = {
+            ceilingPowerOfTwo(TimeUnit.SECONDS.toNanos(1)), // 1.07 s
+            ceilingPowerOfTwo(TimeUnit.MINUTES.toNanos(1)), // 1.14 m
+            ceilingPowerOfTwo(TimeUnit.HOURS.toNanos(1)), // 1.22 h
+            ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)), // 1.63 d
+            BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)), // 6.5 d
+            BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)), // 6.5 d
+    };
+    private static final long[] SHIFT = {
+            Long.numberOfTrailingZeros(SPANS[0]),
+            Long.numberOfTrailingZeros(SPANS[1]),
+            Long.numberOfTrailingZeros(SPANS[2]),
+            Long.numberOfTrailingZeros(SPANS[3]),
+            Long.numberOfTrailingZeros(SPANS[4]),
+    };
+
+    private final Node<K, V>[][] wheel;
+    private long nanos;
+
+    /**
+     * Constructor
+     * 
+     * @param nanos current ticker time
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long nanos) {
+        this.nanos = nanos;
+        this.wheel = new Node[BUCKETS.length][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Node[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; j++) {
+                Node<K, V> sentinel = new Node<>(null, null);
+                sentinel.prevInTime = sentinel;
+                sentinel.nextInTime = sentinel;
+                wheel[i][j] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Links node into the bucket of its expiration time
+     * 
+     * @param node
+     */
+    public void schedule(Node<K, V> node) {
+        Node<K, V> sentinel = findBucket(node.getExpiresAt());
+        node.nextInTime = sentinel;
+        node.prevInTime = sentinel.prevInTime;
+        sentinel.prevInTime.nextInTime = node;
+        sentinel.prevInTime = node;
+    }
+
+    /**
+     * Moves node to the bucket of its new expiration time
+     * 
+     * @param node
+     */
+    public void reschedule(Node<K, V> node) {
+        deschedule(node);
+        schedule(node);
+    }
+
+    /**
+     * Unlinks node if it is scheduled
+     * 
+     * @param node
+     */
+    public void deschedule(Node<K, V> node) {
+        if (node.nextInTime != null) {
+            node.nextInTime.prevInTime = node.prevInTime;
+            node.prevInTime.nextInTime = node.nextInTime;
+            node.nextInTime = null;
+            node.prevInTime = null;
+        }
+    }
+
+    /**
+     * Advances the clock and hands every node whose expiration time has passed to the consumer. Nodes are unlinked before they are
+     * handed over
+     * 
+     * @param currentTimeNanos current ticker time
+     * @param onExpired removes the entry of an expired node
+     */
+    public void advance(long currentTimeNanos, Consumer<Node<K, V>> onExpired) {
+        long previousTimeNanos = nanos;
+        nanos = currentTimeNanos;
+        // The ticker origin is arbitrary, shift both readings so they compare as positive numbers when the clock crosses zero
+        if (previousTimeNanos < 0 && currentTimeNanos > 0) {
+            previousTimeNanos += Long.MAX_VALUE;
+            currentTimeNanos += Long.MAX_VALUE;
+        }
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previousTimeNanos >>> SHIFT[i];
+            long currentTicks = currentTimeNanos >>> SHIFT[i];
+            long delta = currentTicks - previousTicks;
+            // A coarser level can only have moved on if this one did
+            if (delta <= 0) {
+                break;
+            }
+            expire(i, previousTicks, delta, onExpired);
+        }
+    }
+
+    /**
+     * Empties the buckets of a level the clock went past, expiring or rescheduling their nodes
+     * 
+     * @param level
+     * @param previousTicks
+     * @param delta
+     * @param onExpired
+     */
+    private void expire(int level, long previousTicks, long delta, Consumer<Node<K, V>> onExpired) {
+        Node<K, V>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(1 + delta, buckets.length);
+        int start = (int) (previousTicks & mask);
+        for (int i = start; i < start + steps; i++) {
+            Node<K, V> sentinel = buckets[i & mask];
+            Node<K, V> node = sentinel.nextInTime;
+            sentinel.prevInTime = sentinel;
+            sentinel.nextInTime = sentinel;
+            while (node != sentinel) {
+                Node<K, V> next = node.nextInTime;
+                node.prevInTime = null;
+                node.nextInTime = null;
+                if (node.getExpiresAt() - nanos > 0) {
+                    schedule(node);
+                } else {
+                    onExpired.accept(node);
+                }
+                node = next;
+            }
+        }
+    }
+
+    /**
+     * Returns the sentinel of the bucket covering time, on the finest level whose range reaches it
+     * 
+     * @param time
+     * @return
+     */
+    private Node<K, V> findBucket(long time) {
+        long duration = time - nanos;
+        int last = wheel.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = time >>> SHIFT[i];
+                return wheel[i][(int) (ticks & (wheel[i].length - 1))];
+            }
+        }
+        return wheel[last][0];
+    }
+
+    private static long ceilingPowerOfTwo(long x) {
+        return 1L << -Long.numberOfLeadingZeros(x - 1);
+    }
+
+}
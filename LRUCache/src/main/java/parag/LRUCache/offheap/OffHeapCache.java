@@ -0,0 +1,388 @@
+package parag.LRUCache.offheap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import parag.LRUCache.Cache;
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.lru.AccessOrderDeque;
+import parag.LRUCache.lru.Node;
+import parag.LRUCache.lru.ReadBuffer;
+import parag.LRUCache.serializer.BufferOutput;
+import parag.LRUCache.serializer.Serializer;
+
+/**
+ * Thread Safe Disk Backed LRU Cache keeping serialized values outside the Java heap.
+ * <p>
+ * Values are written into chunks of direct memory handed out by a {@link SlabAllocator}; the heap only holds the key and a
+ * {@link Node} with the long handle of the chunk, so large values add nothing to GC work. Capacity is a number of bytes rather than a
+ * number of entries. Like memcached there is one LRU order per size class: a value evicts the least recently used value of its own
+ * size class, and when that class has nothing to give up a whole slab is taken from the class owning the most slabs.
+ * <p>
+ * Reads hold the shared lock while they deserialize from the chunk and record the hit in a {@link ReadBuffer}, writes hold the
+ * exclusive lock so a chunk is never reused under a reader. A memory miss reads the disk tier under the exclusive lock, so a put of the
+ * same key cannot be overwritten by the older value on disk. Values larger than a slab go straight to the disk tier.
+ */
+public class OffHeapCache<K, V> implements Cache<K, V> {
+
+    private static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+    private static final int LENGTH_PREFIX = 4;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ConcurrentHashMap<K, Node<K, Long>> map = new ConcurrentHashMap<>();
+    private final AccessOrderDeque<K, Long>[] accessOrders;
+    private final ReadBuffer<K, Long> readBuffer = new ReadBuffer<>();
+    private final Consumer<Node<K, Long>> onAccess = this::onAccess;
+    private final SlabAllocator allocator;
+    private final Serializer<V> serializer;
+    private final DiskBackend<K, V> diskCache;
+
+    /**
+     * Constructor. 1 MB slabs
+     * 
+     * @param capacity number of off-heap bytes
+     * @param serializer codec of the values
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     */
+    public OffHeapCache(long capacity, Serializer<V> serializer, DiskBackend<K, V> diskCache) {
+        this(capacity, DEFAULT_SLAB_SIZE, serializer, diskCache);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param capacity number of off-heap bytes
+     * @param slabSize size of one slab, serialized values larger than that bypass memory
+     * @param serializer codec of the values
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     */
+    @SuppressWarnings("unchecked")
+    public OffHeapCache(long capacity, int slabSize, Serializer<V> serializer, DiskBackend<K, V> diskCache) {
+        this.allocator = new SlabAllocator(capacity, slabSize);
+        this.serializer = serializer;
+        this.diskCache = diskCache;
+        int classes = allocator.sizeClass(slabSize) + 1;
+        this.accessOrders = new AccessOrderDeque[classes];
+        for (int i = 0; i < classes; i++) {
+            accessOrders[i] = new AccessOrderDeque<>();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) throws RetrievalException {
+        if (key == null) {
+            return null;
+        }
+        boolean drain = false;
+        lock.readLock().lock();
+        try {
+            Node<K, Long> node = map.get(key);
+            if (node != null) {
+                drain = readBuffer.offer(node) == ReadBuffer.FULL;
+                return read(node.getValue());
+            }
+        } catch (IOException e) {
+            throw new RetrievalException("Error while GET operation", e);
+        } finally {
+            lock.readLock().unlock();
+            if (drain) {
+                tryToDrainBuffers();
+            }
+        }
+        if (diskCache == null) {
+            return null;
+        }
+        lock.writeLock().lock();
+        try {
+            drainBuffers();
+            // Put by another thread since the lookup above, that value is newer than the one on disk
+            Node<K, Long> node = map.get(key);
+            if (node != null) {
+                return read(node.getValue());
+            }
+            // If key not found in memory then check on disk. Return null if not present
+            V diskValue = diskCache.get(key);
+            // Disk copy is removed only once the value is in memory, a value larger than a slab stays on disk
+            if (diskValue != null && store(key, diskValue, serialize(diskValue), false)) {
+                diskCache.remove(key);
+            }
+            return diskValue;
+        } catch (IOException | DeserializationException | SerializationException | StoreException e) {
+            throw new RetrievalException("Error while GET operation", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(K key, V value) throws StoreException {
+        if (key == null) {
+            return;
+        }
+        ByteBuffer bytes;
+        try {
+            bytes = serialize(value);
+        } catch (IOException e) {
+            throw new StoreException("Error while PUT operation", e);
+        }
+        lock.writeLock().lock();
+        try {
+            drainBuffers();
+            store(key, value, bytes, true);
+        } catch (IOException | SerializationException e) {
+            throw new StoreException("Error while PUT operation", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes key from memory and frees its chunk, its copy on disk is left alone
+     * 
+     * @param key
+     */
+    public void invalidate(K key) {
+        if (key == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            drainBuffers();
+            Node<K, Long> node = map.get(key);
+            if (node != null) {
+                release(node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns number of entries held off-heap
+     * 
+     * @return
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * Returns number of off-heap bytes taken by slabs so far
+     * 
+     * @return
+     */
+    public long allocatedBytes() {
+        lock.readLock().lock();
+        try {
+            return allocator.allocatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the value serialized after its length, in the thread local buffer of the calling thread
+     */
+    private ByteBuffer serialize(V value) throws IOException {
+        BufferOutput output = BufferOutput.get();
+        output.dataOutput().writeInt(0);
+        serializer.write(value, output.dataOutput());
+        output.putInt(0, output.size() - LENGTH_PREFIX);
+        return output.toByteBuffer();
+    }
+
+    /**
+     * Copies the serialized value into a chunk, replacing the old value of key, and spills the values evicted to make room. Caller must
+     * hold the write lock. The old value is only released once the new one is in memory or on disk, so a failed store leaves it in
+     * place. Evicted values which cannot be spilled are reported rather than dropped silently
+     * 
+     * @param key
+     * @param value
+     * @param bytes serialized value
+     * @param spillOversize whether a value larger than a slab is put on disk, false if it is there already
+     * @return true if the value is held in memory
+     * @throws StoreException if the value is larger than a slab and there is no disk tier
+     * @throws IOException
+     * @throws SerializationException if an evicted value could not be spilled, it names the values lost
+     */
+    private boolean store(K key, V value, ByteBuffer bytes, boolean spillOversize)
+            throws StoreException, IOException, SerializationException {
+        int sizeClass = allocator.sizeClass(bytes.remaining());
+        if (sizeClass < 0 && diskCache == null) {
+            throw new StoreException("Value of " + bytes.remaining() + " bytes does not fit in a slab");
+        }
+        Node<K, Long> old = map.get(key);
+        if (old != null && old.getQueueType() == sizeClass) {
+            // Same size class, the new value takes over the chunk of the old one
+            allocator.chunk(old.getValue()).put(bytes);
+            accessOrders[sizeClass].moveToBack(old);
+            return true;
+        }
+        List<Node<K, V>> victims = new ArrayList<>();
+        long handle;
+        try {
+            handle = sizeClass < 0 ? -1 : allocate(sizeClass, victims);
+            if (handle < 0 && diskCache == null) {
+                throw new StoreException("No chunk of " + allocator.chunkSize(sizeClass) + " bytes could be freed");
+            }
+            if (handle < 0 && spillOversize) {
+                diskCache.put(key, value);
+            }
+        } catch (IOException | StoreException | SerializationException | RuntimeException e) {
+            // The values evicted so far are already out of memory
+            try {
+                spill(victims);
+            } catch (SerializationException spillFailure) {
+                e.addSuppressed(spillFailure);
+            }
+            throw e;
+        }
+        if (old != null) {
+            if (old.isRetired()) {
+                // Evicted to make room for its own replacement, its value is not worth a spill
+                victims.removeIf(victim -> victim.getKey().equals(key));
+            } else {
+                release(old);
+            }
+        }
+        if (handle >= 0) {
+            allocator.chunk(handle).put(bytes);
+            Node<K, Long> node = new Node<>(key, handle);
+            node.setQueueType(sizeClass);
+            accessOrders[sizeClass].addLast(node);
+            map.put(key, node);
+        }
+        // Spill only after our bytes are copied, the disk tier reuses the same thread local buffer
+        spill(victims);
+        return handle >= 0;
+    }
+
+    /**
+     * Writes evicted values to the disk tier. A failed write does not stop the others
+     * 
+     * @param victims
+     * @throws SerializationException naming the keys whose values were lost
+     */
+    private void spill(List<Node<K, V>> victims) throws SerializationException {
+        List<K> lost = new ArrayList<>();
+        Exception firstFailure = null;
+        for (Node<K, V> victim : victims) {
+            try {
+                diskCache.put(victim.getKey(), victim.getValue());
+            } catch (SerializationException | RuntimeException e) {
+                lost.add(victim.getKey());
+                if (firstFailure == null) {
+                    firstFailure = e;
+                } else {
+                    firstFailure.addSuppressed(e);
+                }
+            }
+        }
+        if (firstFailure != null) {
+            throw new SerializationException("Evicted values lost, could not spill " + lost, firstFailure);
+        }
+    }
+
+    /**
+     * Allocates a chunk, evicting least recently used values of the size class or taking over a slab of another class if needed.
+     * Caller must hold the write lock
+     * 
+     * @param sizeClass
+     * @param victims collects evicted values which need to be spilled to disk
+     * @return handle, -1 if no chunk could be freed
+     * @throws IOException
+     */
+    private long allocate(int sizeClass, List<Node<K, V>> victims) throws IOException {
+        while (true) {
+            long handle = allocator.allocate(sizeClass);
+            if (handle >= 0) {
+                return handle;
+            }
+            Node<K, Long> leastUsed = accessOrders[sizeClass].peekFirst();
+            if (leastUsed != null) {
+                evict(leastUsed, victims);
+                continue;
+            }
+            int donor = allocator.largestClass();
+            int slab = allocator.anySlabOf(donor);
+            if (donor == sizeClass || slab < 0) {
+                return -1;
+            }
+            evictSlab(donor, slab, victims);
+            allocator.reassign(slab, sizeClass);
+        }
+    }
+
+    private void evictSlab(int sizeClass, int slab, List<Node<K, V>> victims) throws IOException {
+        List<Node<K, Long>> residents = new ArrayList<>();
+        for (Node<K, Long> node = accessOrders[sizeClass].peekFirst(); node != null; node = accessOrders[sizeClass].next(node)) {
+            if (SlabAllocator.slabOf(node.getValue()) == slab) {
+                residents.add(node);
+            }
+        }
+        for (Node<K, Long> node : residents) {
+            evict(node, victims);
+        }
+    }
+
+    private void evict(Node<K, Long> node, List<Node<K, V>> victims) throws IOException {
+        if (diskCache != null) {
+            victims.add(new Node<>(node.getKey(), read(node.getValue())));
+        }
+        release(node);
+    }
+
+    private void release(Node<K, Long> node) {
+        accessOrders[node.getQueueType()].remove(node);
+        node.retire();
+        map.remove(node.getKey());
+        allocator.free(node.getValue());
+    }
+
+    private V read(long handle) throws IOException {
+        ByteBuffer chunk = allocator.chunk(handle);
+        int length = chunk.getInt();
+        chunk.limit(LENGTH_PREFIX + length);
+        return serializer.read(chunk);
+    }
+
+    private void tryToDrainBuffers() {
+        if (lock.writeLock().tryLock()) {
+            try {
+                drainBuffers();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Caller must hold the write lock
+     */
+    private void drainBuffers() {
+        readBuffer.drainTo(onAccess);
+    }
+
+    private void onAccess(Node<K, Long> node) {
+        // Node may have been evicted after the hit was recorded
+        if (!node.isRetired()) {
+            accessOrders[node.getQueueType()].moveToBack(node);
+        }
+    }
+
+}
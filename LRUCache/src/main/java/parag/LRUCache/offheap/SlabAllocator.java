@@ -0,0 +1,209 @@
+package parag.LRUCache.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Carves direct {@link ByteBuffer} slabs into fixed size chunks, memcached style.
+ * <p>
+ * Chunk sizes grow by a factor of 1.25 from 64 bytes up to the slab size, and each slab serves exactly one size class. Slabs are
+ * allocated lazily until the byte budget is used up, so the heap only ever holds the slab array and one long handle per stored value.
+ * A handle packs the slab index in its upper and the chunk offset in its lower 32 bits. Not thread safe.
+ */
+public final class SlabAllocator {
+
+    private static final int MIN_CHUNK_SIZE = 64;
+    private static final double GROWTH_FACTOR = 1.25;
+
+    private final int slabSize;
+    private final int maxSlabs;
+    private final int[] chunkSizes;
+    private final ByteBuffer[] slabs;
+    private final int[] slabClasses;
+    private int slabCount;
+    private final int[] slabCountPerClass;
+    private final long[][] freeChunks;
+    private final int[] freeCount;
+
+    /**
+     * Constructor
+     * 
+     * @param capacity total number of off-heap bytes, rounded down to whole slabs
+     * @param slabSize size of one slab, also the largest chunk
+     */
+    public SlabAllocator(long capacity, int slabSize) {
+        if (slabSize < MIN_CHUNK_SIZE || capacity < slabSize) {
+            throw new IllegalArgumentException("capacity must hold at least one slab of at least " + MIN_CHUNK_SIZE + " bytes");
+        }
+        this.slabSize = slabSize;
+        this.maxSlabs = (int) Math.min(Integer.MAX_VALUE - 8, capacity / slabSize);
+        this.slabs = new ByteBuffer[maxSlabs];
+        this.slabClasses = new int[maxSlabs];
+        List<Integer> sizes = new ArrayList<>();
+        int size = MIN_CHUNK_SIZE;
+        while (size < slabSize) {
+            sizes.add(size);
+            // Keep chunks 8 byte aligned
+            size = (int) Math.min(slabSize, ((long) (size * GROWTH_FACTOR) + 7) & ~7L);
+        }
+        sizes.add(slabSize);
+        this.chunkSizes = new int[sizes.size()];
+        for (int i = 0; i < chunkSizes.length; i++) {
+            chunkSizes[i] = sizes.get(i);
+        }
+        this.slabCountPerClass = new int[chunkSizes.length];
+        this.freeChunks = new long[chunkSizes.length][];
+        this.freeCount = new int[chunkSizes.length];
+        for (int i = 0; i < chunkSizes.length; i++) {
+            freeChunks[i] = new long[16];
+        }
+    }
+
+    /**
+     * Returns the smallest size class whose chunks hold length bytes
+     * 
+     * @param length
+     * @return size class, -1 if length is larger than a slab
+     */
+    public int sizeClass(int length) {
+        int index = Arrays.binarySearch(chunkSizes, length);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < chunkSizes.length ? index : -1;
+    }
+
+    public int chunkSize(int sizeClass) {
+        return chunkSizes[sizeClass];
+    }
+
+    /**
+     * Allocates a chunk of sizeClass, taking a new slab if the class has no free chunk left and the budget allows
+     * 
+     * @param sizeClass
+     * @return handle, -1 if the class is exhausted
+     */
+    public long allocate(int sizeClass) {
+        if (freeCount[sizeClass] == 0) {
+            if (slabCount >= maxSlabs) {
+                return -1;
+            }
+            slabs[slabCount] = ByteBuffer.allocateDirect(slabSize);
+            slabClasses[slabCount] = sizeClass;
+            carve(slabCount++, sizeClass);
+        }
+        return freeChunks[sizeClass][--freeCount[sizeClass]];
+    }
+
+    /**
+     * Returns chunk to the free list of its class
+     * 
+     * @param handle
+     */
+    public void free(long handle) {
+        push(slabClasses[slabOf(handle)], handle);
+    }
+
+    /**
+     * Hands an entirely free slab over to another size class. Caller must have freed every chunk of the slab
+     * 
+     * @param slab
+     * @param sizeClass
+     */
+    public void reassign(int slab, int sizeClass) {
+        int oldClass = slabClasses[slab];
+        long[] free = freeChunks[oldClass];
+        int kept = 0;
+        for (int i = 0; i < freeCount[oldClass]; i++) {
+            if (slabOf(free[i]) != slab) {
+                free[kept++] = free[i];
+            }
+        }
+        freeCount[oldClass] = kept;
+        slabCountPerClass[oldClass]--;
+        slabClasses[slab] = sizeClass;
+        carve(slab, sizeClass);
+    }
+
+    /**
+     * Returns the size class owning the most slabs, the cheapest one to take a slab from
+     * 
+     * @return
+     */
+    public int largestClass() {
+        int largest = 0;
+        for (int i = 1; i < slabCountPerClass.length; i++) {
+            if (slabCountPerClass[i] > slabCountPerClass[largest]) {
+                largest = i;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Returns any slab index of sizeClass, -1 if it owns none
+     * 
+     * @param sizeClass
+     * @return
+     */
+    public int anySlabOf(int sizeClass) {
+        for (int i = slabCount - 1; i >= 0; i--) {
+            if (slabClasses[i] == sizeClass) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a writable view of the chunk
+     * 
+     * @param handle
+     * @return
+     */
+    public ByteBuffer chunk(long handle) {
+        int slab = slabOf(handle);
+        int offset = (int) handle;
+        ByteBuffer view = slabs[slab].duplicate();
+        view.limit(offset + chunkSizes[slabClasses[slab]]).position(offset);
+        return view.slice();
+    }
+
+    public static int slabOf(long handle) {
+        return (int) (handle >>> 32);
+    }
+
+    /**
+     * Returns number of off-heap bytes taken by slabs so far
+     * 
+     * @return
+     */
+    public long allocatedBytes() {
+        return (long) slabCount * slabSize;
+    }
+
+    public long capacity() {
+        return (long) maxSlabs * slabSize;
+    }
+
+    private void carve(int slab, int sizeClass) {
+        slabCountPerClass[sizeClass]++;
+        int chunkSize = chunkSizes[sizeClass];
+        // Push in reverse so chunks are handed out from the start of the slab
+        for (int offset = (slabSize / chunkSize - 1) * chunkSize; offset >= 0; offset -= chunkSize) {
+            push(sizeClass, ((long) slab << 32) | offset);
+        }
+    }
+
+    private void push(int sizeClass, long handle) {
+        long[] free = freeChunks[sizeClass];
+        if (freeCount[sizeClass] == free.length) {
+            free = Arrays.copyOf(free, free.length << 1);
+            freeChunks[sizeClass] = free;
+        }
+        free[freeCount[sizeClass]++] = handle;
+    }
+
+}
@@ -0,0 +1,155 @@
+package parag.LRUCache.policy;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import parag.LRUCache.lru.AccessOrderDeque;
+import parag.LRUCache.lru.Node;
+
+/**
+ * Adaptive Replacement Cache (Megiddo and Modha).
+ * <p>
+ * Entries seen once live in T1 and entries seen at least twice in T2. The keys of recently evicted entries are remembered in the ghost
+ * lists B1 and B2, and a hit on a ghost shifts the target size of T1 towards recency or frequency, whichever would have kept the entry.
+ * All list sizes are weights, ghosts remember the weight their entry had.
+ */
+public class ArcPolicy<K, V> implements EvictionPolicy<K, V> {
+
+    private static final int T1 = 0;
+    private static final int T2 = 1;
+
+    private final AccessOrderDeque<K, V> t1 = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> t2 = new AccessOrderDeque<>();
+    private final LinkedHashMap<K, Integer> b1 = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Integer> b2 = new LinkedHashMap<>();
+    private final long maximum;
+
+    private long t1Weight;
+    private long t2Weight;
+    private long b1Weight;
+    private long b2Weight;
+
+    /** Target weight of T1 */
+    private long p;
+
+    /**
+     * Constructor
+     * 
+     * @param maximum capacity of the cache
+     */
+    public ArcPolicy(long maximum) {
+        if (maximum <= 0) {
+            throw new IllegalArgumentException("maximum must be positive");
+        }
+        this.maximum = maximum;
+    }
+
+    @Override
+    public void onInsert(Node<K, V> node) {
+        K key = node.getKey();
+        int weight = node.getWeight();
+        Integer ghost = b1.remove(key);
+        if (ghost != null) {
+            b1Weight -= ghost;
+            p = Math.min(maximum, p + weight * Math.max(1, b2Weight / Math.max(1, b1Weight)));
+            link(T2, node);
+            return;
+        }
+        ghost = b2.remove(key);
+        if (ghost != null) {
+            b2Weight -= ghost;
+            p = Math.max(0, p - weight * Math.max(1, b1Weight / Math.max(1, b2Weight)));
+            link(T2, node);
+            return;
+        }
+        link(T1, node);
+    }
+
+    @Override
+    public void onAccess(Node<K, V> node) {
+        if (node.getQueueType() == T2) {
+            t2.moveToBack(node);
+        } else {
+            unlink(node);
+            link(T2, node);
+        }
+    }
+
+    @Override
+    public void onUpdate(Node<K, V> node, int oldWeight) {
+        if (node.getQueueType() == T2) {
+            t2Weight += node.getWeight() - oldWeight;
+        } else {
+            t1Weight += node.getWeight() - oldWeight;
+        }
+        onAccess(node);
+    }
+
+    @Override
+    public void onRemove(Node<K, V> node) {
+        unlink(node);
+    }
+
+    @Override
+    public Node<K, V> victim() {
+        if (!t1.isEmpty() && (t1Weight > p || t2.isEmpty())) {
+            return t1.peekFirst();
+        }
+        return t2.peekFirst();
+    }
+
+    @Override
+    public void onEvict(Node<K, V> node) {
+        unlink(node);
+        if (node.getQueueType() == T2) {
+            b2.put(node.getKey(), node.getWeight());
+            b2Weight += node.getWeight();
+        } else {
+            b1.put(node.getKey(), node.getWeight());
+            b1Weight += node.getWeight();
+        }
+        trimGhosts();
+    }
+
+    /**
+     * Keeps |T1| + |B1| <= c and the whole directory within 2c
+     */
+    private void trimGhosts() {
+        while (t1Weight + b1Weight > maximum && !b1.isEmpty()) {
+            b1Weight -= removeOldest(b1);
+        }
+        while (t1Weight + t2Weight + b1Weight + b2Weight > 2 * maximum && !b2.isEmpty()) {
+            b2Weight -= removeOldest(b2);
+        }
+    }
+
+    private int removeOldest(LinkedHashMap<K, Integer> ghosts) {
+        Iterator<Map.Entry<K, Integer>> iterator = ghosts.entrySet().iterator();
+        int weight = iterator.next().getValue();
+        iterator.remove();
+        return weight;
+    }
+
+    private void link(int queueType, Node<K, V> node) {
+        node.setQueueType(queueType);
+        if (queueType == T2) {
+            t2.addLast(node);
+            t2Weight += node.getWeight();
+        } else {
+            t1.addLast(node);
+            t1Weight += node.getWeight();
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.getQueueType() == T2) {
+            t2.remove(node);
+            t2Weight -= node.getWeight();
+        } else {
+            t1.remove(node);
+            t1Weight -= node.getWeight();
+        }
+    }
+
+}
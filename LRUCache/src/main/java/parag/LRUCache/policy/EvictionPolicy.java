@@ -0,0 +1,73 @@
+package parag.LRUCache.policy;
+
+import parag.LRUCache.lru.Node;
+
+/**
+ * Decides which in-memory entry is backed up on disk when the cache is full.
+ * <p>
+ * The cache calls every method while holding its lock, so implementations need not be thread safe. Policies keep their own order by
+ * linking the cache's {@link Node}s into {@link parag.LRUCache.lru.AccessOrderDeque}s and may tag a node with the queue it is in through
+ * {@link Node#setQueueType(int)}. Sizes of segments within a policy are measured in {@link Node#getWeight()}, which is 1 for every
+ * entry unless the cache was given a {@link parag.LRUCache.Weigher}.
+ */
+public interface EvictionPolicy<K, V> {
+
+    /**
+     * New entry added to the cache
+     * 
+     * @param node
+     */
+    void onInsert(Node<K, V> node);
+
+    /**
+     * Existing entry read or replaced
+     * 
+     * @param node
+     */
+    void onAccess(Node<K, V> node);
+
+    /**
+     * Value of an existing entry replaced, possibly changing its weight. Treated as an access by default
+     * 
+     * @param node
+     * @param oldWeight weight of the node before the update
+     */
+    default void onUpdate(Node<K, V> node, int oldWeight) {
+        onAccess(node);
+    }
+
+    /**
+     * Entry removed from the cache for any reason other than an eviction
+     * 
+     * @param node
+     */
+    void onRemove(Node<K, V> node);
+
+    /**
+     * Picks the entry to evict without unlinking it, so the policy is unchanged if the entry cannot leave memory
+     * 
+     * @return node to evict, null if the policy holds no entries
+     */
+    Node<K, V> victim();
+
+    /**
+     * Entry returned by {@link #victim()} left memory. Unlinks it and records whatever history the policy keeps of evicted entries
+     * 
+     * @param node
+     */
+    void onEvict(Node<K, V> node);
+
+    /**
+     * Picks the entry to evict and unlinks it from the policy
+     * 
+     * @return evicted node, null if the policy holds no entries
+     */
+    default Node<K, V> evict() {
+        Node<K, V> victim = victim();
+        if (victim != null) {
+            onEvict(victim);
+        }
+        return victim;
+    }
+
+}
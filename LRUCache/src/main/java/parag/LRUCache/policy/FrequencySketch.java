@@ -0,0 +1,102 @@
+package parag.LRUCache.policy;
+
+/**
+ * Count-Min sketch estimating how often a key was accessed, using four 4-bit counters per key packed into a long array.
+ * <p>
+ * Counters saturate at 15 and all of them are halved once the number of increments reaches ten times the cache capacity, so the
+ * estimate follows the recent popularity of a key instead of its all time count. Not thread safe.
+ */
+public final class FrequencySketch<K> {
+
+    private static final long[] SEED = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_FREQUENCY = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    /**
+     * Constructor
+     * 
+     * @param maximum capacity of the cache whose keys are counted
+     */
+    public FrequencySketch(int maximum) {
+        int length = 1;
+        while (length < maximum && length < (1 << 30)) {
+            length <<= 1;
+        }
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = (int) Math.min(10L * Math.max(1, maximum), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns estimated number of recent accesses of key, at most 15
+     * 
+     * @param key
+     * @return
+     */
+    public int frequency(K key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records one access of key
+     * 
+     * @param key
+     */
+    public void increment(K key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ages all counters by halving them
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size /= 2;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEED[i]) * SEED[i];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+}
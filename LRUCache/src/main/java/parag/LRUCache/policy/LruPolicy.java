@@ -0,0 +1,38 @@
+package parag.LRUCache.policy;
+
+import parag.LRUCache.lru.AccessOrderDeque;
+import parag.LRUCache.lru.Node;
+
+/**
+ * Least Recently Used. Evicts the entry which was not accessed for the longest time
+ */
+public class LruPolicy<K, V> implements EvictionPolicy<K, V> {
+
+    private final AccessOrderDeque<K, V> accessOrder = new AccessOrderDeque<>();
+
+    @Override
+    public void onInsert(Node<K, V> node) {
+        accessOrder.addLast(node);
+    }
+
+    @Override
+    public void onAccess(Node<K, V> node) {
+        accessOrder.moveToBack(node);
+    }
+
+    @Override
+    public void onRemove(Node<K, V> node) {
+        accessOrder.remove(node);
+    }
+
+    @Override
+    public Node<K, V> victim() {
+        return accessOrder.peekFirst();
+    }
+
+    @Override
+    public void onEvict(Node<K, V> node) {
+        accessOrder.remove(node);
+    }
+
+}
@@ -0,0 +1,108 @@
+package parag.LRUCache.policy;
+
+import parag.LRUCache.lru.AccessOrderDeque;
+import parag.LRUCache.lru.Node;
+
+/**
+ * Segmented LRU. New entries start in a probation segment and only move to the protected segment when they are hit again, so a scan of
+ * keys read once can only flush the probation segment and never the frequently used entries.
+ */
+public class SlruPolicy<K, V> implements EvictionPolicy<K, V> {
+
+    private static final int PROBATION = 0;
+    private static final int PROTECTED = 1;
+
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedSegment = new AccessOrderDeque<>();
+    private final long protectedMaximum;
+    private long protectedWeight;
+
+    /**
+     * Constructor. Protected segment takes 80% of the capacity
+     * 
+     * @param maximum capacity of the cache
+     */
+    public SlruPolicy(long maximum) {
+        this(maximum, 0.8);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maximum capacity of the cache
+     * @param protectedRatio share of the capacity reserved for entries hit at least twice
+     */
+    public SlruPolicy(long maximum, double protectedRatio) {
+        if (protectedRatio < 0 || protectedRatio >= 1) {
+            throw new IllegalArgumentException("protectedRatio must be in [0, 1)");
+        }
+        this.protectedMaximum = (long) (maximum * protectedRatio);
+    }
+
+    @Override
+    public void onInsert(Node<K, V> node) {
+        node.setQueueType(PROBATION);
+        probation.addLast(node);
+    }
+
+    @Override
+    public void onAccess(Node<K, V> node) {
+        if (node.getQueueType() == PROTECTED) {
+            protectedSegment.moveToBack(node);
+            return;
+        }
+        probation.remove(node);
+        node.setQueueType(PROTECTED);
+        protectedSegment.addLast(node);
+        protectedWeight += node.getWeight();
+        demoteProtected();
+    }
+
+    @Override
+    public void onUpdate(Node<K, V> node, int oldWeight) {
+        if (node.getQueueType() == PROTECTED) {
+            protectedWeight += node.getWeight() - oldWeight;
+        }
+        onAccess(node);
+        // A protected entry which grew may have pushed the segment over its share
+        demoteProtected();
+    }
+
+    @Override
+    public void onRemove(Node<K, V> node) {
+        unlink(node);
+    }
+
+    @Override
+    public Node<K, V> victim() {
+        Node<K, V> victim = probation.peekFirst();
+        return victim != null ? victim : protectedSegment.peekFirst();
+    }
+
+    @Override
+    public void onEvict(Node<K, V> node) {
+        unlink(node);
+    }
+
+    /**
+     * Demotes least recently used protected entries until the segment fits its share again
+     */
+    private void demoteProtected() {
+        while (protectedWeight > protectedMaximum) {
+            Node<K, V> demoted = protectedSegment.pollFirst();
+            protectedWeight -= demoted.getWeight();
+            demoted.setQueueType(PROBATION);
+            probation.addLast(demoted);
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.getQueueType() == PROTECTED) {
+            protectedSegment.remove(node);
+            protectedWeight -= node.getWeight();
+        } else {
+            probation.remove(node);
+        }
+    }
+
+}
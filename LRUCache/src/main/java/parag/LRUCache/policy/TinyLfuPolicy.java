@@ -0,0 +1,190 @@
+package parag.LRUCache.policy;
+
+import parag.LRUCache.lru.AccessOrderDeque;
+import parag.LRUCache.lru.Node;
+
+/**
+ * Window TinyLFU. New entries land in a small LRU window, entries leaving the window become candidates for the main segmented LRU and are
+ * only admitted if the {@link FrequencySketch} says they are used more often than the entry they would displace.
+ * <p>
+ * One-hit wonders therefore die in the window or at the admission check, and never push frequently used entries out of memory.
+ */
+public class TinyLfuPolicy<K, V> implements EvictionPolicy<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    // Caps the sketch at 8 MB, however large the capacity
+    private static final int MAXIMUM_SKETCH_ENTRIES = 1 << 20;
+
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedSegment = new AccessOrderDeque<>();
+    private final FrequencySketch<K> sketch;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private long windowWeight;
+    private long protectedWeight;
+
+    /** Last entry moved from the window into probation which has not yet faced the admission check */
+    private Node<K, V> candidate;
+
+    /**
+     * Constructor. Window takes 1% of the capacity, protected segment 80% of the rest
+     * 
+     * @param maximum capacity of the cache
+     */
+    public TinyLfuPolicy(long maximum) {
+        this(maximum, 0.01);
+    }
+
+    /**
+     * Constructor. The frequency sketch is sized as if every entry weighed 1, see {@link #TinyLfuPolicy(long, double, int)} for a weigher
+     * 
+     * @param maximum capacity of the cache
+     * @param windowRatio share of the capacity given to the admission window
+     */
+    public TinyLfuPolicy(long maximum, double windowRatio) {
+        this(maximum, windowRatio, (int) Math.min(maximum, MAXIMUM_SKETCH_ENTRIES));
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maximum capacity of the cache, e.g. a budget in bytes
+     * @param windowRatio share of the capacity given to the admission window
+     * @param expectedEntries number of entries the cache is expected to hold, sizes the frequency sketch up to 2^20 entries
+     */
+    public TinyLfuPolicy(long maximum, double windowRatio, int expectedEntries) {
+        if (maximum <= 0 || windowRatio <= 0 || windowRatio >= 1 || expectedEntries <= 0) {
+            throw new IllegalArgumentException("maximum and expectedEntries must be positive and windowRatio in (0, 1)");
+        }
+        this.windowMaximum = Math.max(1, (long) (maximum * windowRatio));
+        this.protectedMaximum = (long) ((maximum - windowMaximum) * 0.8);
+        this.sketch = new FrequencySketch<>(Math.min(expectedEntries, MAXIMUM_SKETCH_ENTRIES));
+    }
+
+    @Override
+    public void onInsert(Node<K, V> node) {
+        sketch.increment(node.getKey());
+        link(WINDOW, node);
+        shrinkWindow();
+    }
+
+    @Override
+    public void onAccess(Node<K, V> node) {
+        sketch.increment(node.getKey());
+        switch (node.getQueueType()) {
+        case WINDOW:
+            window.moveToBack(node);
+            break;
+        case PROBATION:
+            unlink(node);
+            link(PROTECTED, node);
+            demoteProtected();
+            break;
+        default:
+            protectedSegment.moveToBack(node);
+        }
+    }
+
+    @Override
+    public void onUpdate(Node<K, V> node, int oldWeight) {
+        if (node.getQueueType() == WINDOW) {
+            windowWeight += node.getWeight() - oldWeight;
+        } else if (node.getQueueType() == PROTECTED) {
+            protectedWeight += node.getWeight() - oldWeight;
+        }
+        onAccess(node);
+        // An entry which grew may have pushed the window or the protected segment over its share
+        shrinkWindow();
+        demoteProtected();
+    }
+
+    @Override
+    public void onRemove(Node<K, V> node) {
+        unlink(node);
+    }
+
+    @Override
+    public Node<K, V> victim() {
+        Node<K, V> victim = probation.peekFirst();
+        if (victim == null) {
+            victim = protectedSegment.peekFirst();
+        }
+        if (victim == null) {
+            return window.peekFirst();
+        }
+        if (candidate != null && candidate != victim && candidate.getQueueType() == PROBATION
+                && sketch.frequency(candidate.getKey()) <= sketch.frequency(victim.getKey())) {
+            // Admission check lost, the newcomer is evicted instead of the established entry
+            return candidate;
+        }
+        return victim;
+    }
+
+    @Override
+    public void onEvict(Node<K, V> node) {
+        // Whichever entry left, the candidate has faced its admission check
+        candidate = null;
+        unlink(node);
+    }
+
+    /**
+     * Moves least recently used window entries to probation until the window fits its share again, leaving at least one entry
+     */
+    private void shrinkWindow() {
+        while (windowWeight > windowMaximum && window.size() > 1) {
+            Node<K, V> overflow = window.peekFirst();
+            unlink(overflow);
+            link(PROBATION, overflow);
+            candidate = overflow;
+        }
+    }
+
+    /**
+     * Demotes least recently used protected entries until the segment fits its share again
+     */
+    private void demoteProtected() {
+        while (protectedWeight > protectedMaximum) {
+            Node<K, V> demoted = protectedSegment.peekFirst();
+            unlink(demoted);
+            link(PROBATION, demoted);
+        }
+    }
+
+    private void link(int queueType, Node<K, V> node) {
+        node.setQueueType(queueType);
+        switch (queueType) {
+        case WINDOW:
+            window.addLast(node);
+            windowWeight += node.getWeight();
+            break;
+        case PROBATION:
+            probation.addLast(node);
+            break;
+        default:
+            protectedSegment.addLast(node);
+            protectedWeight += node.getWeight();
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node == candidate) {
+            candidate = null;
+        }
+        switch (node.getQueueType()) {
+        case WINDOW:
+            window.remove(node);
+            windowWeight -= node.getWeight();
+            break;
+        case PROBATION:
+            probation.remove(node);
+            break;
+        default:
+            protectedSegment.remove(node);
+            protectedWeight -= node.getWeight();
+        }
+    }
+
+}
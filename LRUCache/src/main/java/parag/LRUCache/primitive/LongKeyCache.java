@@ -0,0 +1,315 @@
+package parag.LRUCache.primitive;
+
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+import parag.LRUCache.Cache;
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.stats.CacheStats;
+import parag.LRUCache.stats.StatsCounter;
+
+/**
+ * Thread Safe Disk Backed LRU Cache specialized for primitive long keys.
+ * <p>
+ * Entries live in parallel arrays sized for the maximum number of entries: the keys in a long[], the values in an Object[] and the
+ * recency links as int indexes into the same arrays, so there is no {@link parag.LRUCache.lru.Node} per entry and no boxed key. Keys are
+ * found through an open addressing table of entry indexes with linear probing, kept at most half full. Once the cache is full the least
+ * recently used entry is spilled and its index reused by the new key. A {@link #get(long)} or {@link #put(long, Object)} of a key held in
+ * memory therefore allocates nothing.
+ * <p>
+ * The key is only boxed when it leaves memory: on a spill and on a lookup of the disk tier after a memory miss. The disk tier then builds
+ * the file name of the key as for any other key, which costs little next to the file access it is built for. Put a
+ * {@link parag.LRUCache.diskBacked.BloomFilteredDiskCache} in front of the disk tier to keep true misses off the disk as well.
+ * <p>
+ * Every operation holds one lock, victims are spilled while it is held. A victim is spilled before its entry is reused, so a failed
+ * write leaves it in memory and fails the put or get which needed the room instead.
+ */
+public class LongKeyCache<V> implements Cache<Long, V> {
+
+    private static final int NIL = -1;
+    // Marks an empty table slot, entry indexes are stored plus one
+    private static final int EMPTY = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final int maxSize;
+    private final long[] keys;
+    private final Object[] values;
+    private final int[] prev;
+    private final int[] next;
+    private final int[] table;
+    private final int mask;
+    private int size;
+    // Least and most recently used entries
+    private int head = NIL;
+    private int tail = NIL;
+
+    private final DiskBackend<Long, V> diskCache;
+    private final StatsCounter statsCounter;
+    // Copied from the counter so the disabled one costs no clock reads
+    private final boolean recordStats;
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize maximum number of entries kept in memory
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     */
+    public LongKeyCache(int maxSize, DiskBackend<Long, V> diskCache) {
+        this(maxSize, diskCache, StatsCounter.disabled());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maxSize maximum number of entries kept in memory
+     * @param diskCache disk tier for evicted entries, null for a memory only cache
+     * @param statsCounter records hits, misses and evictions, {@link StatsCounter#disabled()} to record nothing
+     */
+    public LongKeyCache(int maxSize, DiskBackend<Long, V> diskCache, StatsCounter statsCounter) {
+        if (maxSize <= 0 || maxSize > 1 << 28) {
+            throw new IllegalArgumentException("maxSize must be between 1 and 2^28");
+        }
+        this.maxSize = maxSize;
+        this.keys = new long[maxSize];
+        this.values = new Object[maxSize];
+        this.prev = new int[maxSize];
+        this.next = new int[maxSize];
+        int tableSize = Integer.highestOneBit(maxSize) << 2;
+        this.table = new int[tableSize];
+        this.mask = tableSize - 1;
+        this.diskCache = diskCache;
+        this.statsCounter = statsCounter;
+        this.recordStats = statsCounter.isEnabled();
+    }
+
+    /**
+     * Returns the value of key, looking it up on disk and promoting it to memory after a memory miss
+     * 
+     * @param key
+     * @return
+     * @throws RetrievalException
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) throws RetrievalException {
+        lock.lock();
+        try {
+            int entry = table[find(key)] - 1;
+            if (entry != NIL) {
+                moveToTail(entry);
+                statsCounter.recordHits(1);
+                return (V) values[entry];
+            }
+            statsCounter.recordMisses(1);
+            if (diskCache == null) {
+                return null;
+            }
+            // If key not found in memory then check on disk. Return null if not present
+            Long boxed = key;
+            V diskValue = diskCache.get(boxed);
+            if (diskValue == null) {
+                statsCounter.recordDiskMisses(1);
+                return null;
+            }
+            statsCounter.recordDiskHits(1);
+            insert(key, diskValue);
+            diskCache.remove(boxed);
+            return diskValue;
+        } catch (DeserializationException | SerializationException e) {
+            throw new RetrievalException("Error while GET operation", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores the value, spilling the least recently used entry to disk if the cache is full
+     * 
+     * @param key
+     * @param value
+     * @throws StoreException
+     */
+    public void put(long key, V value) throws StoreException {
+        Objects.requireNonNull(value, "value");
+        lock.lock();
+        try {
+            int entry = table[find(key)] - 1;
+            if (entry != NIL) {
+                values[entry] = value;
+                moveToTail(entry);
+                return;
+            }
+            insert(key, value);
+        } catch (SerializationException e) {
+            throw new StoreException("Error while PUT operation", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#get(java.lang.Object)
+     */
+    @Override
+    public V get(Long key) throws RetrievalException {
+        return key == null ? null : get(key.longValue());
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(Long key, V value) throws StoreException {
+        if (key == null) {
+            return;
+        }
+        put(key.longValue(), value);
+    }
+
+    /**
+     * Returns true if key is held in memory, without changing its recency
+     * 
+     * @param key
+     * @return
+     */
+    public boolean containsKey(long key) {
+        lock.lock();
+        try {
+            return table[find(key)] != EMPTY;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns number of entries held in memory
+     * 
+     * @return
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics, all zero unless a {@link StatsCounter} was given
+     * 
+     * @return
+     */
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Adds a key which is not in memory, reusing the least recently used entry if the cache is full. The victim is spilled before its
+     * entry is reused, a failed write leaves the cache untouched. Caller must hold the lock
+     */
+    @SuppressWarnings("unchecked")
+    private void insert(long key, V value) throws SerializationException {
+        int entry;
+        if (size == maxSize) {
+            entry = head;
+            long victimKey = keys[entry];
+            if (diskCache != null) {
+                long start = recordStats ? System.nanoTime() : 0L;
+                diskCache.put(victimKey, (V) values[entry]);
+                if (recordStats) {
+                    statsCounter.recordSpill(System.nanoTime() - start);
+                }
+            }
+            unlink(entry);
+            deleteSlot(find(victimKey));
+            statsCounter.recordEviction(1);
+        } else {
+            entry = size++;
+        }
+        keys[entry] = key;
+        values[entry] = value;
+        // Deleting the victim may have shifted the probe sequence of key, so the slot is looked up again
+        table[find(key)] = entry + 1;
+        linkTail(entry);
+    }
+
+    /**
+     * Returns the slot holding key, or the empty slot ending its probe sequence
+     */
+    private int find(long key) {
+        int slot = slotOf(key);
+        while (true) {
+            int stored = table[slot];
+            if (stored == EMPTY || keys[stored - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Empties the slot and moves later entries of the same probe run back into the hole, so lookups never need tombstones
+     */
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int current = slot;
+        while (true) {
+            current = (current + 1) & mask;
+            int stored = table[current];
+            if (stored == EMPTY) {
+                break;
+            }
+            int home = slotOf(keys[stored - 1]);
+            // Entry may only move back if the hole is not before its home slot
+            if (((current - home) & mask) >= ((current - hole) & mask)) {
+                table[hole] = stored;
+                hole = current;
+            }
+        }
+        table[hole] = EMPTY;
+    }
+
+    private int slotOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void moveToTail(int entry) {
+        if (entry != tail) {
+            unlink(entry);
+            linkTail(entry);
+        }
+    }
+
+    private void linkTail(int entry) {
+        prev[entry] = tail;
+        next[entry] = NIL;
+        if (tail == NIL) {
+            head = entry;
+        } else {
+            next[tail] = entry;
+        }
+        tail = entry;
+    }
+
+    private void unlink(int entry) {
+        int before = prev[entry];
+        int after = next[entry];
+        if (before == NIL) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NIL) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package parag.LRUCache.serializer;
+
+import java.io.DataOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable byte array output reused across serializations by the same thread, so spilling a value does not allocate a new stream and
+ * buffer every time.
+ */
+public final class BufferOutput extends OutputStream {
+
+    private static final int INITIAL_SIZE = 4096;
+    // Buffers grown beyond this are dropped after use instead of being kept by the thread
+    private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<BufferOutput> CACHE = new ThreadLocal<BufferOutput>() {
+        @Override
+        protected BufferOutput initialValue() {
+            return new BufferOutput(INITIAL_SIZE);
+        }
+    };
+
+    private byte[] buffer;
+    private int count;
+    private final DataOutputStream dataOutput = new DataOutputStream(this);
+
+    private BufferOutput(int size) {
+        this.buffer = new byte[size];
+    }
+
+    /**
+     * Returns the empty buffer of the calling thread. Its content is only valid until the next call on the same thread
+     * 
+     * @return
+     */
+    public static BufferOutput get() {
+        BufferOutput output = CACHE.get();
+        if (output.buffer.length > MAX_RETAINED_SIZE) {
+            output.buffer = new byte[INITIAL_SIZE];
+        }
+        output.count = 0;
+        return output;
+    }
+
+    /**
+     * Returns DataOutputStream writing into this buffer
+     * 
+     * @return
+     */
+    public DataOutputStream dataOutput() {
+        return dataOutput;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        ensureCapacity(count + length);
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    /**
+     * Overwrites 4 bytes at position with value, used to fill in a length once the payload is written
+     * 
+     * @param position
+     * @param value
+     */
+    public void putInt(int position, int value) {
+        buffer[position] = (byte) (value >>> 24);
+        buffer[position + 1] = (byte) (value >>> 16);
+        buffer[position + 2] = (byte) (value >>> 8);
+        buffer[position + 3] = (byte) value;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns view of the written bytes without copying them
+     * 
+     * @return
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buffer, 0, count);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length << 1));
+        }
+    }
+
+}
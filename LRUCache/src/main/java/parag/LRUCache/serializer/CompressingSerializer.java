@@ -0,0 +1,207 @@
+package parag.LRUCache.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Serializer decorator which deflates each record on its own.
+ * <p>
+ * Every record starts with a flag byte. Records smaller than the threshold, and records which deflate does not make smaller, are stored
+ * raw after the flag; the others are stored as the flag, the raw length and the deflated bytes. Raw and compressed records therefore sit
+ * side by side and the threshold or level can be changed without rewriting the disk tier. Records written by a serializer without this
+ * decorator carry no flag, a disk tier has to be written with it from the start.
+ * <p>
+ * Each thread keeps its own {@link Deflater}, {@link Inflater} and buffers, so compressing a record allocates nothing once they have
+ * grown to the size of the largest record.
+ */
+public final class CompressingSerializer<T> implements Serializer<T> {
+
+    static final byte RAW = 0;
+    static final byte DEFLATED = 1;
+
+    // Buffers grown beyond this are dropped after use instead of being kept by the thread
+    private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+    private final Serializer<T> serializer;
+    private final int level;
+    private final int threshold;
+    private final ThreadLocal<Codec> codecs;
+
+    /**
+     * Constructor
+     * 
+     * @param serializer codec of the values
+     * @param level deflate level from 1, fastest, to 9, smallest
+     * @param threshold records with fewer bytes are stored raw
+     */
+    public CompressingSerializer(Serializer<T> serializer, int level, int threshold) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION || threshold < 0) {
+            throw new IllegalArgumentException("level must be between 1 and 9 and threshold not negative");
+        }
+        this.serializer = serializer;
+        this.level = level;
+        this.threshold = threshold;
+        this.codecs = ThreadLocal.withInitial(() -> new Codec(this.level));
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.serializer.Serializer#write(java.lang.Object, java.io.DataOutputStream)
+     */
+    @Override
+    public void write(T value, DataOutputStream out) throws IOException {
+        Codec codec = codecs.get();
+        try {
+            codec.raw.reset();
+            serializer.write(value, codec.rawOutput);
+            codec.rawOutput.flush();
+            int rawLength = codec.raw.size();
+            byte[] raw = codec.raw.buffer();
+            if (rawLength >= threshold) {
+                int deflatedLength = codec.deflate(raw, rawLength);
+                // Gives up on incompressible records, e.g. already compressed images
+                if (deflatedLength > 0) {
+                    out.writeByte(DEFLATED);
+                    out.writeInt(rawLength);
+                    out.write(codec.deflated, 0, deflatedLength);
+                    return;
+                }
+            }
+            out.writeByte(RAW);
+            out.write(raw, 0, rawLength);
+        } finally {
+            codec.trim();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.serializer.Serializer#read(java.nio.ByteBuffer)
+     */
+    @Override
+    public T read(ByteBuffer in) throws IOException {
+        byte flag = in.get();
+        if (flag == RAW) {
+            return serializer.read(in);
+        }
+        if (flag != DEFLATED) {
+            throw new IOException("Unknown record flag " + flag);
+        }
+        int rawLength = in.getInt();
+        Codec codec = codecs.get();
+        try {
+            return serializer.read(codec.inflate(in, rawLength));
+        } finally {
+            codec.trim();
+        }
+    }
+
+    /**
+     * Per thread compression state
+     */
+    private static final class Codec {
+
+        private final ExposedOutput raw = new ExposedOutput();
+        private final DataOutputStream rawOutput = new DataOutputStream(raw);
+        private final Deflater deflater;
+        private final Inflater inflater = new Inflater();
+        private byte[] deflated = new byte[0];
+        private byte[] inflated = new byte[0];
+        private byte[] compressedInput = new byte[0];
+
+        private Codec(int level) {
+            this.deflater = new Deflater(level);
+        }
+
+        /**
+         * Deflates the record into {@link #deflated}
+         * 
+         * @return deflated length, 0 if deflating does not save space
+         */
+        private int deflate(byte[] input, int length) {
+            if (deflated.length < length) {
+                deflated = new byte[length];
+            }
+            deflater.reset();
+            deflater.setInput(input, 0, length);
+            deflater.finish();
+            int deflatedLength = 0;
+            // Header of a deflated record is 4 bytes longer than that of a raw one
+            int limit = length - 4;
+            while (!deflater.finished() && deflatedLength < limit) {
+                deflatedLength += deflater.deflate(deflated, deflatedLength, limit - deflatedLength);
+            }
+            return deflater.finished() ? deflatedLength : 0;
+        }
+
+        private ByteBuffer inflate(ByteBuffer in, int rawLength) throws IOException {
+            if (inflated.length < rawLength) {
+                inflated = new byte[rawLength];
+            }
+            int compressedLength = in.remaining();
+            inflater.reset();
+            if (in.hasArray()) {
+                inflater.setInput(in.array(), in.arrayOffset() + in.position(), compressedLength);
+            } else {
+                if (compressedInput.length < compressedLength) {
+                    compressedInput = new byte[compressedLength];
+                }
+                in.duplicate().get(compressedInput, 0, compressedLength);
+                inflater.setInput(compressedInput, 0, compressedLength);
+            }
+            int length = 0;
+            try {
+                while (length < rawLength && !inflater.finished()) {
+                    int inflatedNow = inflater.inflate(inflated, length, rawLength - length);
+                    if (inflatedNow == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += inflatedNow;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt compressed record", e);
+            }
+            if (length != rawLength) {
+                throw new IOException("Compressed record truncated, expected " + rawLength + " bytes but got " + length);
+            }
+            in.position(in.position() + compressedLength - inflater.getRemaining());
+            return ByteBuffer.wrap(inflated, 0, rawLength);
+        }
+
+        private void trim() {
+            if (deflated.length > MAX_RETAINED_SIZE) {
+                deflated = new byte[0];
+            }
+            if (inflated.length > MAX_RETAINED_SIZE) {
+                inflated = new byte[0];
+            }
+            if (compressedInput.length > MAX_RETAINED_SIZE) {
+                compressedInput = new byte[0];
+            }
+            raw.trim();
+        }
+
+    }
+
+    /**
+     * ByteArrayOutputStream whose buffer can be read without copying
+     */
+    private static final class ExposedOutput extends ByteArrayOutputStream {
+
+        private byte[] buffer() {
+            return buf;
+        }
+
+        private void trim() {
+            if (buf.length > MAX_RETAINED_SIZE) {
+                buf = new byte[32];
+                count = 0;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,33 @@
+package parag.LRUCache.serializer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts values to and from the bytes stored in the disk tier.
+ * <p>
+ * Implementations must be thread safe. {@link #read(ByteBuffer)} may be handed a view of a memory mapped file or of a reused buffer, so it
+ * must copy whatever it keeps instead of holding on to the buffer.
+ */
+public interface Serializer<T> {
+
+    /**
+     * Writes value to out
+     * 
+     * @param value
+     * @param out
+     * @throws IOException
+     */
+    void write(T value, DataOutputStream out) throws IOException;
+
+    /**
+     * Reads value from the remaining bytes of in
+     * 
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    T read(ByteBuffer in) throws IOException;
+
+}
@@ -0,0 +1,165 @@
+package parag.LRUCache.serializer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Built-in {@link Serializer}s. The fixed width codecs write no type information at all, unlike Java serialization which writes a class
+ * descriptor for every value.
+ */
+public final class Serializers {
+
+    public static final Serializer<String> STRING = new StringSerializer();
+    public static final Serializer<byte[]> BYTE_ARRAY = new ByteArraySerializer();
+    public static final Serializer<Integer> INTEGER = new IntegerSerializer();
+    public static final Serializer<Long> LONG = new LongSerializer();
+    public static final Serializer<Double> DOUBLE = new DoubleSerializer();
+
+    private static final Serializer<Object> JAVA = new JavaSerializer();
+    private static final int DEFAULT_COMPRESSION_LEVEL = 1;
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 256;
+
+    private Serializers() {
+    }
+
+    /**
+     * Returns serializer using {@link ObjectOutputStream}, for values without a dedicated codec. Values must be
+     * {@link java.io.Serializable}
+     * 
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Serializer<T> java() {
+        return (Serializer<T>) JAVA;
+    }
+
+    /**
+     * Returns serializer which deflates records of 256 bytes or more at the fastest level, see {@link CompressingSerializer}
+     * 
+     * @param serializer codec of the values
+     * @return
+     */
+    public static <T> Serializer<T> compressed(Serializer<T> serializer) {
+        return new CompressingSerializer<>(serializer, DEFAULT_COMPRESSION_LEVEL, DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    /**
+     * Returns serializer which deflates records, see {@link CompressingSerializer}
+     * 
+     * @param serializer codec of the values
+     * @param level deflate level from 1, fastest, to 9, smallest
+     * @param threshold records with fewer bytes are stored raw
+     * @return
+     */
+    public static <T> Serializer<T> compressed(Serializer<T> serializer, int level, int threshold) {
+        return new CompressingSerializer<>(serializer, level, threshold);
+    }
+
+    private static final class StringSerializer implements Serializer<String> {
+
+        @Override
+        public void write(String value, DataOutputStream out) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        @Override
+        public String read(ByteBuffer in) throws IOException {
+            int length = in.getInt();
+            if (in.hasArray()) {
+                String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+                in.position(in.position() + length);
+                return value;
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+    }
+
+    private static final class ByteArraySerializer implements Serializer<byte[]> {
+
+        @Override
+        public void write(byte[] value, DataOutputStream out) throws IOException {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+
+        @Override
+        public byte[] read(ByteBuffer in) throws IOException {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            return bytes;
+        }
+
+    }
+
+    private static final class IntegerSerializer implements Serializer<Integer> {
+
+        @Override
+        public void write(Integer value, DataOutputStream out) throws IOException {
+            out.writeInt(value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer in) {
+            return in.getInt();
+        }
+
+    }
+
+    private static final class LongSerializer implements Serializer<Long> {
+
+        @Override
+        public void write(Long value, DataOutputStream out) throws IOException {
+            out.writeLong(value);
+        }
+
+        @Override
+        public Long read(ByteBuffer in) {
+            return in.getLong();
+        }
+
+    }
+
+    private static final class DoubleSerializer implements Serializer<Double> {
+
+        @Override
+        public void write(Double value, DataOutputStream out) throws IOException {
+            out.writeDouble(value);
+        }
+
+        @Override
+        public Double read(ByteBuffer in) {
+            return in.getDouble();
+        }
+
+    }
+
+    private static final class JavaSerializer implements Serializer<Object> {
+
+        @Override
+        public void write(Object value, DataOutputStream out) throws IOException {
+            ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(value);
+            oos.flush();
+        }
+
+        @Override
+        public Object read(ByteBuffer in) throws IOException {
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteBufferInputStream(in))) {
+                return ois.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Cannot deserialize value", e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,106 @@
+package parag.LRUCache.simulator;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import parag.LRUCache.lru.Node;
+import parag.LRUCache.policy.EvictionPolicy;
+
+/**
+ * Single threaded model of a disk backed cache, used to replay an access trace without storing any values.
+ * <p>
+ * The memory tier drives an {@link EvictionPolicy} exactly like {@link parag.LRUCache.impl.LinkedLRUCache} does: a hit is an access, a
+ * miss inserts the key and the policy's victims are spilled to the disk tier. The disk tier only remembers which keys it holds. A
+ * memory miss found there counts as a disk hit and promotes the key back into memory. A bounded disk tier forgets the keys written
+ * longest ago, like a bounded {@link parag.LRUCache.diskBacked.DiskCache}.
+ */
+public class CacheSimulator<K> {
+
+    private final String policyName;
+    private final long maximumSize;
+    private final long diskSize;
+    private final EvictionPolicy<K, Object> policy;
+    private final Map<K, Node<K, Object>> memory = new HashMap<>();
+    // Keys in write order, the value is unused
+    private final LinkedHashMap<K, Boolean> disk = new LinkedHashMap<>();
+
+    private long requests;
+    private long hits;
+    private long diskHits;
+    private long evictions;
+
+    /**
+     * Constructor
+     * 
+     * @param policyName name the results are reported under
+     * @param policy eviction policy of the memory tier, sized for maximumSize
+     * @param maximumSize number of entries the memory tier holds
+     * @param diskSize number of entries the disk tier holds, 0 for a memory only cache, Long.MAX_VALUE for an unbounded disk tier
+     */
+    public CacheSimulator(String policyName, EvictionPolicy<K, Object> policy, long maximumSize, long diskSize) {
+        if (maximumSize <= 0 || diskSize < 0) {
+            throw new IllegalArgumentException("maximumSize must be positive and diskSize not negative");
+        }
+        this.policyName = policyName;
+        this.policy = policy;
+        this.maximumSize = maximumSize;
+        this.diskSize = diskSize;
+    }
+
+    /**
+     * Replays one request
+     * 
+     * @param key
+     * @return true on a memory hit
+     */
+    public boolean access(K key) {
+        requests++;
+        Node<K, Object> node = memory.get(key);
+        if (node != null) {
+            hits++;
+            policy.onAccess(node);
+            return true;
+        }
+        if (disk.remove(key) != null) {
+            diskHits++;
+        }
+        node = new Node<>(key, null);
+        memory.put(key, node);
+        policy.onInsert(node);
+        while (memory.size() > maximumSize) {
+            Node<K, Object> victim = policy.evict();
+            if (victim == null) {
+                break;
+            }
+            victim.retire();
+            memory.remove(victim.getKey());
+            evictions++;
+            spill(victim.getKey());
+        }
+        return false;
+    }
+
+    /**
+     * Returns the counts so far
+     * 
+     * @return
+     */
+    public SimulationResult result() {
+        return new SimulationResult(policyName, maximumSize, diskSize, requests, hits, diskHits, evictions);
+    }
+
+    private void spill(K key) {
+        if (diskSize == 0) {
+            return;
+        }
+        disk.put(key, Boolean.TRUE);
+        if (disk.size() > diskSize) {
+            Iterator<K> oldest = disk.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package parag.LRUCache.simulator;
+
+import java.util.Locale;
+
+/**
+ * Outcome of replaying a trace against one policy at one size
+ */
+public final class SimulationResult {
+
+    private final String policy;
+    private final long maximumSize;
+    private final long diskSize;
+    private final long requests;
+    private final long hits;
+    private final long diskHits;
+    private final long evictions;
+
+    /**
+     * Constructor
+     * 
+     * @param policy
+     * @param maximumSize
+     * @param diskSize
+     * @param requests
+     * @param hits memory hits
+     * @param diskHits memory misses found on disk
+     * @param evictions
+     */
+    public SimulationResult(String policy, long maximumSize, long diskSize, long requests, long hits, long diskHits, long evictions) {
+        this.policy = policy;
+        this.maximumSize = maximumSize;
+        this.diskSize = diskSize;
+        this.requests = requests;
+        this.hits = hits;
+        this.diskHits = diskHits;
+        this.evictions = evictions;
+    }
+
+    public String policy() {
+        return policy;
+    }
+
+    public long maximumSize() {
+        return maximumSize;
+    }
+
+    public long diskSize() {
+        return diskSize;
+    }
+
+    public long requests() {
+        return requests;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long diskHits() {
+        return diskHits;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns share of the requests served by the memory tier
+     * 
+     * @return
+     */
+    public double hitRate() {
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    /**
+     * Returns share of the requests served by either tier
+     * 
+     * @return
+     */
+    public double combinedHitRate() {
+        return requests == 0 ? 0.0 : (double) (hits + diskHits) / requests;
+    }
+
+    /**
+     * Returns the header of {@link #toCsv()}
+     * 
+     * @return
+     */
+    public static String csvHeader() {
+        return "policy,maxSize,diskSize,requests,hits,diskHits,evictions,hitRate,combinedHitRate";
+    }
+
+    public String toCsv() {
+        return policy + "," + maximumSize + "," + diskSize + "," + requests + "," + hits + "," + diskHits + "," + evictions + ","
+                + String.format(Locale.ROOT, "%.4f", hitRate()) + "," + String.format(Locale.ROOT, "%.4f", combinedHitRate());
+    }
+
+    @Override
+    public String toString() {
+        return toCsv();
+    }
+
+}
@@ -0,0 +1,203 @@
+package parag.LRUCache.simulator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongFunction;
+import java.util.zip.GZIPInputStream;
+
+import parag.LRUCache.policy.ArcPolicy;
+import parag.LRUCache.policy.EvictionPolicy;
+import parag.LRUCache.policy.LruPolicy;
+import parag.LRUCache.policy.SlruPolicy;
+import parag.LRUCache.policy.TinyLfuPolicy;
+
+/**
+ * Replays a key access trace against eviction policies at a range of cache sizes and reports the hit rate of each combination.
+ * <p>
+ * The trace is read one line at a time and every simulated cache sees each request before the next line is read, so a trace of any
+ * length is replayed in a single pass with memory proportional to the largest cache. A line holds one request: its first token,
+ * separated by whitespace or a comma, is the key and anything after it such as a timestamp is ignored. Blank lines and lines starting
+ * with {@code #} are skipped. A file ending in {@code .gz} is decompressed on the fly.
+ * <p>
+ * {@code java -cp LRUCache.jar parag.LRUCache.simulator.Simulator trace.gz lru,tinylfu 1000,2000,4000 [diskSize]} prints one CSV line per
+ * policy and size. Sizes may also be given as a doubling range, {@code 1000..64000}.
+ */
+public class Simulator {
+
+    private static final Map<String, LongFunction<EvictionPolicy<String, Object>>> POLICIES = new LinkedHashMap<>();
+
+    static {
+        POLICIES.put("lru", maximum -> new LruPolicy<String, Object>());
+        POLICIES.put("slru", SlruPolicy::new);
+        POLICIES.put("tinylfu", TinyLfuPolicy::new);
+        POLICIES.put("arc", ArcPolicy::new);
+    }
+
+    private final List<CacheSimulator<String>> caches = new ArrayList<>();
+
+    /**
+     * Constructor. Simulates every policy at every size
+     * 
+     * @param policies names of the policies, see {@link #policyNames()}
+     * @param sizes sizes of the memory tier
+     * @param diskSize size of the disk tier, 0 for a memory only cache
+     */
+    public Simulator(List<String> policies, long[] sizes, long diskSize) {
+        for (String policy : policies) {
+            LongFunction<EvictionPolicy<String, Object>> factory = POLICIES.get(policy);
+            if (factory == null) {
+                throw new IllegalArgumentException("Unknown policy " + policy + ", expected one of " + POLICIES.keySet());
+            }
+            for (long size : sizes) {
+                caches.add(new CacheSimulator<>(policy, factory.apply(size), size, diskSize));
+            }
+        }
+    }
+
+    /**
+     * Returns names of the policies which can be simulated
+     * 
+     * @return
+     */
+    public static List<String> policyNames() {
+        return new ArrayList<>(POLICIES.keySet());
+    }
+
+    /**
+     * Replays every request of the trace
+     * 
+     * @param trace
+     * @return number of requests replayed
+     * @throws IOException
+     */
+    public long replay(Reader trace) throws IOException {
+        BufferedReader reader = trace instanceof BufferedReader ? (BufferedReader) trace : new BufferedReader(trace);
+        long requests = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String key = keyOf(line);
+            if (key != null) {
+                for (CacheSimulator<String> cache : caches) {
+                    cache.access(key);
+                }
+                requests++;
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * Replays every request of a trace file, decompressing it if its name ends in .gz
+     * 
+     * @param trace
+     * @return number of requests replayed
+     * @throws IOException
+     */
+    public long replay(Path trace) throws IOException {
+        InputStream in = Files.newInputStream(trace);
+        if (trace.toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        try (Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+            return replay(reader);
+        }
+    }
+
+    /**
+     * Returns the results ordered by policy, then size
+     * 
+     * @return
+     */
+    public List<SimulationResult> results() {
+        List<SimulationResult> results = new ArrayList<>(caches.size());
+        for (CacheSimulator<String> cache : caches) {
+            results.add(cache.result());
+        }
+        return results;
+    }
+
+    /**
+     * Parses sizes given as a comma separated list or as a doubling range, e.g. 1000..64000
+     * 
+     * @param sizes
+     * @return
+     */
+    public static long[] parseSizes(String sizes) {
+        int range = sizes.indexOf("..");
+        if (range >= 0) {
+            long from = Long.parseLong(sizes.substring(0, range).trim());
+            long to = Long.parseLong(sizes.substring(range + 2).trim());
+            if (from <= 0 || to < from) {
+                throw new IllegalArgumentException("Invalid size range " + sizes);
+            }
+            List<Long> values = new ArrayList<>();
+            for (long size = from; size <= to; size <<= 1) {
+                values.add(size);
+            }
+            return values.stream().mapToLong(Long::longValue).toArray();
+        }
+        String[] parts = sizes.split(",");
+        long[] values = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Long.parseLong(parts[i].trim());
+        }
+        return values;
+    }
+
+    /**
+     * Returns key of a trace line, null if the line holds no request
+     * 
+     * @param line
+     * @return
+     */
+    static String keyOf(String line) {
+        int start = 0;
+        int length = line.length();
+        while (start < length && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        if (start == length || line.charAt(start) == '#') {
+            return null;
+        }
+        int end = start;
+        while (end < length && line.charAt(end) != ',' && !Character.isWhitespace(line.charAt(end))) {
+            end++;
+        }
+        return end == start ? null : line.substring(start, end);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: Simulator <trace file> <policies, e.g. lru,tinylfu> <sizes, e.g. 1000,2000 or 1000..64000> "
+                    + "[disk size]");
+            System.err.println("Policies: " + POLICIES.keySet());
+            System.exit(1);
+        }
+        List<String> policies = new ArrayList<>();
+        for (String policy : args[1].split(",")) {
+            policies.add(policy.trim().toLowerCase(Locale.ROOT));
+        }
+        long diskSize = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        Simulator simulator = new Simulator(policies, parseSizes(args[2]), diskSize);
+        long start = System.nanoTime();
+        long requests = simulator.replay(Paths.get(args[0]));
+        System.err.printf("Replayed %d requests in %d ms%n", requests, (System.nanoTime() - start) / 1_000_000);
+        System.out.println(SimulationResult.csvHeader());
+        for (SimulationResult result : simulator.results()) {
+            System.out.println(result.toCsv());
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+package parag.LRUCache.stats;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registers the statistics of caches with the platform MBean server, under {@code parag.LRUCache:type=CacheStats,name=<name>}
+ */
+public final class CacheMXBeans {
+
+    private static final String DOMAIN = "parag.LRUCache";
+
+    private CacheMXBeans() {
+    }
+
+    /**
+     * Registers the statistics of a cache, e.g. {@code register("images", cache::stats, cache::backlog)}
+     * 
+     * @param name name of the cache, unique within the JVM
+     * @param stats supplies a snapshot each time an attribute is read
+     * @param backlog supplies the number of queued background operations
+     * @return name the bean is registered under
+     * @throws JMException if a bean is already registered under name
+     */
+    public static ObjectName register(String name, Supplier<CacheStats> stats, LongSupplier backlog) throws JMException {
+        ObjectName objectName = objectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new StatsBean(stats, backlog), objectName);
+        return objectName;
+    }
+
+    /**
+     * Registers the statistics of a cache which does no background work
+     * 
+     * @param name name of the cache, unique within the JVM
+     * @param stats supplies a snapshot each time an attribute is read
+     * @return name the bean is registered under
+     * @throws JMException if a bean is already registered under name
+     */
+    public static ObjectName register(String name, Supplier<CacheStats> stats) throws JMException {
+        return register(name, stats, () -> 0);
+    }
+
+    /**
+     * Unregisters the statistics of a cache, does nothing if they are not registered
+     * 
+     * @param name
+     * @throws JMException
+     */
+    public static void unregister(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = objectName(name);
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    public static ObjectName objectName(String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=CacheStats,name=" + ObjectName.quote(name));
+    }
+
+    private static final class StatsBean implements CacheStatsMXBean {
+
+        private final Supplier<CacheStats> stats;
+        private final LongSupplier backlog;
+
+        private StatsBean(Supplier<CacheStats> stats, LongSupplier backlog) {
+            this.stats = stats;
+            this.backlog = backlog;
+        }
+
+        @Override
+        public long getHitCount() {
+            return stats.get().hitCount();
+        }
+
+        @Override
+        public long getMissCount() {
+            return stats.get().missCount();
+        }
+
+        @Override
+        public double getHitRate() {
+            return stats.get().hitRate();
+        }
+
+        @Override
+        public long getDiskHitCount() {
+            return stats.get().diskHitCount();
+        }
+
+        @Override
+        public long getDiskMissCount() {
+            return stats.get().diskMissCount();
+        }
+
+        @Override
+        public double getDiskHitRate() {
+            return stats.get().diskHitRate();
+        }
+
+        @Override
+        public long getLoadSuccessCount() {
+            return stats.get().loadSuccessCount();
+        }
+
+        @Override
+        public long getLoadFailureCount() {
+            return stats.get().loadFailureCount();
+        }
+
+        @Override
+        public double getAverageLoadPenalty() {
+            return stats.get().averageLoadPenalty();
+        }
+
+        @Override
+        public long getLoadTime99thPercentile() {
+            return stats.get().loadTimePercentile(0.99);
+        }
+
+        @Override
+        public long getEvictionCount() {
+            return stats.get().evictionCount();
+        }
+
+        @Override
+        public long getEvictionWeight() {
+            return stats.get().evictionWeight();
+        }
+
+        @Override
+        public long getSpillCount() {
+            return stats.get().spillCount();
+        }
+
+        @Override
+        public double getAverageSpillTime() {
+            return stats.get().averageSpillTime();
+        }
+
+        @Override
+        public long getSpillTime99thPercentile() {
+            return stats.get().spillTimePercentile(0.99);
+        }
+
+        @Override
+        public long getBytesWritten() {
+            return stats.get().bytesWritten();
+        }
+
+        @Override
+        public long getBytesRead() {
+            return stats.get().bytesRead();
+        }
+
+        @Override
+        public long getBacklog() {
+            return backlog.getAsLong();
+        }
+
+    }
+
+}
@@ -0,0 +1,258 @@
+package parag.LRUCache.stats;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of the statistics recorded by a {@link StatsCounter}.
+ * <p>
+ * A request is a hit if the memory tier held the entry and a miss otherwise. A miss on a cache with a disk tier is then either a disk hit
+ * or a disk miss. Times are in nanoseconds.
+ */
+public final class CacheStats {
+
+    private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            new long[LatencyHistogram.BUCKETS], new long[LatencyHistogram.BUCKETS]);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long diskHitCount;
+    private final long diskMissCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final long evictionCount;
+    private final long evictionWeight;
+    private final long spillCount;
+    private final long totalSpillTime;
+    private final long bytesWritten;
+    private final long bytesRead;
+    private final long[] loadLatency;
+    private final long[] spillLatency;
+
+    /**
+     * Constructor
+     * 
+     * @param hitCount
+     * @param missCount
+     * @param diskHitCount
+     * @param diskMissCount
+     * @param loadSuccessCount
+     * @param loadFailureCount
+     * @param totalLoadTime
+     * @param evictionCount
+     * @param evictionWeight
+     * @param spillCount
+     * @param totalSpillTime
+     * @param bytesWritten
+     * @param bytesRead
+     * @param loadLatency bucket counts of a {@link LatencyHistogram} of the load times
+     * @param spillLatency bucket counts of a {@link LatencyHistogram} of the spill times
+     */
+    public CacheStats(long hitCount, long missCount, long diskHitCount, long diskMissCount, long loadSuccessCount, long loadFailureCount,
+            long totalLoadTime, long evictionCount, long evictionWeight, long spillCount, long totalSpillTime, long bytesWritten,
+            long bytesRead, long[] loadLatency, long[] spillLatency) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.diskHitCount = diskHitCount;
+        this.diskMissCount = diskMissCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+        this.evictionWeight = evictionWeight;
+        this.spillCount = spillCount;
+        this.totalSpillTime = totalSpillTime;
+        this.bytesWritten = bytesWritten;
+        this.bytesRead = bytesRead;
+        this.loadLatency = loadLatency.clone();
+        this.spillLatency = spillLatency.clone();
+    }
+
+    /**
+     * Returns snapshot with every count 0
+     * 
+     * @return
+     */
+    public static CacheStats empty() {
+        return EMPTY;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Returns share of the requests served by the memory tier, 1 if there were none
+     * 
+     * @return
+     */
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    public long diskHitCount() {
+        return diskHitCount;
+    }
+
+    public long diskMissCount() {
+        return diskMissCount;
+    }
+
+    /**
+     * Returns share of the memory misses served by the disk tier, 0 if there were none
+     * 
+     * @return
+     */
+    public double diskHitRate() {
+        long lookups = diskHitCount + diskMissCount;
+        return lookups == 0 ? 0.0 : (double) diskHitCount / lookups;
+    }
+
+    public long loadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long loadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public long loadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+
+    public long totalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * Returns mean time spent per load
+     * 
+     * @return
+     */
+    public double averageLoadPenalty() {
+        long loads = loadCount();
+        return loads == 0 ? 0.0 : (double) totalLoadTime / loads;
+    }
+
+    /**
+     * Returns load time below which the given share of the loads finished, precise within a factor of two
+     * 
+     * @param quantile between 0 and 1, e.g. 0.99
+     * @return
+     */
+    public long loadTimePercentile(double quantile) {
+        return LatencyHistogram.percentile(loadLatency, quantile);
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    public long evictionWeight() {
+        return evictionWeight;
+    }
+
+    public long spillCount() {
+        return spillCount;
+    }
+
+    public long totalSpillTime() {
+        return totalSpillTime;
+    }
+
+    /**
+     * Returns mean time spent writing an evicted entry to disk
+     * 
+     * @return
+     */
+    public double averageSpillTime() {
+        return spillCount == 0 ? 0.0 : (double) totalSpillTime / spillCount;
+    }
+
+    /**
+     * Returns spill time below which the given share of the spills finished, precise within a factor of two
+     * 
+     * @param quantile between 0 and 1, e.g. 0.99
+     * @return
+     */
+    public long spillTimePercentile(double quantile) {
+        return LatencyHistogram.percentile(spillLatency, quantile);
+    }
+
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the sum of this and other, e.g. to combine the statistics of several caches
+     * 
+     * @param other
+     * @return
+     */
+    public CacheStats plus(CacheStats other) {
+        long[] loads = loadLatency.clone();
+        long[] spills = spillLatency.clone();
+        for (int i = 0; i < loads.length; i++) {
+            loads[i] += other.loadLatency[i];
+            spills[i] += other.spillLatency[i];
+        }
+        return new CacheStats(hitCount + other.hitCount, missCount + other.missCount, diskHitCount + other.diskHitCount,
+                diskMissCount + other.diskMissCount, loadSuccessCount + other.loadSuccessCount, loadFailureCount + other.loadFailureCount,
+                totalLoadTime + other.totalLoadTime, evictionCount + other.evictionCount, evictionWeight + other.evictionWeight,
+                spillCount + other.spillCount, totalSpillTime + other.totalSpillTime, bytesWritten + other.bytesWritten,
+                bytesRead + other.bytesRead, loads, spills);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheStats)) {
+            return false;
+        }
+        CacheStats other = (CacheStats) o;
+        return hitCount == other.hitCount && missCount == other.missCount && diskHitCount == other.diskHitCount
+                && diskMissCount == other.diskMissCount && loadSuccessCount == other.loadSuccessCount
+                && loadFailureCount == other.loadFailureCount && totalLoadTime == other.totalLoadTime
+                && evictionCount == other.evictionCount && evictionWeight == other.evictionWeight && spillCount == other.spillCount
+                && totalSpillTime == other.totalSpillTime && bytesWritten == other.bytesWritten && bytesRead == other.bytesRead
+                && Arrays.equals(loadLatency, other.loadLatency) && Arrays.equals(spillLatency, other.spillLatency);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(hitCount);
+        result = 31 * result + Long.hashCode(missCount);
+        result = 31 * result + Long.hashCode(diskHitCount);
+        result = 31 * result + Long.hashCode(diskMissCount);
+        result = 31 * result + Long.hashCode(loadSuccessCount);
+        result = 31 * result + Long.hashCode(evictionCount);
+        result = 31 * result + Long.hashCode(spillCount);
+        result = 31 * result + Long.hashCode(bytesWritten);
+        return 31 * result + Long.hashCode(bytesRead);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount + ", diskHitCount=" + diskHitCount + ", diskMissCount="
+                + diskMissCount + ", loadSuccessCount=" + loadSuccessCount + ", loadFailureCount=" + loadFailureCount
+                + ", totalLoadTime=" + totalLoadTime + ", evictionCount=" + evictionCount + ", evictionWeight=" + evictionWeight
+                + ", spillCount=" + spillCount + ", totalSpillTime=" + totalSpillTime + ", bytesWritten=" + bytesWritten + ", bytesRead="
+                + bytesRead + "}";
+    }
+
+}
@@ -0,0 +1,51 @@
+package parag.LRUCache.stats;
+
+/**
+ * JMX view of the statistics of one cache, registered with {@link CacheMXBeans#register(String, java.util.function.Supplier,
+ * java.util.function.LongSupplier)}. Every attribute is read from a fresh {@link CacheStats} snapshot, times are in nanoseconds.
+ */
+public interface CacheStatsMXBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getDiskHitCount();
+
+    long getDiskMissCount();
+
+    double getDiskHitRate();
+
+    long getLoadSuccessCount();
+
+    long getLoadFailureCount();
+
+    double getAverageLoadPenalty();
+
+    long getLoadTime99thPercentile();
+
+    long getEvictionCount();
+
+    long getEvictionWeight();
+
+    long getSpillCount();
+
+    double getAverageSpillTime();
+
+    long getSpillTime99thPercentile();
+
+    long getBytesWritten();
+
+    long getBytesRead();
+
+    /**
+     * Returns number of operations queued for a background thread, e.g. the recency updates waiting for the
+     * {@link parag.LRUCache.lru.LRUManager}
+     * 
+     * @return
+     */
+    long getBacklog();
+
+}
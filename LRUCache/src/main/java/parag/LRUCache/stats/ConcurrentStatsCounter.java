@@ -0,0 +1,134 @@
+package parag.LRUCache.stats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe {@link StatsCounter} built on striped {@link LongAdder}s, so threads recording at the same time rarely touch the same cache
+ * line. Load and spill times are also kept in a {@link LatencyHistogram} for their percentiles.
+ * <p>
+ * One counter may be shared by several caches, e.g. the segments of a {@link parag.LRUCache.impl.SegmentedLRUCache} or a
+ * {@link parag.LRUCache.impl.LoadingCache} and the cache it wraps, to see their statistics combined.
+ */
+public class ConcurrentStatsCounter implements StatsCounter {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder diskHitCount = new LongAdder();
+    private final LongAdder diskMissCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder evictionWeight = new LongAdder();
+    private final LongAdder spillCount = new LongAdder();
+    private final LongAdder totalSpillTime = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final LatencyHistogram spillLatency = new LatencyHistogram();
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.stats.StatsCounter#recordHits(int)
+     */
+    @Override
+    public void recordHits(int count) {
+        hitCount.add(count);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.stats.StatsCounter#recordMisses(int)
+     */
+    @Override
+    public void recordMisses(int count) {
+        missCount.add(count);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.stats.StatsCounter#recordDiskHits(int)
+     */
+    @Override
+    public void recordDiskHits(int count) {
+        diskHitCount.add(count);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.stats.StatsCounter#recordDiskMisses(int)
+     */
+    @Override
+    public void recordDiskMisses(int count) {
+        diskMissCount.add(count);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.stats.StatsCounter#recordLoadSuccess(long)
+     */
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadTime);
+        loadLatency.record(loadTime);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.stats.StatsCounter#recordLoadFailure(long)
+     */
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadTime);
+        loadLatency.record(loadTime);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.stats.StatsCounter#recordEviction(int)
+     */
+    @Override
+    public void recordEviction(int weight) {
+        evictionCount.increment();
+        evictionWeight.add(weight);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.stats.StatsCounter#recordSpill(long)
+     */
+    @Override
+    public void recordSpill(long spillTime) {
+        spillCount.increment();
+        totalSpillTime.add(spillTime);
+        spillLatency.record(spillTime);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.stats.StatsCounter#recordBytesWritten(long)
+     */
+    @Override
+    public void recordBytesWritten(long bytes) {
+        bytesWritten.add(bytes);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.stats.StatsCounter#recordBytesRead(long)
+     */
+    @Override
+    public void recordBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Sums up the counters. Not atomic, counts recorded while the snapshot is taken may be partially included
+     * 
+     * @return
+     */
+    @Override
+    public CacheStats snapshot() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), diskHitCount.sum(), diskMissCount.sum(), loadSuccessCount.sum(),
+                loadFailureCount.sum(), totalLoadTime.sum(), evictionCount.sum(), evictionWeight.sum(), spillCount.sum(),
+                totalSpillTime.sum(), bytesWritten.sum(), bytesRead.sum(), loadLatency.snapshot(), spillLatency.snapshot());
+    }
+
+}
@@ -0,0 +1,60 @@
+package parag.LRUCache.stats;
+
+/**
+ * Counter which records nothing, see {@link StatsCounter#disabled()}
+ */
+enum DisabledStatsCounter implements StatsCounter {
+
+    INSTANCE;
+
+    @Override
+    public void recordHits(int count) {
+    }
+
+    @Override
+    public void recordMisses(int count) {
+    }
+
+    @Override
+    public void recordDiskHits(int count) {
+    }
+
+    @Override
+    public void recordDiskMisses(int count) {
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+    }
+
+    @Override
+    public void recordEviction(int weight) {
+    }
+
+    @Override
+    public void recordSpill(long spillTime) {
+    }
+
+    @Override
+    public void recordBytesWritten(long bytes) {
+    }
+
+    @Override
+    public void recordBytesRead(long bytes) {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        return CacheStats.empty();
+    }
+
+}
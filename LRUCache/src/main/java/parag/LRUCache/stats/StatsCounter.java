@@ -0,0 +1,105 @@
+package parag.LRUCache.stats;
+
+/**
+ * Records the statistics of a cache and its disk tier.
+ * <p>
+ * Methods are called on the hot path, possibly while the cache lock is held, so implementations must be cheap and must not block.
+ * {@link #disabled()} records nothing: its calls are inlined away and a cache built with it does not even read the clock for the
+ * timings.
+ */
+public interface StatsCounter {
+
+    /**
+     * Records hits on the memory tier
+     * 
+     * @param count
+     */
+    void recordHits(int count);
+
+    /**
+     * Records misses on the memory tier, whether or not the disk tier then finds the entry
+     * 
+     * @param count
+     */
+    void recordMisses(int count);
+
+    /**
+     * Records memory misses found on the disk tier
+     * 
+     * @param count
+     */
+    void recordDiskHits(int count);
+
+    /**
+     * Records memory misses not found on the disk tier either
+     * 
+     * @param count
+     */
+    void recordDiskMisses(int count);
+
+    /**
+     * Records a load which produced a value or found none
+     * 
+     * @param loadTime nanoseconds spent loading
+     */
+    void recordLoadSuccess(long loadTime);
+
+    /**
+     * Records a load which threw
+     * 
+     * @param loadTime nanoseconds spent loading
+     */
+    void recordLoadFailure(long loadTime);
+
+    /**
+     * Records an entry evicted from memory by the eviction policy
+     * 
+     * @param weight weight of the evicted entry
+     */
+    void recordEviction(int weight);
+
+    /**
+     * Records an evicted entry backed up on disk
+     * 
+     * @param spillTime nanoseconds spent writing it
+     */
+    void recordSpill(long spillTime);
+
+    /**
+     * Records bytes written to disk by the serializer
+     * 
+     * @param bytes
+     */
+    void recordBytesWritten(long bytes);
+
+    /**
+     * Records bytes read from disk for the serializer
+     * 
+     * @param bytes
+     */
+    void recordBytesRead(long bytes);
+
+    /**
+     * Returns whether anything is recorded, false lets the caller skip measuring the timings
+     * 
+     * @return
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns the statistics recorded so far
+     * 
+     * @return
+     */
+    CacheStats snapshot();
+
+    /**
+     * Returns counter which records nothing
+     * 
+     * @return
+     */
+    static StatsCounter disabled() {
+        return DisabledStatsCounter.INSTANCE;
+    }
+
+}
@@ -0,0 +1,64 @@
+package parag.LRUCache.tiered;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+
+/**
+ * Tier over any {@link DiskBackend}, e.g. a {@link parag.LRUCache.diskBacked.DiskCache} or a
+ * {@link parag.LRUCache.diskBacked.LogStructuredDiskCache}. A bounded disk tier deletes the entries over its budget itself, they are not
+ * handed on to a further tier
+ */
+public class DiskTier<K, V> implements Tier<K, V> {
+
+    private final DiskBackend<K, V> diskCache;
+
+    /**
+     * Constructor
+     * 
+     * @param diskCache
+     */
+    public DiskTier(DiskBackend<K, V> diskCache) {
+        this.diskCache = diskCache;
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.Tier#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) throws RetrievalException {
+        try {
+            return diskCache.get(key);
+        } catch (DeserializationException e) {
+            throw new RetrievalException("Error while GET operation", e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.Tier#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public List<Map.Entry<K, V>> put(K key, V value) throws StoreException {
+        try {
+            diskCache.put(key, value);
+        } catch (SerializationException e) {
+            throw new StoreException("Error while PUT operation", e);
+        }
+        return Collections.emptyList();
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.Tier#remove(java.lang.Object)
+     */
+    @Override
+    public void remove(K key) {
+        diskCache.remove(key);
+    }
+
+}
@@ -0,0 +1,76 @@
+package parag.LRUCache.tiered;
+
+import java.util.List;
+import java.util.Map;
+
+import parag.LRUCache.Weigher;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.impl.LinkedLRUCache;
+import parag.LRUCache.policy.EvictionPolicy;
+import parag.LRUCache.policy.LruPolicy;
+
+/**
+ * Tier keeping the entries on the Java heap in a {@link LinkedLRUCache}, which hands the entries chosen by its eviction policy back to
+ * the {@link TieredCache}
+ */
+public class HeapTier<K, V> implements Tier<K, V> {
+
+    private final VictimCollector<K, V> victims = new VictimCollector<>();
+    private final LinkedLRUCache<K, V> cache;
+
+    /**
+     * Constructor. Least recently used entries are given up first
+     * 
+     * @param maxSize maximum number of entries
+     */
+    public HeapTier(int maxSize) {
+        this(maxSize, Weigher.<K, V>singleton(), new LruPolicy<K, V>());
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param maximumWeight maximum total weight of the entries
+     * @param weigher calculates the weight of an entry
+     * @param policy decides which entry is given up, must not be shared with another cache
+     */
+    public HeapTier(long maximumWeight, Weigher<K, V> weigher, EvictionPolicy<K, V> policy) {
+        this.cache = new LinkedLRUCache<>(maximumWeight, weigher, victims, policy, Runnable::run);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.Tier#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) throws RetrievalException {
+        return cache.get(key);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.Tier#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public List<Map.Entry<K, V>> put(K key, V value) throws StoreException {
+        cache.put(key, value);
+        return victims.drain();
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.Tier#remove(java.lang.Object)
+     */
+    @Override
+    public void remove(K key) {
+        cache.invalidate(key);
+    }
+
+    /**
+     * Returns number of entries held
+     * 
+     * @return
+     */
+    public int size() {
+        return cache.size();
+    }
+
+}
@@ -0,0 +1,61 @@
+package parag.LRUCache.tiered;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remote store kept in a map of this JVM, standing in for a real one in tests and local runs. Values are copied in and out, so the
+ * tier sees the same serialization round trip as over the network
+ */
+public class InProcessRemoteStore implements RemoteStore {
+
+    private final ConcurrentHashMap<String, byte[]> entries = new ConcurrentHashMap<>();
+    private final LongAdder requestCount = new LongAdder();
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.RemoteStore#get(java.lang.String)
+     */
+    @Override
+    public byte[] get(String key) {
+        requestCount.increment();
+        byte[] value = entries.get(key);
+        return value == null ? null : value.clone();
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.RemoteStore#put(java.lang.String, byte[])
+     */
+    @Override
+    public void put(String key, byte[] value) {
+        requestCount.increment();
+        entries.put(key, value.clone());
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.RemoteStore#delete(java.lang.String)
+     */
+    @Override
+    public void delete(String key) {
+        requestCount.increment();
+        entries.remove(key);
+    }
+
+    /**
+     * Returns number of entries stored
+     * 
+     * @return
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns number of gets, puts and deletes served so far
+     * 
+     * @return
+     */
+    public long requestCount() {
+        return requestCount.sum();
+    }
+
+}
@@ -0,0 +1,75 @@
+package parag.LRUCache.tiered;
+
+import java.util.List;
+import java.util.Map;
+
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.offheap.OffHeapCache;
+import parag.LRUCache.serializer.Serializer;
+
+/**
+ * Tier keeping serialized entries outside the Java heap in an {@link OffHeapCache}. The entries it evicts, and values larger than a
+ * slab, are handed back to the {@link TieredCache}
+ */
+public class OffHeapTier<K, V> implements Tier<K, V> {
+
+    private final VictimCollector<K, V> victims = new VictimCollector<>();
+    private final OffHeapCache<K, V> cache;
+
+    /**
+     * Constructor. 1 MB slabs
+     * 
+     * @param capacity number of off-heap bytes
+     * @param serializer codec of the values
+     */
+    public OffHeapTier(long capacity, Serializer<V> serializer) {
+        this.cache = new OffHeapCache<>(capacity, serializer, victims);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param capacity number of off-heap bytes
+     * @param slabSize size of one slab
+     * @param serializer codec of the values
+     */
+    public OffHeapTier(long capacity, int slabSize, Serializer<V> serializer) {
+        this.cache = new OffHeapCache<>(capacity, slabSize, serializer, victims);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.Tier#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) throws RetrievalException {
+        return cache.get(key);
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.Tier#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public List<Map.Entry<K, V>> put(K key, V value) throws StoreException {
+        cache.put(key, value);
+        return victims.drain();
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.Tier#remove(java.lang.Object)
+     */
+    @Override
+    public void remove(K key) {
+        cache.invalidate(key);
+    }
+
+    /**
+     * Returns number of entries held
+     * 
+     * @return
+     */
+    public int size() {
+        return cache.size();
+    }
+
+}
@@ -0,0 +1,49 @@
+package parag.LRUCache.tiered;
+
+import java.util.List;
+import java.util.Map;
+
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+
+/**
+ * Tier which overrides the policies of another one, see {@link Tier#withPolicies(Tier.Promotion, Tier.Demotion)}
+ */
+final class PolicyTier<K, V> implements Tier<K, V> {
+
+    private final Tier<K, V> tier;
+    private final Promotion promotion;
+    private final Demotion demotion;
+
+    PolicyTier(Tier<K, V> tier, Promotion promotion, Demotion demotion) {
+        this.tier = tier;
+        this.promotion = promotion;
+        this.demotion = demotion;
+    }
+
+    @Override
+    public V get(K key) throws RetrievalException {
+        return tier.get(key);
+    }
+
+    @Override
+    public List<Map.Entry<K, V>> put(K key, V value) throws StoreException {
+        return tier.put(key, value);
+    }
+
+    @Override
+    public void remove(K key) throws StoreException {
+        tier.remove(key);
+    }
+
+    @Override
+    public Promotion promotion() {
+        return promotion;
+    }
+
+    @Override
+    public Demotion demotion() {
+        return demotion;
+    }
+
+}
@@ -0,0 +1,37 @@
+package parag.LRUCache.tiered;
+
+import java.io.IOException;
+
+/**
+ * Client of a key value store on another machine, e.g. memcached or Redis, as seen by a {@link RemoteTier}. Keys and values travel as
+ * a string and bytes, the tier does the serialization
+ */
+public interface RemoteStore {
+
+    /**
+     * Returns the bytes stored under key
+     * 
+     * @param key
+     * @return bytes, null if the store does not hold key
+     * @throws IOException
+     */
+    byte[] get(String key) throws IOException;
+
+    /**
+     * Stores the bytes under key, replacing what was there
+     * 
+     * @param key
+     * @param value
+     * @throws IOException
+     */
+    void put(String key, byte[] value) throws IOException;
+
+    /**
+     * Deletes key
+     * 
+     * @param key
+     * @throws IOException
+     */
+    void delete(String key) throws IOException;
+
+}
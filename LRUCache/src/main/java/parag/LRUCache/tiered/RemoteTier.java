@@ -0,0 +1,78 @@
+package parag.LRUCache.tiered;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.serializer.BufferOutput;
+import parag.LRUCache.serializer.Serializer;
+
+/**
+ * Tier over a {@link RemoteStore}, named by the string form of the key like the files of a
+ * {@link parag.LRUCache.diskBacked.DiskCache}. The remote store bounds and evicts its entries itself. Use an
+ * {@link InProcessRemoteStore} in tests
+ */
+public class RemoteTier<K, V> implements Tier<K, V> {
+
+    private final RemoteStore store;
+    private final Serializer<V> serializer;
+
+    /**
+     * Constructor
+     * 
+     * @param store client of the remote store
+     * @param serializer codec of the values
+     */
+    public RemoteTier(RemoteStore store, Serializer<V> serializer) {
+        this.store = store;
+        this.serializer = serializer;
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.Tier#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) throws RetrievalException {
+        try {
+            byte[] bytes = store.get(key.toString());
+            return bytes == null ? null : serializer.read(ByteBuffer.wrap(bytes));
+        } catch (IOException e) {
+            throw new RetrievalException("Error while GET operation", e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.Tier#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public List<Map.Entry<K, V>> put(K key, V value) throws StoreException {
+        try {
+            BufferOutput output = BufferOutput.get();
+            serializer.write(value, output.dataOutput());
+            ByteBuffer buffer = output.toByteBuffer();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            store.put(key.toString(), bytes);
+        } catch (IOException e) {
+            throw new StoreException("Error while PUT operation", e);
+        }
+        return Collections.emptyList();
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.tiered.Tier#remove(java.lang.Object)
+     */
+    @Override
+    public void remove(K key) throws StoreException {
+        try {
+            store.delete(key.toString());
+        } catch (IOException e) {
+            throw new StoreException("Error while REMOVE operation", e);
+        }
+    }
+
+}
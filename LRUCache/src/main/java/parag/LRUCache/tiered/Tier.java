@@ -0,0 +1,93 @@
+package parag.LRUCache.tiered;
+
+import java.util.List;
+import java.util.Map;
+
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+
+/**
+ * One level of a {@link TieredCache}, e.g. heap, off-heap, local disk or a remote store. Each tier has its own capacity and gives up
+ * entries on its own when it runs out of room; the tiered cache decides where they go next.
+ */
+public interface Tier<K, V> {
+
+    /**
+     * What a hit in a tier below the first one does to the entry
+     */
+    enum Promotion {
+        /** Moves the entry to the first tier */
+        MOVE,
+        /** Copies the entry to the first tier, leaving it where it was */
+        COPY,
+        /** Serves the entry from this tier */
+        STAY
+    }
+
+    /**
+     * What happens to the entries a tier gives up
+     */
+    enum Demotion {
+        /** Stored in the next tier */
+        DEMOTE,
+        /** Dropped */
+        DROP
+    }
+
+    /**
+     * Returns the value held by this tier, without looking at any other tier
+     * 
+     * @param key
+     * @return value, null if this tier does not hold key
+     * @throws RetrievalException
+     */
+    V get(K key) throws RetrievalException;
+
+    /**
+     * Stores the value in this tier
+     * 
+     * @param key
+     * @param value
+     * @return entries this tier gave up to make room, empty if none
+     * @throws StoreException
+     */
+    List<Map.Entry<K, V>> put(K key, V value) throws StoreException;
+
+    /**
+     * Removes key from this tier
+     * 
+     * @param key
+     * @throws StoreException
+     */
+    void remove(K key) throws StoreException;
+
+    /**
+     * Returns what a hit in this tier does to the entry, ignored for the first tier
+     * 
+     * @return
+     */
+    default Promotion promotion() {
+        return Promotion.MOVE;
+    }
+
+    /**
+     * Returns what happens to the entries this tier gives up, ignored for the last tier
+     * 
+     * @return
+     */
+    default Demotion demotion() {
+        return Demotion.DEMOTE;
+    }
+
+    /**
+     * Returns this tier with other promotion and demotion policies
+     * 
+     * @param promotion
+     * @param demotion
+     * @return
+     */
+    default Tier<K, V> withPolicies(Promotion promotion, Demotion demotion) {
+        return new PolicyTier<>(this, promotion, demotion);
+    }
+
+}
@@ -0,0 +1,190 @@
+package parag.LRUCache.tiered;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import parag.LRUCache.Cache;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+
+/**
+ * Cache composed of ordered {@link Tier tiers}, e.g. a small heap tier over a large off-heap tier over a huge disk tier.
+ * <p>
+ * A get looks at the tiers from the first to the last and stops at the first hit. A hit below the first tier is moved, copied or left
+ * where it is as the {@link Tier.Promotion promotion} policy of its tier says. A put removes older copies from the tiers below and
+ * stores the value in the first tier. Entries a tier gives up to make room are stored in the next tier or dropped as the
+ * {@link Tier.Demotion demotion} policy of their tier says, so one put may cascade down several tiers.
+ * <p>
+ * Gets and puts of one key are serialized by a striped lock, other keys go ahead in parallel. The entries given up by a put or a
+ * promotion are demoted once its lock is released, each one under the lock of its own key, so no thread ever holds two stripes. Until
+ * then an entry is recorded as in transit, and a put of its key cancels the record: an older value still on its way down is dropped
+ * instead of landing below the new one. Stores into the first tier and the records of the entries it gives up are made under one lock,
+ * so a newer eviction of a key always replaces the record of an older one. A get may miss an entry while it moves between two tiers.
+ */
+public class TieredCache<K, V> implements Cache<K, V> {
+
+    private static final int STRIPES = 64;
+
+    private final List<Tier<K, V>> tiers;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    // Orders the stores into the first tier with the records of their victims
+    private final ReentrantLock firstTier = new ReentrantLock();
+    // Victims on their way to the next tier by key, one record per key
+    private final ConcurrentHashMap<K, Map.Entry<K, V>> inTransit = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     * 
+     * @param tiers tiers from the fastest to the largest
+     */
+    public TieredCache(List<? extends Tier<K, V>> tiers) {
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException("At least one tier is needed");
+        }
+        this.tiers = new ArrayList<>(tiers);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#get(java.lang.Object)
+     */
+    @Override
+    public V get(K key) throws RetrievalException {
+        if (key == null) {
+            return null;
+        }
+        V value = null;
+        List<Map.Entry<K, V>> victims = Collections.emptyList();
+        ReentrantLock stripe = stripeOf(key);
+        stripe.lock();
+        try {
+            for (int level = 0; level < tiers.size() && value == null; level++) {
+                Tier<K, V> tier = tiers.get(level);
+                value = tier.get(key);
+                if (value != null && level > 0) {
+                    victims = promote(tier, key, value);
+                }
+            }
+        } catch (StoreException e) {
+            throw new RetrievalException("Error while promoting entry", e);
+        } finally {
+            stripe.unlock();
+        }
+        try {
+            demote(0, victims);
+        } catch (StoreException e) {
+            throw new RetrievalException("Error while promoting entry", e);
+        }
+        return value;
+    }
+
+    /* (non-Javadoc)
+     * @see parag.LRUCache.Cache#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public void put(K key, V value) throws StoreException {
+        if (key == null) {
+            return;
+        }
+        List<Map.Entry<K, V>> victims;
+        ReentrantLock stripe = stripeOf(key);
+        stripe.lock();
+        try {
+            // Older copies go first, the cascade may hand the new value straight down, e.g. when it is too large for the first tier
+            for (int level = 1; level < tiers.size(); level++) {
+                tiers.get(level).remove(key);
+            }
+            victims = storeFirst(key, value);
+        } finally {
+            stripe.unlock();
+        }
+        demote(0, victims);
+    }
+
+    /**
+     * Returns number of tiers
+     * 
+     * @return
+     */
+    public int tierCount() {
+        return tiers.size();
+    }
+
+    /**
+     * Moves or copies a hit to the first tier, returns the entries the first tier gives up
+     */
+    private List<Map.Entry<K, V>> promote(Tier<K, V> tier, K key, V value) throws StoreException {
+        switch (tier.promotion()) {
+        case MOVE:
+            tier.remove(key);
+            return storeFirst(key, value);
+        case COPY:
+            return storeFirst(key, value);
+        default:
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Stores the entry in the first tier, cancelling an older value of the key in transit, and records the entries the tier gives up
+     * 
+     * @param key
+     * @param value
+     * @return entries given up by the first tier
+     * @throws StoreException
+     */
+    private List<Map.Entry<K, V>> storeFirst(K key, V value) throws StoreException {
+        firstTier.lock();
+        try {
+            inTransit.remove(key);
+            List<Map.Entry<K, V>> victims = tiers.get(0).put(key, value);
+            for (Map.Entry<K, V> victim : victims) {
+                inTransit.put(victim.getKey(), victim);
+            }
+            return victims;
+        } finally {
+            firstTier.unlock();
+        }
+    }
+
+    /**
+     * Stores the entries given up by the tier at level in the tier below, each under the lock of its key, then the entries that tier gives
+     * up in turn. An entry whose record was cancelled or replaced meanwhile is dropped. Must be called without holding a stripe lock
+     * 
+     * @param level
+     * @param victims
+     * @throws StoreException
+     */
+    private void demote(int level, List<Map.Entry<K, V>> victims) throws StoreException {
+        boolean drop = level + 1 == tiers.size() || tiers.get(level).demotion() == Tier.Demotion.DROP;
+        for (Map.Entry<K, V> victim : victims) {
+            List<Map.Entry<K, V>> nextVictims = Collections.emptyList();
+            ReentrantLock stripe = stripeOf(victim.getKey());
+            stripe.lock();
+            try {
+                if (inTransit.remove(victim.getKey(), victim) && !drop) {
+                    nextVictims = tiers.get(level + 1).put(victim.getKey(), victim.getValue());
+                    // Given up by a lower tier, older than a value of the key coming from the first tier
+                    for (Map.Entry<K, V> nextVictim : nextVictims) {
+                        inTransit.putIfAbsent(nextVictim.getKey(), nextVictim);
+                    }
+                }
+            } finally {
+                stripe.unlock();
+            }
+            demote(level + 1, nextVictims);
+        }
+    }
+
+    private ReentrantLock stripeOf(K key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return stripes[hash >>> 26];
+    }
+
+}
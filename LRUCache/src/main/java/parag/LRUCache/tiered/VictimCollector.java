@@ -0,0 +1,51 @@
+package parag.LRUCache.tiered;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import parag.LRUCache.diskBacked.DiskBackend;
+
+/**
+ * Disk tier of a memory tier which only collects the entries the memory tier spills. The caches spill in the thread which puts, so the
+ * victims of a put are collected per thread and handed back by {@link #drain()}
+ */
+final class VictimCollector<K, V> implements DiskBackend<K, V> {
+
+    private final ThreadLocal<List<Map.Entry<K, V>>> victims = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public void put(K key, V value) {
+        victims.get().add(new AbstractMap.SimpleImmutableEntry<>(key, value));
+    }
+
+    /**
+     * Always misses, a memory tier never finds an entry here
+     */
+    @Override
+    public V get(K key) {
+        return null;
+    }
+
+    @Override
+    public void remove(K key) {
+    }
+
+    /**
+     * Returns the entries spilled by the calling thread since the last call
+     * 
+     * @return
+     */
+    List<Map.Entry<K, V>> drain() {
+        List<Map.Entry<K, V>> collected = victims.get();
+        if (collected.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Map.Entry<K, V>> drained = new ArrayList<>(collected);
+        collected.clear();
+        return drained;
+    }
+
+}
@@ -0,0 +1,250 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.diskBacked.DiskCache;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.impl.AsyncCache;
+import parag.LRUCache.serializer.Serializers;
+
+/**
+ * Test Class for {@link AsyncCache}
+ */
+public class TestAsyncCache {
+
+    /**
+     * I/P: More entries than memory holds on the default executor, then the evicted ones read back
+     * O/P: Evicted entries written to disk in the background and promoted back by a get
+     */
+    @Test
+    public void testSpillAndPromote() throws Exception {
+        String dir = Files.createTempDirectory("async").toString() + File.separator;
+        DiskCache<String, String> disk = new DiskCache<>(dir, Serializers.STRING);
+        try (AsyncCache<String, String> cache = new AsyncCache<>(2, disk)) {
+            for (int i = 0; i < 5; i++) {
+                cache.put("key" + i, "value" + i).get();
+            }
+            assertEquals(cache.size(), 2);
+            awaitSpills(cache);
+            assertEquals(disk.get("key0"), "value0");
+            assertEquals(cache.get("key0").get(5, TimeUnit.SECONDS), "value0");
+            Map<String, String> values = cache.getAll(Arrays.asList("key1", "key4", "absent")).get(5, TimeUnit.SECONDS);
+            assertEquals(values.size(), 2);
+            assertEquals(values.get("key1"), "value1");
+            assertNull(cache.get("absent").get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * I/P: A disk read which blocks, a second get of the same key and a get of a key held in memory meanwhile
+     * O/P: Memory hit completes at once, both gets of the slow key share one read which completes once the disk answers
+     */
+    @Test
+    public void testSlowDiskReadDoesNotBlockHits() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ConcurrentHashMap<String, String> files = new ConcurrentHashMap<>();
+        files.put("slow", "from disk");
+        DiskBackend<String, String> slowDisk = new DiskBackend<String, String>() {
+
+            @Override
+            public void put(String key, String value) {
+                files.put(key, value);
+            }
+
+            @Override
+            public String get(String key) throws DeserializationException {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new DeserializationException("Interrupted", e);
+                }
+                return files.get(key);
+            }
+
+            @Override
+            public void remove(String key) {
+                files.remove(key);
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (AsyncCache<String, String> cache = new AsyncCache<>(10, slowDisk, executor)) {
+            cache.put("hot", "in memory").get();
+            CompletableFuture<String> slow = cache.get("slow");
+            assertSame(cache.get("slow"), slow);
+            CompletableFuture<String> hot = cache.get("hot");
+            assertTrue(hot.isDone());
+            assertEquals(hot.get(), "in memory");
+            assertFalse(slow.isDone());
+            release.countDown();
+            assertEquals(slow.get(5, TimeUnit.SECONDS), "from disk");
+            assertEquals(cache.size(), 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * I/P: Key written over and spilled again by another put between the disk read of a get and its move into memory
+     * O/P: Get reads again and returns the newer value, whose copy on disk is kept until it is promoted
+     */
+    @Test
+    public void testWriteDuringReadIsNotLost() throws Exception {
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        ConcurrentHashMap<String, String> files = new ConcurrentHashMap<>();
+        AtomicReference<Runnable> duringRead = new AtomicReference<>();
+        DiskBackend<String, String> disk = new DiskBackend<String, String>() {
+
+            @Override
+            public void put(String key, String value) {
+                files.put(key, value);
+            }
+
+            @Override
+            public String get(String key) {
+                String value = files.get(key);
+                Runnable hook = duringRead.getAndSet(null);
+                if (hook != null) {
+                    hook.run();
+                }
+                return value;
+            }
+
+            @Override
+            public void remove(String key) {
+                files.remove(key);
+            }
+        };
+        try (AsyncCache<String, String> cache = new AsyncCache<>(1, disk, tasks::add)) {
+            cache.put("k", "v1").get();
+            cache.put("x", "x").get();
+            runAll(tasks);
+            assertEquals(files.get("k"), "v1");
+
+            duringRead.set(() -> {
+                cache.put("k", "v2").join();
+                cache.put("y", "y").join();
+                runAll(tasks);
+            });
+            CompletableFuture<String> read = cache.get("k");
+            runAll(tasks);
+            assertEquals(read.get(), "v2");
+            assertEquals(cache.get("k").get(), "v2");
+        }
+    }
+
+    /**
+     * I/P: Cache closed while the executor has not run any of the writes of its evicted entries
+     * O/P: Close writes every evicted entry to disk before it returns
+     */
+    @Test
+    public void testCloseWritesPendingSpills() throws Exception {
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        String dir = Files.createTempDirectory("async").toString() + File.separator;
+        DiskCache<String, String> disk = new DiskCache<>(dir, Serializers.STRING);
+        AsyncCache<String, String> cache = new AsyncCache<>(2, disk, tasks::add);
+        for (int i = 0; i < 5; i++) {
+            cache.put("key" + i, "value" + i).get();
+        }
+        assertEquals(cache.spillBacklog(), 3);
+        cache.close();
+        assertEquals(cache.spillBacklog(), 0);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(disk.get("key" + i), "value" + i);
+        }
+    }
+
+    /**
+     * I/P: Evicted entries whose writes fail, then a put, then the disk recovers and one more entry is evicted
+     * O/P: Failed entries stay parked and readable, the put reports the failure, the next spill writes them all
+     */
+    @Test
+    public void testFailedWriteStaysPending() throws Exception {
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        ConcurrentHashMap<String, String> files = new ConcurrentHashMap<>();
+        AtomicBoolean diskFull = new AtomicBoolean(true);
+        DiskBackend<String, String> disk = new DiskBackend<String, String>() {
+
+            @Override
+            public void put(String key, String value) throws SerializationException {
+                if (diskFull.get()) {
+                    throw new SerializationException("Disk full");
+                }
+                files.put(key, value);
+            }
+
+            @Override
+            public String get(String key) {
+                return files.get(key);
+            }
+
+            @Override
+            public void remove(String key) {
+                files.remove(key);
+            }
+        };
+        try (AsyncCache<String, String> cache = new AsyncCache<>(1, disk, tasks::add)) {
+            for (int i = 0; i < 3; i++) {
+                cache.put("key" + i, "value" + i).get();
+            }
+            runAll(tasks);
+            assertEquals(cache.failureCount(), 2);
+            assertEquals(cache.spillBacklog(), 2);
+            assertEquals(cache.get("key0").get(), "value0");
+            runAll(tasks);
+            try {
+                cache.put("key3", "value3").get();
+                fail("Expected the failed write to be reported");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof StoreException);
+            }
+
+            diskFull.set(false);
+            cache.put("key4", "value4").get();
+            runAll(tasks);
+            assertEquals(cache.spillBacklog(), 0);
+            assertEquals(files.size(), 3);
+            assertEquals(files.get("key1"), "value1");
+            assertEquals(files.get("key2"), "value2");
+        }
+    }
+
+    private static void runAll(ArrayDeque<Runnable> tasks) {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static void awaitSpills(AsyncCache<?, ?> cache) throws InterruptedException {
+        for (int i = 0; i < 500 && cache.spillBacklog() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(cache.spillBacklog(), 0);
+    }
+
+}
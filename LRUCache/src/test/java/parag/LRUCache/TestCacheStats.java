@@ -0,0 +1,153 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.diskBacked.DiskCache;
+import parag.LRUCache.impl.LinkedLRUCache;
+import parag.LRUCache.impl.LoadingCache;
+import parag.LRUCache.policy.LruPolicy;
+import parag.LRUCache.serializer.Serializers;
+import parag.LRUCache.stats.CacheMXBeans;
+import parag.LRUCache.stats.CacheStats;
+import parag.LRUCache.stats.ConcurrentStatsCounter;
+import parag.LRUCache.stats.LatencyHistogram;
+import parag.LRUCache.stats.StatsCounter;
+
+/**
+ * Test Class for the statistics of the caches
+ */
+public class TestCacheStats {
+
+    /**
+     * I/P: PUT() beyond capacity, GET() of memory hits, disk hits and misses, GETALL() on a cache with a counting disk tier
+     * O/P: Hits, misses, disk hits, evictions, spills and serialized bytes all counted
+     */
+    @Test
+    public void testLinkedLRUCacheStats() throws Exception {
+        StatsCounter stats = new ConcurrentStatsCounter();
+        String dir = Files.createTempDirectory("stats").toString() + "/";
+        DiskCache<String, String> disk = new DiskCache<>(dir, null, Serializers.STRING, Long.MAX_VALUE, null, stats);
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(2, Weigher.<String, String>singleton(), disk,
+                new LruPolicy<String, String>(), Runnable::run, null, Ticker.system(), stats);
+        cache.put("key1", "content1");
+        cache.put("key2", "content2");
+        cache.put("key3", "content3");
+
+        assertEquals(cache.get("key3"), "content3");
+        assertEquals(cache.get("key1"), "content1");
+        assertEquals(cache.get("missing"), null);
+        Map<String, String> all = cache.getAll(Arrays.asList("key1", "key2", "missing"));
+        assertEquals(all.size(), 2);
+
+        CacheStats snapshot = cache.stats();
+        assertEquals(snapshot.hitCount(), 2);
+        assertEquals(snapshot.missCount(), 4);
+        assertEquals(snapshot.diskHitCount(), 2);
+        assertEquals(snapshot.diskMissCount(), 2);
+        assertEquals(snapshot.hitRate(), 2.0 / 6);
+        assertEquals(snapshot.diskHitRate(), 0.5);
+        // key1, then key2 to make room for key1 and key3 to make room for key2
+        assertEquals(snapshot.evictionCount(), 3);
+        assertEquals(snapshot.spillCount(), 3);
+        assertTrue(snapshot.totalSpillTime() > 0);
+        assertTrue(snapshot.spillTimePercentile(0.99) >= snapshot.spillTimePercentile(0.5));
+        assertTrue(snapshot.bytesWritten() > 0);
+        assertTrue(snapshot.bytesRead() > 0);
+        assertEquals(disk.stats(), snapshot);
+        disk.close();
+    }
+
+    /**
+     * I/P: GET() and PUT() on caches built without a stats counter
+     * O/P: Empty snapshot
+     */
+    @Test
+    public void testDisabledRecordsNothing() throws Exception {
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(1, null);
+        cache.put("key1", "content1");
+        cache.put("key2", "content2");
+        cache.get("key2");
+        cache.get("key1");
+        assertFalse(StatsCounter.disabled().isEnabled());
+        assertSame(cache.stats(), CacheStats.empty());
+        assertEquals(cache.stats().hitRate(), 1.0);
+    }
+
+    /**
+     * I/P: Successful and failing loads through a loading cache sharing its counter with the wrapped cache
+     * O/P: Loads counted next to the misses which caused them
+     */
+    @Test
+    public void testLoadingCacheStats() throws Exception {
+        StatsCounter stats = new ConcurrentStatsCounter();
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(10, Weigher.<String, String>singleton(), null,
+                new LruPolicy<String, String>(), Runnable::run, null, Ticker.system(), stats);
+        LoadingCache<String, String> loading = new LoadingCache<>(cache, key -> {
+            if (key.startsWith("bad")) {
+                throw new IllegalStateException(key);
+            }
+            return "content-" + key;
+        }, Runnable::run, stats);
+        loading.get("key1");
+        loading.get("key1");
+        try {
+            loading.get("bad1");
+            fail("Load should fail");
+        } catch (Exception e) {
+            // Expected
+        }
+        CacheStats snapshot = loading.stats();
+        assertEquals(snapshot.loadSuccessCount(), 1);
+        assertEquals(snapshot.loadFailureCount(), 1);
+        assertTrue(snapshot.totalLoadTime() > 0);
+        assertTrue(snapshot.loadTimePercentile(1.0) > 0);
+        assertEquals(snapshot.hitCount(), 1);
+    }
+
+    /**
+     * I/P: Durations recorded in a latency histogram, stats registered over JMX
+     * O/P: Percentiles bounded by the bucket of the duration, attributes readable from the platform MBean server
+     */
+    @Test
+    public void testHistogramAndMXBean() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(1_000_000);
+        long[] counts = histogram.snapshot();
+        CacheStats stats = new CacheStats(3, 1, 0, 0, 0, 0, 0, 0, 0, 100, 0, 0, 0, new long[counts.length], counts);
+        assertEquals(stats.spillTimePercentile(0.5), 127);
+        assertEquals(stats.spillTimePercentile(0.99), 127);
+        assertEquals(stats.spillTimePercentile(1.0), (1 << 20) - 1);
+        assertEquals(stats.plus(stats).hitCount(), 6);
+
+        String name = "test-" + System.nanoTime();
+        ObjectName objectName = CacheMXBeans.register(name, () -> stats, () -> 42);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(server.getAttribute(objectName, "HitCount"), 3L);
+            assertEquals(server.getAttribute(objectName, "HitRate"), 0.75);
+            assertEquals(server.getAttribute(objectName, "SpillTime99thPercentile"), 127L);
+            assertEquals(server.getAttribute(objectName, "Backlog"), 42L);
+        } finally {
+            CacheMXBeans.unregister(name);
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+    }
+
+}
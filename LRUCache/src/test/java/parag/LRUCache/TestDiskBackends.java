@@ -0,0 +1,567 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.diskBacked.BloomFilteredDiskCache;
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.diskBacked.DiskCache;
+import parag.LRUCache.diskBacked.LogStructuredDiskCache;
+import parag.LRUCache.diskBacked.WriteBehindDiskCache;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.impl.LinkedLRUCache;
+import parag.LRUCache.serializer.Serializer;
+import parag.LRUCache.serializer.Serializers;
+import parag.LRUCache.stats.StatsCounter;
+
+/**
+ * Test Class for disk backends
+ */
+public class TestDiskBackends {
+
+    private static String tempDir() throws IOException {
+        return Files.createTempDirectory("disk").toString();
+    }
+
+    /**
+     * I/P: PUT(), overwrite and REMOVE() on the log structured disk tier
+     * O/P: GET() returns the latest value, null once removed
+     */
+    @Test
+    public void testLogStructuredPutGetRemove() throws IOException, SerializationException, DeserializationException {
+        try (LogStructuredDiskCache<String, String> disk = new LogStructuredDiskCache<>(tempDir())) {
+            assertNull(disk.get("key1"));
+            disk.put("key1", "content1");
+            disk.put("key2", "content2");
+            disk.put("key1", "content1.1");
+            assertEquals(disk.get("key1"), "content1.1");
+            assertEquals(disk.get("key2"), "content2");
+
+            disk.remove("key1");
+            assertNull(disk.get("key1"));
+            assertEquals(disk.size(), 1);
+        }
+    }
+
+    /**
+     * I/P: Many overwrites of a few keys with small segments
+     * O/P: Compaction drops dead segments and keeps latest values
+     */
+    @Test
+    public void testLogStructuredCompaction() throws IOException, SerializationException, DeserializationException {
+        try (LogStructuredDiskCache<Integer, String> disk = new LogStructuredDiskCache<>(tempDir(), 4096, 0.5)) {
+            for (int round = 0; round < 50; round++) {
+                for (int key = 0; key < 10; key++) {
+                    disk.put(key, "value-" + key + "-" + round);
+                }
+            }
+            int before = disk.segmentCount();
+            disk.compact();
+            assertEquals(disk.segmentCount() < before, true);
+            for (int key = 0; key < 10; key++) {
+                assertEquals(disk.get(key), "value-" + key + "-49");
+            }
+        }
+    }
+
+    /**
+     * I/P: Value larger than the segment size
+     * O/P: Value gets a mapped segment of its own and reads back intact
+     */
+    @Test
+    public void testRecordLargerThanSegment() throws IOException, SerializationException, DeserializationException {
+        try (LogStructuredDiskCache<String, byte[]> disk = new LogStructuredDiskCache<>(tempDir(), 1024, 0.5)) {
+            byte[] large = new byte[10_000];
+            for (int i = 0; i < large.length; i++) {
+                large[i] = (byte) i;
+            }
+            disk.put("small", new byte[] { 1 });
+            disk.put("large", large);
+            assertEquals(disk.get("large"), large);
+            assertEquals(disk.get("small"), new byte[] { 1 });
+        }
+    }
+
+    /**
+     * I/P: LinkedLRUCache spilling to the log structured disk tier
+     * O/P: Evicted entries are promoted back from the log
+     */
+    @Test
+    public void testLinkedLRUCacheWithLogStructuredDisk() throws IOException, StoreException, RetrievalException {
+        try (LogStructuredDiskCache<Integer, Integer> disk = new LogStructuredDiskCache<>(tempDir())) {
+            LinkedLRUCache<Integer, Integer> cache = new LinkedLRUCache<>(10, disk);
+            for (int i = 0; i < 100; i++) {
+                cache.put(i, i);
+            }
+            assertEquals(disk.size(), 90);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(cache.get(i), Integer.valueOf(i));
+            }
+            assertEquals(cache.size(), 10);
+            assertEquals(disk.size(), 90);
+        }
+    }
+
+    /**
+     * I/P: DiskCache with the String codec
+     * O/P: Values round trip and the file holds no Java serialization class descriptor
+     */
+    @Test
+    public void testDiskCacheWithStringSerializer() throws IOException, SerializationException, DeserializationException {
+        String dir = tempDir() + File.separator;
+        DiskCache<String, String> disk = new DiskCache<>(dir, Serializers.STRING);
+        disk.put("key1", "content1 \u00e9");
+        assertEquals(disk.get("key1"), "content1 \u00e9");
+        // 4 byte length prefix plus UTF-8 bytes
+        assertEquals(new File(dir + "cache_key1").length(), 4 + "content1 \u00e9".getBytes("UTF-8").length);
+        assertNull(disk.get("key2"));
+    }
+
+    /**
+     * I/P: Log structured disk tier with the Long codec
+     * O/P: Values round trip through the mapped segments
+     */
+    @Test
+    public void testLogStructuredWithLongSerializer() throws IOException, SerializationException, DeserializationException {
+        try (LogStructuredDiskCache<Integer, Long> disk = new LogStructuredDiskCache<>(tempDir(), Serializers.LONG)) {
+            for (int i = 0; i < 1_000; i++) {
+                disk.put(i, i * 31L);
+            }
+            for (int i = 0; i < 1_000; i++) {
+                assertEquals(disk.get(i), Long.valueOf(i * 31L));
+            }
+        }
+    }
+
+    /**
+     * I/P: DiskCache bounded by the length of the values
+     * O/P: Oldest files are deleted once the budget is exceeded, an entry heavier than the budget is not stored
+     */
+    @Test
+    public void testDiskCacheWeightBudget() throws IOException, SerializationException, DeserializationException {
+        String dir = tempDir() + File.separator;
+        Weigher<String, String> weigher = (key, value) -> value.length();
+        DiskCache<String, String> disk = new DiskCache<>(dir, Serializers.STRING, 10, weigher);
+        disk.put("key1", "aaaa");
+        disk.put("key2", "bbbb");
+        disk.put("key3", "cccc");
+        assertNull(disk.get("key1"));
+        assertEquals(disk.get("key2"), "bbbb");
+        assertEquals(disk.weightedSize(), 8);
+
+        disk.put("key2", "this value is too heavy");
+        assertNull(disk.get("key2"));
+        assertEquals(disk.weightedSize(), 4);
+
+        disk.remove("key3");
+        assertEquals(disk.weightedSize(), 0);
+    }
+
+    /**
+     * I/P: Write behind tier over a disk which blocks until released, queue of 2 keys
+     * O/P: GET() served from the pending values, PUT() blocks once the queue is full, everything on disk after a flush
+     */
+    @Test
+    public void testWriteBehindServesPendingAndAppliesBackPressure() throws Exception {
+        String dir = tempDir() + File.separator;
+        CountDownLatch release = new CountDownLatch(1);
+        DiskCache<String, String> disk = new DiskCache<>(dir, Serializers.STRING);
+        DiskBackend<String, String> slowDisk = new DiskBackend<String, String>() {
+            @Override
+            public void put(String key, String value) throws SerializationException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new SerializationException(e);
+                }
+                disk.put(key, value);
+            }
+
+            @Override
+            public String get(String key) throws DeserializationException {
+                return disk.get(key);
+            }
+
+            @Override
+            public void remove(String key) {
+                disk.remove(key);
+            }
+        };
+        try (WriteBehindDiskCache<String, String> writeBehind = new WriteBehindDiskCache<>(slowDisk, 2, 1)) {
+            writeBehind.put("key1", "content1");
+            writeBehind.put("key2", "content2");
+            writeBehind.put("key3", "content3");
+            assertEquals(writeBehind.get("key1"), "content1");
+            assertEquals(writeBehind.get("key3"), "content3");
+
+            // Writer holds one key, the queue the other two
+            CountDownLatch blocked = new CountDownLatch(1);
+            Thread producer = new Thread(() -> {
+                try {
+                    writeBehind.put("key4", "content4");
+                    blocked.countDown();
+                } catch (SerializationException e) {
+                    // assertion below fails
+                }
+            });
+            producer.start();
+            assertFalse(blocked.await(300, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            producer.join();
+            writeBehind.flush();
+            assertEquals(writeBehind.pendingCount(), 0);
+            for (int i = 1; i <= 4; i++) {
+                assertEquals(new File(dir + "cache_key" + i).exists(), true);
+            }
+
+            writeBehind.remove("key2");
+            assertNull(writeBehind.get("key2"));
+        }
+    }
+
+    /**
+     * I/P: Write behind tier over a disk which fails every write for a while, then recovers
+     * O/P: Failed values stay pending and readable, and reach the disk in one batch once it recovers
+     */
+    @Test(timeOut = 10000)
+    public void testWriteBehindKeepsFailedWrites() throws Exception {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        AtomicInteger largestBatch = new AtomicInteger();
+        Map<String, String> files = new ConcurrentHashMap<>();
+        DiskBackend<String, String> flakyDisk = new DiskBackend<String, String>() {
+
+            @Override
+            public void put(String key, String value) throws SerializationException {
+                if (failing.get()) {
+                    throw new SerializationException("Disk unavailable");
+                }
+                files.put(key, value);
+            }
+
+            @Override
+            public void putAll(Map<? extends String, ? extends String> entries, ToLongFunction<? super String> expiresAtMillis)
+                    throws SerializationException {
+                if (failing.get()) {
+                    throw new SerializationException("Disk unavailable");
+                }
+                largestBatch.accumulateAndGet(entries.size(), Math::max);
+                files.putAll(entries);
+            }
+
+            @Override
+            public String get(String key) {
+                return files.get(key);
+            }
+
+            @Override
+            public void remove(String key) {
+                files.remove(key);
+            }
+        };
+        try (WriteBehindDiskCache<String, String> writeBehind = new WriteBehindDiskCache<>(flakyDisk, 16, 8)) {
+            for (int i = 1; i <= 5; i++) {
+                writeBehind.put("key" + i, "content" + i);
+            }
+            while (writeBehind.failureCount() < 5) {
+                Thread.sleep(10);
+            }
+            assertEquals(writeBehind.pendingCount(), 5);
+            assertEquals(writeBehind.get("key1"), "content1");
+            assertTrue(files.isEmpty());
+
+            failing.set(false);
+            while (writeBehind.pendingCount() > 0) {
+                Thread.sleep(10);
+            }
+            assertEquals(files.size(), 5);
+            assertEquals(largestBatch.get(), 5);
+        }
+    }
+
+    /**
+     * I/P: LinkedLRUCache spilling through a write behind tier
+     * O/P: Evicted entries are promoted back whether or not they reached the disk yet
+     */
+    @Test
+    public void testLinkedLRUCacheWithWriteBehind() throws IOException, StoreException, RetrievalException {
+        try (WriteBehindDiskCache<Integer, Integer> disk = new WriteBehindDiskCache<>(
+                new LogStructuredDiskCache<Integer, Integer>(tempDir(), Serializers.INTEGER))) {
+            LinkedLRUCache<Integer, Integer> cache = new LinkedLRUCache<>(100, disk);
+            for (int i = 0; i < 5_000; i++) {
+                cache.put(i, i);
+            }
+            for (int i = 0; i < 5_000; i++) {
+                assertEquals(cache.get(i), Integer.valueOf(i));
+            }
+        }
+    }
+
+    /**
+     * I/P: Batch read of keys spread over several segments, one key overwritten and one never stored
+     * O/P: Latest value of every stored key, the unknown key absent
+     */
+    @Test
+    public void testLogStructuredGetAll() throws IOException, SerializationException, DeserializationException {
+        try (LogStructuredDiskCache<Integer, String> disk = new LogStructuredDiskCache<>(tempDir(), 4096, 0.5, Serializers.STRING)) {
+            for (int i = 0; i < 500; i++) {
+                disk.put(i, "content" + i);
+            }
+            disk.put(7, "content7.1");
+            assertEquals(disk.segmentCount() > 1, true);
+
+            Map<Integer, String> values = disk.getAll(Arrays.asList(499, 7, 0, 250, 1000));
+            assertEquals(values.size(), 4);
+            assertEquals(values.get(7), "content7.1");
+            assertEquals(values.get(0), "content0");
+            assertEquals(values.get(499), "content499");
+            assertNull(values.get(1000));
+        }
+    }
+
+    /**
+     * I/P: Durable DiskCache with puts, a remove and an expiring entry, reopened after a clean close and after a crash with a torn
+     * manifest tail
+     * O/P: Entries and their write order restored from the index, removed and expired entries gone
+     */
+    @Test
+    public void testDurableIndexRestart() throws IOException, SerializationException, DeserializationException, InterruptedException {
+        String dir = tempDir() + File.separator;
+        DiskCache<String, String> disk = new DiskCache<>(dir, Serializers.STRING, Serializers.STRING);
+        for (int i = 0; i < 5; i++) {
+            disk.put("key" + i, "content" + i);
+        }
+        disk.remove("key2");
+        disk.put("key1", "content1.1");
+        disk.put("short", "lived", System.currentTimeMillis() + 50);
+        disk.close();
+        Thread.sleep(100);
+
+        disk = new DiskCache<>(dir, Serializers.STRING, Serializers.STRING);
+        assertEquals(disk.indexedCount(), 4);
+        assertEquals(disk.recentlySpilledKeys(2), Arrays.asList("key1", "key4"));
+        assertEquals(disk.get("key1"), "content1.1");
+        assertNull(disk.get("key2"));
+        assertNull(disk.get("short"));
+
+        // Process dies without closing, in the middle of a manifest record
+        disk.put("key5", "content5");
+        try (FileOutputStream manifest = new FileOutputStream(dir + "index.manifest", true)) {
+            manifest.write(new byte[] { 1, 0, 0, 0 });
+        }
+        disk = new DiskCache<>(dir, Serializers.STRING, Serializers.STRING);
+        assertEquals(disk.indexedCount(), 5);
+        assertEquals(disk.recentlySpilledKeys(1), Arrays.asList("key5"));
+        disk.close();
+    }
+
+    /**
+     * I/P: JSON like, small and incompressible values through a compressing serializer on both disk tiers
+     * O/P: Every value read back, only the large compressible one stored deflated
+     */
+    @Test
+    public void testCompressedRecords() throws IOException, SerializationException, DeserializationException {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            json.append("{\"id\":").append(i).append(",\"name\":\"item\",\"tags\":[\"cache\",\"disk\"]},");
+        }
+        byte[] noise = new byte[4096];
+        new Random(7).nextBytes(noise);
+        String dir = tempDir() + File.separator;
+        DiskCache<String, String> disk = new DiskCache<>(dir, Serializers.compressed(Serializers.STRING));
+        disk.put("json", json.toString());
+        disk.put("small", "tiny");
+        assertEquals(disk.get("json"), json.toString());
+        assertEquals(disk.get("small"), "tiny");
+        long rawSize = 4 + json.length();
+        assertTrue(new File(dir + "cache_json").length() * 4 < rawSize);
+        // Flag, length and text
+        assertEquals(new File(dir + "cache_small").length(), 1 + 4 + 4);
+
+        Serializer<byte[]> bytes = Serializers.compressed(Serializers.BYTE_ARRAY, 9, 0);
+        DiskCache<String, byte[]> binary = new DiskCache<>(dir, bytes);
+        binary.put("noise", noise);
+        assertEquals(binary.get("noise"), noise);
+        assertEquals(new File(dir + "cache_noise").length(), 1 + 4 + noise.length);
+
+        Serializer<String> compressed = Serializers.compressed(Serializers.STRING);
+        try (LogStructuredDiskCache<String, String> log = new LogStructuredDiskCache<>(tempDir(), compressed)) {
+            log.put("json", json.toString());
+            log.put("small", "tiny");
+            assertEquals(log.get("json"), json.toString());
+            assertEquals(log.get("small"), "tiny");
+        }
+    }
+
+    /**
+     * I/P: GET() of keys never spilled, spilled, removed and restored through the Bloom filter in front of a durable disk tier, then
+     * removals of keys never spilled
+     * O/P: Keys never spilled or removed answered without reading the file, spilled and restored ones read from disk, removing keys
+     * never spilled hides nothing
+     */
+    @Test
+    public void testBloomFilteredDiskCache() throws IOException, SerializationException, DeserializationException {
+        String dir = tempDir() + File.separator;
+        DiskCache<String, String> disk = new DiskCache<>(dir, Serializers.STRING, Serializers.STRING);
+        BloomFilteredDiskCache<String, String> filtered = new BloomFilteredDiskCache<>(disk, 1000);
+        filtered.put("key1", "content1");
+        filtered.put("key2", "content2");
+        // Written behind the filter's back, so only reachable if the filter gives a false positive
+        new DiskCache<String, String>(dir, Serializers.STRING).put("hidden", "content");
+        assertEquals(filtered.get("key1"), "content1");
+        assertFalse(filtered.mightContain("hidden"));
+        assertNull(filtered.get("hidden"));
+        assertEquals(filtered.getAll(Arrays.asList("key1", "key2", "hidden")).size(), 2);
+        assertEquals(filtered.filteredCount(), 2);
+
+        filtered.remove("key1");
+        assertFalse(filtered.mightContain("key1"));
+        assertNull(filtered.get("key1"));
+        int misses = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filtered.mightContain("absent" + i)) {
+                misses++;
+            }
+        }
+        assertTrue(misses < 300, "False positives " + misses);
+        filtered.close();
+
+        filtered = new BloomFilteredDiskCache<>(new DiskCache<>(dir, Serializers.STRING, Serializers.STRING), 1000);
+        assertEquals(filtered.get("key2"), "content2");
+        assertNull(filtered.get("key1"));
+        filtered.close();
+
+        // A filter this small answers yes for most keys, removing those never spilled must not hide the one on disk
+        filtered = new BloomFilteredDiskCache<>(new DiskCache<String, String>(tempDir() + File.separator, Serializers.STRING), 1, 0.5);
+        filtered.put("kept", "content");
+        for (int i = 0; i < 1000; i++) {
+            filtered.remove("never" + i);
+        }
+        assertEquals(filtered.get("kept"), "content");
+        filtered.close();
+    }
+
+    /**
+     * I/P: More bytes than the budget of an LRU disk tier with two directory levels, one entry read in between, then a restart
+     * O/P: Least recently read file deleted, files kept two directories deep, bytes and entries restored from the index, the directories
+     * of a file depend only on the name of its key
+     */
+    @Test
+    public void testByteBudgetLruAndDirectoryLevels() throws IOException, SerializationException, DeserializationException {
+        String dir = tempDir() + File.separator;
+        // Length and eight characters
+        long recordBytes = 4 + 8;
+        DiskCache<String, String> disk = new DiskCache<>(dir, Serializers.STRING, Serializers.STRING, 3 * recordBytes,
+                DiskCache.EvictionOrder.LRU, 2, StatsCounter.disabled());
+        for (int i = 1; i <= 3; i++) {
+            disk.put("key" + i, "content" + i);
+        }
+        assertEquals(disk.get("key1"), "content1");
+        disk.put("key4", "content4");
+        assertNull(disk.get("key2"));
+        assertEquals(disk.get("key1"), "content1");
+        assertEquals(disk.weightedSize(), 3 * recordBytes);
+        assertFalse(new File(dir + "cache_key1").exists());
+        Path root = Paths.get(dir);
+        try (Stream<Path> files = Files.walk(root)) {
+            List<Path> cacheFiles = files.filter(path -> path.getFileName().toString().startsWith("cache_")).collect(Collectors.toList());
+            assertEquals(cacheFiles.size(), 3);
+            for (Path file : cacheFiles) {
+                assertEquals(root.relativize(file).getNameCount(), 3);
+            }
+        }
+        disk.close();
+
+        disk = new DiskCache<>(dir, Serializers.STRING, Serializers.STRING, 3 * recordBytes, DiskCache.EvictionOrder.LRU, 2,
+                StatsCounter.disabled());
+        assertEquals(disk.weightedSize(), 3 * recordBytes);
+        assertEquals(disk.get("key3"), "content3");
+        assertEquals(disk.get("key4"), "content4");
+        assertNull(disk.get("key2"));
+        disk.close();
+
+        // Keys of identity hash codes, as after a restart, find the file of an equal name
+        DiskCache<Object, String> byName = new DiskCache<>(tempDir() + File.separator, null, Serializers.STRING, Long.MAX_VALUE,
+                DiskCache.EvictionOrder.FIFO, 2, StatsCounter.disabled());
+        byName.put(namedKey("key1"), "content1");
+        assertEquals(byName.get(namedKey("key1")), "content1");
+        byName.close();
+    }
+
+    /**
+     * I/P: Eight threads writing and reading overlapping keys of a disk tier bounded to 20 records with one directory level
+     * O/P: Reads find whole values only, budget met once the writers are done, one file on disk for every entry the budget accounts for
+     */
+    @Test(timeOut = 20000)
+    public void testConcurrentWritesToByteBudget() throws Exception {
+        String dir = tempDir() + File.separator;
+        // Length and eight characters
+        long recordBytes = 4 + 8;
+        DiskCache<String, String> disk = new DiskCache<>(dir, null, Serializers.STRING, 20 * recordBytes, DiskCache.EvictionOrder.LRU, 1,
+                StatsCounter.disabled());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    disk.put("key" + (i * 7 + thread) % 50, String.format("v%07d", i));
+                    String read = disk.get("key" + (i * 3 + thread) % 50);
+                    assertTrue(read == null || read.length() == 8, read);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+        assertTrue(disk.weightedSize() <= 20 * recordBytes);
+        try (Stream<Path> files = Files.walk(Paths.get(dir))) {
+            long count = files.filter(path -> path.getFileName().toString().startsWith("cache_")).count();
+            assertEquals(count * recordBytes, disk.weightedSize());
+        }
+        disk.close();
+    }
+
+    private static Object namedKey(String name) {
+        return new Object() {
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,140 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.impl.LinkedLRUCache;
+import parag.LRUCache.policy.ArcPolicy;
+import parag.LRUCache.policy.EvictionPolicy;
+import parag.LRUCache.policy.FrequencySketch;
+import parag.LRUCache.policy.LruPolicy;
+import parag.LRUCache.policy.SlruPolicy;
+import parag.LRUCache.policy.TinyLfuPolicy;
+
+/**
+ * Test Class for {@link EvictionPolicy} implementations
+ */
+public class TestEvictionPolicies {
+
+    private static final int MAX_SIZE = 100;
+    private static final int HOT_KEYS = 50;
+
+    @DataProvider
+    public Object[][] scanResistantPolicies() {
+        return new Object[][] { { new SlruPolicy<Integer, Integer>(MAX_SIZE) }, { new ArcPolicy<Integer, Integer>(MAX_SIZE) },
+                { new TinyLfuPolicy<Integer, Integer>(MAX_SIZE) } };
+    }
+
+    /**
+     * I/P: Hot keys read repeatedly, then a scan of cold keys read once
+     * O/P: Hot keys survive the scan
+     */
+    @Test(dataProvider = "scanResistantPolicies")
+    public void testScanResistance(EvictionPolicy<Integer, Integer> policy) throws StoreException, RetrievalException {
+        assertEquals(hotKeysAfterScan(policy), HOT_KEYS);
+    }
+
+    /**
+     * I/P: Same workload on plain LRU
+     * O/P: Scan flushes the whole hot set
+     */
+    @Test
+    public void testLruIsFlushedByScan() throws StoreException, RetrievalException {
+        assertEquals(hotKeysAfterScan(new LruPolicy<Integer, Integer>()), 0);
+    }
+
+    /**
+     * I/P: Segmented LRU of weight 10 with half of it protected, five protected entries of weight 1, one grown to 3, then a scan
+     * O/P: Least recently used protected entries are demoted to make room for the growth, and are flushed by the scan with the cold keys
+     */
+    @Test
+    public void testProtectedEntryGrowth() throws StoreException, RetrievalException {
+        EvictionPolicy<Integer, Integer> policy = new SlruPolicy<>(10, 0.5);
+        LinkedLRUCache<Integer, Integer> cache = new LinkedLRUCache<>(10, (key, value) -> value, null, policy, Runnable::run);
+        for (int i = 0; i < 5; i++) {
+            cache.put(i, 1);
+            cache.get(i);
+        }
+        cache.cleanUp();
+        cache.put(0, 3);
+        for (int i = 100; i < 200; i++) {
+            cache.put(i, 1);
+        }
+        assertEquals(cache.get(0), Integer.valueOf(3));
+        assertNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(cache.get(3), Integer.valueOf(1));
+        assertEquals(cache.get(4), Integer.valueOf(1));
+    }
+
+    /**
+     * I/P: TinyLFU over a 16 GB byte budget, with and without the expected number of entries, holding a few 1 KB values
+     * O/P: Frequency sketch sized from entries rather than bytes, both caches built and serving their values
+     */
+    @Test
+    public void testTinyLfuWithLargeByteBudget() throws StoreException, RetrievalException {
+        long budget = 16L << 30;
+        Weigher<Integer, byte[]> weigher = (key, value) -> value.length;
+        List<EvictionPolicy<Integer, byte[]>> policies = Arrays.asList(new TinyLfuPolicy<Integer, byte[]>(budget),
+                new TinyLfuPolicy<Integer, byte[]>(budget, 0.01, 1 << 14));
+        for (EvictionPolicy<Integer, byte[]> policy : policies) {
+            LinkedLRUCache<Integer, byte[]> cache = new LinkedLRUCache<>(budget, weigher, null, policy, Runnable::run);
+            for (int i = 0; i < 10; i++) {
+                cache.put(i, new byte[1024]);
+            }
+            assertEquals(cache.size(), 10);
+            assertEquals(cache.weightedSize(), 10 * 1024);
+            assertEquals(cache.get(5).length, 1024);
+        }
+    }
+
+    /**
+     * I/P: Keys incremented different number of times
+     * O/P: Estimates never under count and saturate at 15
+     */
+    @Test
+    public void testFrequencySketch() {
+        FrequencySketch<Integer> sketch = new FrequencySketch<>(1024);
+        for (int i = 0; i < 5; i++) {
+            sketch.increment(1);
+        }
+        for (int i = 0; i < 100; i++) {
+            sketch.increment(2);
+        }
+        assertTrue(sketch.frequency(1) >= 5);
+        assertEquals(sketch.frequency(2), 15);
+        assertTrue(sketch.frequency(3) <= 1);
+    }
+
+    private int hotKeysAfterScan(EvictionPolicy<Integer, Integer> policy) throws StoreException, RetrievalException {
+        LinkedLRUCache<Integer, Integer> cache = new LinkedLRUCache<>(MAX_SIZE, null, policy);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < HOT_KEYS; i++) {
+                if (cache.get(i) == null) {
+                    cache.put(i, i);
+                }
+            }
+            cache.cleanUp();
+        }
+        for (int i = 1_000; i < 2_000; i++) {
+            cache.put(i, i);
+        }
+        int survivors = 0;
+        for (int i = 0; i < HOT_KEYS; i++) {
+            if (cache.get(i) != null) {
+                survivors++;
+            }
+        }
+        return survivors;
+    }
+
+}
@@ -0,0 +1,198 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.diskBacked.DiskCache;
+import parag.LRUCache.diskBacked.LogStructuredDiskCache;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.impl.LinkedLRUCache;
+import parag.LRUCache.lru.Node;
+import parag.LRUCache.lru.TimerWheel;
+import parag.LRUCache.policy.LruPolicy;
+import parag.LRUCache.serializer.Serializers;
+
+/**
+ * Test Class for time based expiration
+ */
+public class TestExpiration {
+
+    private static String tempDir() throws IOException {
+        return Files.createTempDirectory("expiry").toString() + File.separator;
+    }
+
+    private static <K, V> LinkedLRUCache<K, V> cache(int maxSize, DiskBackend<K, V> disk, Expiry<K, V> expiry, Ticker ticker) {
+        return new LinkedLRUCache<>(maxSize, Weigher.<K, V>singleton(), disk, new LruPolicy<K, V>(), Runnable::run, expiry, ticker);
+    }
+
+    /**
+     * I/P: Entry expiring 10 seconds after write, clock moved by 5 and then 6 seconds
+     * O/P: Hit before the deadline, miss after it and removed by the next maintenance
+     */
+    @Test
+    public void testExpireAfterWrite() throws StoreException, RetrievalException {
+        AtomicLong time = new AtomicLong();
+        LinkedLRUCache<String, String> cache = cache(10, null, Expiry.<String, String>afterWrite(10, TimeUnit.SECONDS), time::get);
+        cache.put("key1", "content1");
+        cache.put("key2", "content2");
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertEquals(cache.get("key1"), "content1");
+        cache.put("key2", "content2.1");
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertNull(cache.get("key1"));
+        assertEquals(cache.get("key2"), "content2.1");
+        cache.cleanUp();
+        assertEquals(cache.size(), 1);
+    }
+
+    /**
+     * I/P: Entry expiring 10 seconds after access, read every 6 seconds and then left alone
+     * O/P: Kept alive by the reads, removed once not read for 10 seconds
+     */
+    @Test
+    public void testExpireAfterAccess() throws StoreException, RetrievalException {
+        AtomicLong time = new AtomicLong();
+        LinkedLRUCache<String, String> cache = cache(10, null, Expiry.<String, String>afterAccess(10, TimeUnit.SECONDS), time::get);
+        cache.put("key1", "content1");
+        for (int i = 0; i < 5; i++) {
+            time.addAndGet(TimeUnit.SECONDS.toNanos(6));
+            assertEquals(cache.get("key1"), "content1");
+        }
+        time.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        cache.cleanUp();
+        assertEquals(cache.size(), 0);
+    }
+
+    /**
+     * I/P: 20,000 nodes expiring at random times over two days, clock advanced in uneven steps
+     * O/P: Every node expired exactly once and never before its time
+     */
+    @Test
+    public void testTimerWheel() {
+        long start = -TimeUnit.HOURS.toNanos(1);
+        TimerWheel<Integer, Integer> wheel = new TimerWheel<>(start);
+        Random random = new Random(7);
+        long horizon = TimeUnit.DAYS.toNanos(2);
+        for (int i = 0; i < 20_000; i++) {
+            Node<Integer, Integer> node = new Node<>(i, i);
+            node.setExpiresAt(start + (long) (random.nextDouble() * horizon));
+            wheel.schedule(node);
+        }
+        AtomicInteger expired = new AtomicInteger();
+        AtomicLong now = new AtomicLong(start);
+        while (now.get() - start <= horizon + TimeUnit.DAYS.toNanos(7)) {
+            now.addAndGet((long) (random.nextDouble() * TimeUnit.MINUTES.toNanos(30)));
+            wheel.advance(now.get(), node -> {
+                assertTrue(node.getExpiresAt() - now.get() <= 0);
+                expired.incrementAndGet();
+            });
+        }
+        assertEquals(expired.get(), 20_000);
+    }
+
+    /**
+     * I/P: Expiring entry evicted to disk after half of its lifetime
+     * O/P: Disk tier gets the remaining lifetime as a wall clock time
+     */
+    @Test
+    public void testSpillKeepsRemainingLifetime() throws StoreException, IOException {
+        AtomicLong time = new AtomicLong();
+        try (DiskCache<String, String> disk = new DiskCache<>(tempDir())) {
+            LinkedLRUCache<String, String> cache = cache(1, disk, Expiry.<String, String>afterWrite(10, TimeUnit.MINUTES), time::get);
+            cache.put("key1", "content1");
+            time.addAndGet(TimeUnit.MINUTES.toNanos(5));
+            long before = System.currentTimeMillis();
+            cache.put("key2", "content2");
+
+            long remaining = disk.expirationOf("key1") - before;
+            assertTrue(remaining > TimeUnit.MINUTES.toMillis(4) && remaining <= TimeUnit.MINUTES.toMillis(5) + 1000, "" + remaining);
+        }
+    }
+
+    /**
+     * I/P: Disk entries with an expiration time in the past and one in the near future
+     * O/P: Past one deleted by the read, future one deleted by the sweeper once due
+     */
+    @Test
+    public void testDiskExpiration() throws IOException, SerializationException, DeserializationException, InterruptedException {
+        String dir = tempDir();
+        try (DiskCache<String, String> disk = new DiskCache<>(dir)) {
+            disk.put("key1", "content1", System.currentTimeMillis() - 1);
+            disk.put("key2", "content2", System.currentTimeMillis() + 50);
+            disk.put("key3", "content3");
+            assertEquals(new File(dir + "cache_key1").exists(), true);
+            assertNull(disk.get("key1"));
+            assertEquals(new File(dir + "cache_key1").exists(), false);
+
+            Thread.sleep(100);
+            disk.sweep();
+            assertEquals(new File(dir + "cache_key2").exists(), false);
+            assertEquals(disk.get("key3"), "content3");
+        }
+    }
+
+    /**
+     * I/P: One key written 1000 times with a new expiration time each, another written with and then without one, a third removed
+     * O/P: Sweeper queue holds one expiration for the rewritten key, none for the others, the last expiration time is the one kept
+     */
+    @Test
+    public void testRewriteKeepsOneExpiration() throws IOException, SerializationException {
+        try (DiskCache<String, String> disk = new DiskCache<>(tempDir())) {
+            long expiresAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+            for (int i = 0; i < 1000; i++) {
+                disk.put("key1", "content" + i, expiresAt + i);
+            }
+            disk.put("key2", "content2", expiresAt);
+            disk.put("key2", "content2");
+            disk.put("key3", "content3", expiresAt);
+            disk.remove("key3");
+            assertEquals(disk.scheduledExpirations(), 1);
+            assertEquals(disk.expirationOf("key1"), expiresAt + 999);
+            assertEquals(disk.expirationOf("key2"), DiskBackend.NO_EXPIRATION);
+        }
+    }
+
+    /**
+     * I/P: Expiring entry spilled to a log structured disk tier after half of its lifetime, promoted back and then left alone; a record
+     * written to the tier with an expiration time in the past
+     * O/P: Promoted entry keeps the lifetime it had left instead of starting a new one, the past record is not found
+     */
+    @Test
+    public void testLogStructuredTierKeepsExpiration() throws IOException, StoreException, RetrievalException, SerializationException,
+            DeserializationException {
+        AtomicLong time = new AtomicLong();
+        try (LogStructuredDiskCache<String, String> disk = new LogStructuredDiskCache<>(tempDir(), 4096, 0.5, Serializers.STRING)) {
+            LinkedLRUCache<String, String> cache = cache(1, disk, Expiry.<String, String>afterWrite(10, TimeUnit.MINUTES), time::get);
+            cache.put("key1", "content1");
+            time.addAndGet(TimeUnit.MINUTES.toNanos(5));
+            cache.put("key2", "content2");
+            assertTrue(disk.expirationOf("key1") < System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(6));
+
+            assertEquals(cache.get("key1"), "content1");
+            time.addAndGet(TimeUnit.MINUTES.toNanos(6));
+            assertNull(cache.get("key1"));
+
+            disk.put("key3", "content3", System.currentTimeMillis() - 1);
+            assertNull(disk.get("key3"));
+            assertEquals(disk.size(), 1);
+        }
+    }
+
+}
@@ -2,7 +2,9 @@ package parag.LRUCache;
 
 import static org.testng.Assert.assertEquals;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -22,6 +24,14 @@ import parag.LRUCache.lru.LRUManager;
  */
 public class TestLRUCache {
 
+    private static String tempDir() {
+        try {
+            return Files.createTempDirectory("lru").toString() + File.separator;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      *  I/P: Cache --> Empty 
      *  O/P: GET() --> null
@@ -37,7 +47,7 @@ public class TestLRUCache {
         Map<String, Integer> map = new HashMap<>(maxSize);
         ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>();
         LinkedBlockingQueue<String> linkedBlockingQueue = new LinkedBlockingQueue<>();
-        DiskCache<String, Integer> diskCache = new DiskCache<>("C:\\Users\\parag123\\Desktop\\Go\\");
+        DiskCache<String, Integer> diskCache = new DiskCache<>(tempDir());
         Thread thread = new Thread(new LRUManager<>(queue, linkedBlockingQueue));
         LRUCache<String, Integer> cacheOperations = new LRUCache<>(maxSize, map, queue, diskCache, linkedBlockingQueue, thread);
         assertEquals(null, cacheOperations.get(""));
@@ -54,7 +64,7 @@ public class TestLRUCache {
         int maxSize = 20;
         ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>(maxSize);
         ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>();
-        DiskCache<String, String> diskCache = new DiskCache<>("");
+        DiskCache<String, String> diskCache = new DiskCache<>(tempDir());
         LinkedBlockingQueue<String> linkedBlockingQueue = new LinkedBlockingQueue<>();
         Thread thread = new Thread(new LRUManager<>(queue, linkedBlockingQueue));
         LRUCache<String, String> cacheOperations = new LRUCache<>(maxSize, map, queue, diskCache, linkedBlockingQueue, thread);
@@ -82,7 +92,7 @@ public class TestLRUCache {
         int maxSize = 20;
         ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>(maxSize);
         ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>();
-        DiskCache<String, String> diskCache = new DiskCache<>("");
+        DiskCache<String, String> diskCache = new DiskCache<>(tempDir());
         LinkedBlockingQueue<String> linkedBlockingQueue = new LinkedBlockingQueue<>();
         Thread thread = new Thread(new LRUManager<>(queue, linkedBlockingQueue));
         LRUCache<String, String> cacheOperations = new LRUCache<>(maxSize, map, queue, diskCache, linkedBlockingQueue, thread);
@@ -113,7 +123,7 @@ public class TestLRUCache {
         String fileContent3 = "fileContent3";
         ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>(maxSize);
         ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>();
-        DiskCache<String, String> diskCache = new DiskCache<>("");
+        DiskCache<String, String> diskCache = new DiskCache<>(tempDir());
         LinkedBlockingQueue<String> linkedBlockingQueue = new LinkedBlockingQueue<>();
         Thread thread = new Thread(new LRUManager<>(queue, linkedBlockingQueue));
         LRUCache<String, String> cacheOperations = new LRUCache<>(maxSize, map, queue, diskCache, linkedBlockingQueue, thread);
@@ -130,7 +140,8 @@ public class TestLRUCache {
 
         // GET
         cacheOperations.get("key2");
-        Thread.sleep(10);
+        // Gives the LRUManager thread time to move the key we got to the tail
+        Thread.sleep(50);
         // Check Queue
         assertEquals(queue.poll(), "key1");
         assertEquals(queue.poll(), "key3");
@@ -154,7 +165,7 @@ public class TestLRUCache {
         ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>(maxSize);
         ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>();
         
-        DiskCache<String, String> diskCache = new DiskCache<>("");
+        DiskCache<String, String> diskCache = new DiskCache<>(tempDir());
         
         LinkedBlockingQueue<String> linkedBlockingQueue = new LinkedBlockingQueue<>();
         Thread thread = new Thread(new LRUManager<>(queue, linkedBlockingQueue));
@@ -178,7 +189,8 @@ public class TestLRUCache {
         String fileCache4 = "fileContents4";
         cacheOperations.put("Key4", fileCache4);
 
-        Thread.sleep(10);
+        // Gives the LRUManager thread time to move the key we got to the tail
+        Thread.sleep(50);
         // We did GET on key2 and inserted key4 so key3 was least recently used key
         assertEquals(queue.peek(), "key3");
 
@@ -203,7 +215,8 @@ public class TestLRUCache {
         assertEquals(map.get("key6"), "fileContents6");
         assertEquals(map.get("key7"), "fileContents7");
         
-        Thread.sleep(1);
+        // Gives the LRUManager thread time to move the keys we got to the tail
+        Thread.sleep(50);
         // Queue
         assertEquals(queue.poll(), "key7");
         assertEquals(queue.poll(), "key6");
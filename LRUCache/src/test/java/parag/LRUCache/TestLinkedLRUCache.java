@@ -0,0 +1,373 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.diskBacked.DiskCache;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.impl.LinkedLRUCache;
+import parag.LRUCache.policy.ArcPolicy;
+import parag.LRUCache.serializer.Serializers;
+
+/**
+ * Test Class for {@link LinkedLRUCache}
+ */
+public class TestLinkedLRUCache {
+
+    private static String tempDir() throws IOException {
+        return Files.createTempDirectory("lru").toString() + File.separator;
+    }
+
+    private static DiskBackend<String, String> failingDisk(AtomicBoolean failing, Map<String, String> files) {
+        return new DiskBackend<String, String>() {
+
+            @Override
+            public void put(String key, String value) throws SerializationException {
+                if (failing.get()) {
+                    throw new SerializationException("Disk full");
+                }
+                files.put(key, value);
+            }
+
+            @Override
+            public String get(String key) {
+                return files.get(key);
+            }
+
+            @Override
+            public void remove(String key) {
+                files.remove(key);
+            }
+        };
+    }
+
+    /**
+     * I/P: Cache --> Empty
+     * O/P: GET() --> null
+     */
+    @Test
+    public void testGETWhenEmpty() throws RetrievalException, IOException {
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(3, new DiskCache<String, String>(tempDir()));
+        assertNull(cache.get("key1"));
+    }
+
+    /**
+     * I/P: Maximum size of Map Reached after a GET() on the oldest key
+     * O/P: Least recently used key is spilled to disk and promoted back on GET()
+     */
+    @Test
+    public void testEvictionFollowsAccessOrder() throws StoreException, RetrievalException, IOException {
+        String dir = tempDir();
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(3, new DiskCache<String, String>(dir));
+        cache.put("key1", "content1");
+        cache.put("key2", "content2");
+        cache.put("key3", "content3");
+
+        cache.get("key1");
+        cache.put("key4", "content4");
+
+        // key2 was least recently used so it must be on disk now
+        assertEquals(cache.size(), 3);
+        assertEquals(new File(dir + "cache_key2").exists(), true);
+
+        // Promote key2 back, key3 becomes the victim
+        assertEquals(cache.get("key2"), "content2");
+        assertEquals(new File(dir + "cache_key2").exists(), false);
+        assertEquals(new File(dir + "cache_key3").exists(), true);
+        assertEquals(cache.size(), 3);
+    }
+
+    /**
+     * I/P: PUT() on an existing key at full capacity
+     * O/P: Value replaced without evicting anything
+     */
+    @Test
+    public void testReplaceDoesNotEvict() throws StoreException, RetrievalException {
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(2, null);
+        cache.put("key1", "content1");
+        cache.put("key2", "content2");
+        cache.put("key1", "content1.1");
+
+        assertEquals(cache.size(), 2);
+        assertEquals(cache.get("key1"), "content1.1");
+        assertEquals(cache.get("key2"), "content2");
+    }
+
+    /**
+     * I/P: Many more entries than capacity on a memory only cache
+     * O/P: Only the most recent entries remain
+     */
+    @Test
+    public void testMemoryOnlyCache() throws StoreException, RetrievalException {
+        LinkedLRUCache<Integer, Integer> cache = new LinkedLRUCache<>(100, null);
+        for (int i = 0; i < 100_000; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(cache.size(), 100);
+        assertNull(cache.get(99_899));
+        assertEquals(cache.get(99_900), Integer.valueOf(99_900));
+    }
+
+    /**
+     * I/P: Concurrent GET() and PUT() from several threads
+     * O/P: Size never goes beyond max size and hits always return the stored value
+     */
+    @Test(threadPoolSize = 4, invocationCount = 4, timeOut = 10000)
+    public void testConcurrentReadsAndWrites() throws Exception {
+        final LinkedLRUCache<Integer, Integer> cache = new LinkedLRUCache<>(64, null);
+        for (int i = 0; i < 8; i++) {
+            cache.put(i, i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int seed = t;
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (int i = 0; i < 20_000; i++) {
+                        // Recency is recorded lossily so a hot key may still be evicted, but never with a wrong value
+                        Integer value = cache.get(i & 7);
+                        if (value != null) {
+                            assertEquals(value, Integer.valueOf(i & 7));
+                        }
+                        if (i % 4 == 0) {
+                            int cold = 1_000 + seed * 100_000 + i;
+                            cache.put(cold, cold);
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(cache.size() <= 64, true);
+    }
+
+    /**
+     * I/P: Hits recorded in the read buffer before eviction
+     * O/P: Recorded hits are applied to the access order before a PUT() picks the victim
+     */
+    @Test
+    public void testBufferedHitsAppliedBeforeEviction() throws StoreException, RetrievalException {
+        LinkedLRUCache<Integer, Integer> cache = new LinkedLRUCache<>(10, null);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+        for (int i = 0; i < 5; i++) {
+            cache.get(i);
+        }
+        cache.cleanUp();
+        for (int i = 10; i < 15; i++) {
+            cache.put(i, i);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals(cache.get(i), Integer.valueOf(i));
+        }
+        for (int i = 5; i < 10; i++) {
+            assertNull(cache.get(i));
+        }
+    }
+
+    /**
+     * I/P: Entries weighted by value length, a heavy PUT() on a full cache
+     * O/P: As many least recently used entries are spilled as needed to fit the new weight
+     */
+    @Test
+    public void testWeightedEviction() throws StoreException, RetrievalException, IOException {
+        String dir = tempDir();
+        Weigher<String, String> weigher = (key, value) -> value.length();
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(10, weigher, new DiskCache<String, String>(dir));
+        cache.put("key1", "aaa");
+        cache.put("key2", "bbb");
+        cache.put("key3", "ccc");
+        assertEquals(cache.weightedSize(), 9);
+
+        cache.put("key4", "dddddd");
+        assertEquals(cache.size(), 2);
+        assertEquals(cache.weightedSize(), 9);
+        assertEquals(new File(dir + "cache_key1").exists(), true);
+        assertEquals(new File(dir + "cache_key2").exists(), true);
+        assertEquals(new File(dir + "cache_key3").exists(), false);
+
+        // Growing the value of an existing key evicts as well
+        cache.put("key3", "ccccc");
+        assertEquals(cache.weightedSize(), 5);
+        assertEquals(new File(dir + "cache_key4").exists(), true);
+    }
+
+    /**
+     * I/P: Entry heavier than the whole cache
+     * O/P: Written straight to disk, or dropped by a memory only cache
+     */
+    @Test
+    public void testEntryHeavierThanCache() throws StoreException, RetrievalException, IOException {
+        String dir = tempDir();
+        Weigher<String, String> weigher = (key, value) -> value.length();
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(4, weigher, new DiskCache<String, String>(dir));
+        cache.put("key1", "aa");
+        cache.put("key2", "too heavy");
+        assertEquals(cache.size(), 1);
+        assertEquals(new File(dir + "cache_key2").exists(), true);
+        assertEquals(cache.get("key2"), "too heavy");
+        assertEquals(cache.size(), 1);
+
+        LinkedLRUCache<String, String> memoryOnly = new LinkedLRUCache<>(4, weigher, null);
+        memoryOnly.put("key1", "aa");
+        memoryOnly.put("key1", "too heavy");
+        assertNull(memoryOnly.get("key1"));
+        assertEquals(memoryOnly.weightedSize(), 0);
+    }
+
+    /**
+     * I/P: PUT() beyond max size while the disk tier fails every write, then again once the disk tier recovers
+     * O/P: PUT() fails and the entry it would have evicted is still served from memory, the next PUT() backs it up on disk
+     */
+    @Test
+    public void testFailedSpillKeepsEntryInMemory() throws StoreException, RetrievalException {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        Map<String, String> files = new HashMap<>();
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(1, failingDisk(failing, files));
+        cache.put("key1", "content1");
+        try {
+            cache.put("key2", "content2");
+            fail("Expected the failed spill to be reported");
+        } catch (StoreException e) {
+            // Expected
+        }
+        assertEquals(files.size(), 0);
+        assertEquals(cache.get("key1"), "content1");
+
+        failing.set(false);
+        cache.put("key3", "content3");
+        assertEquals(cache.size(), 1);
+        assertEquals(files.get("key1"), "content1");
+        assertEquals(cache.get("key1"), "content1");
+        assertEquals(cache.get("key2"), "content2");
+    }
+
+    /**
+     * I/P: ARC cache whose disk tier fails the write of the oldest entry, then recovers
+     * O/P: Failed write leaves ARC as it was, the oldest entries are still the next ones spilled
+     */
+    @Test
+    public void testFailedSpillLeavesPolicyUnchanged() throws StoreException {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        Map<String, String> files = new HashMap<>();
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(2, failingDisk(failing, files), new ArcPolicy<String, String>(2));
+        cache.put("key1", "content1");
+        cache.put("key2", "content2");
+        try {
+            cache.put("key3", "content3");
+            fail("Expected the failed spill to be reported");
+        } catch (StoreException e) {
+            // Expected
+        }
+        assertEquals(cache.size(), 3);
+
+        failing.set(false);
+        cache.put("key4", "content4");
+        assertEquals(cache.size(), 2);
+        assertEquals(files.keySet(), new HashSet<>(Arrays.asList("key1", "key2")));
+    }
+
+    /**
+     * I/P: PUTALL() beyond max size, GETALL() over memory hits, spilled keys and an unknown key
+     * O/P: All stored keys resolved, spilled keys promoted back, unknown key absent from the result
+     */
+    @Test
+    public void testGetAllPutAll() throws StoreException, RetrievalException, IOException {
+        LinkedLRUCache<Integer, String> cache = new LinkedLRUCache<>(10, new DiskCache<Integer, String>(tempDir()));
+        Map<Integer, String> entries = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            entries.put(i, "content" + i);
+        }
+        cache.putAll(entries);
+        assertEquals(cache.size(), 10);
+
+        List<Integer> keys = new ArrayList<>(entries.keySet());
+        keys.add(99);
+        Map<Integer, String> values = cache.getAll(keys);
+        assertEquals(values, entries);
+        assertEquals(cache.size(), 10);
+    }
+
+    /**
+     * I/P: Cache over a durable disk tier spilled before shutdown, new cache and disk tier on the same directory
+     * O/P: Entries spilled last, the hottest before the shutdown, are promoted back by the warm up
+     */
+    @Test
+    public void testWarmRestart() throws Exception {
+        String dir = tempDir();
+        DiskCache<String, String> disk = new DiskCache<>(dir, Serializers.STRING, Serializers.STRING);
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(5, disk);
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, "content" + i);
+        }
+        cache.get("key6");
+        cache.get("key5");
+        cache.spillAll();
+        assertEquals(cache.size(), 0);
+        disk.close();
+
+        disk = new DiskCache<>(dir, Serializers.STRING, Serializers.STRING);
+        cache = new LinkedLRUCache<>(5, disk);
+        assertEquals(cache.prewarm(2, Runnable::run).get(), Integer.valueOf(2));
+        assertEquals(cache.size(), 2);
+        assertEquals(new File(dir + "cache_key5").exists(), false);
+        assertEquals(new File(dir + "cache_key6").exists(), false);
+        assertEquals(cache.get("key0"), "content0");
+        disk.close();
+    }
+
+    /**
+     * I/P: Entries of weight 4 spilled before shutdown, warm up of a cache of maximum weight 10 asking for 100 entries
+     * O/P: Only the two entries spilled last are promoted, the weight budget is not overrun and nothing is spilled again
+     */
+    @Test
+    public void testWarmRestartStopsAtWeight() throws Exception {
+        String dir = tempDir();
+        Weigher<String, String> weigher = (key, value) -> value.length();
+        DiskCache<String, String> disk = new DiskCache<>(dir, Serializers.STRING, Serializers.STRING);
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(10, weigher, disk);
+        for (int i = 0; i < 6; i++) {
+            cache.put("key" + i, "val" + i);
+        }
+        cache.spillAll();
+        disk.close();
+
+        disk = new DiskCache<>(dir, Serializers.STRING, Serializers.STRING);
+        cache = new LinkedLRUCache<>(10, weigher, disk);
+        assertEquals(cache.prewarm(100, Runnable::run).get(), Integer.valueOf(2));
+        assertEquals(cache.weightedSize(), 8);
+        assertEquals(new File(dir + "cache_key5").exists(), false);
+        assertEquals(new File(dir + "cache_key4").exists(), false);
+        assertEquals(new File(dir + "cache_key3").exists(), true);
+        disk.close();
+    }
+
+}
@@ -0,0 +1,139 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.impl.LinkedLRUCache;
+import parag.LRUCache.impl.LoadingCache;
+
+/**
+ * Test Class for {@link LoadingCache}
+ */
+public class TestLoadingCache {
+
+    /**
+     * I/P: GET() on a missing key, then again
+     * O/P: Value loaded once and served from the cache afterwards, null from the loader is not cached
+     */
+    @Test
+    public void testLoadOnMiss() throws RetrievalException {
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<String, String> cache = new LoadingCache<>(new LinkedLRUCache<String, String>(10, null), key -> {
+            loads.incrementAndGet();
+            return key.startsWith("missing") ? null : "content-" + key;
+        });
+        assertEquals(cache.get("key1"), "content-key1");
+        assertEquals(cache.get("key1"), "content-key1");
+        assertEquals(loads.get(), 1);
+
+        assertNull(cache.get("missing1"));
+        assertNull(cache.get("missing1"));
+        assertEquals(loads.get(), 3);
+    }
+
+    /**
+     * I/P: Concurrent GET() on the same missing key while the load is slow
+     * O/P: One load shared by every caller
+     */
+    @Test(timeOut = 10000)
+    public void testConcurrentMissesCoalesced() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        LoadingCache<String, String> cache = new LoadingCache<>(new LinkedLRUCache<String, String>(10, null), key -> {
+            loads.incrementAndGet();
+            release.await();
+            return "content-" + key;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get("hot")));
+            }
+            while (cache.loadCount() == 0) {
+                Thread.yield();
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals(result.get(), "content-hot");
+            }
+            assertEquals(loads.get(), 1);
+            assertEquals(cache.loadCount(), 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * I/P: GETASYNC() with a per call loader, then a loader which fails
+     * O/P: Future completed with the loaded value, failure surfaced through the future
+     */
+    @Test(timeOut = 10000)
+    public void testGetAsync() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            LoadingCache<Integer, Integer> cache = new LoadingCache<>(new LinkedLRUCache<Integer, Integer>(10, null), key -> key * 2,
+                    executor);
+            assertEquals(cache.getAsync(21).get(), Integer.valueOf(42));
+            assertEquals(cache.getAsync(5, key -> key + 1).get(), Integer.valueOf(6));
+
+            CompletableFuture<Integer> failed = cache.getAsync(7, key -> {
+                throw new IllegalStateException("backend down");
+            });
+            try {
+                failed.get();
+                fail("Load failure not surfaced");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            assertEquals(cache.get(7), Integer.valueOf(14));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * I/P: PUT() of a key while a slow load of the same key is in flight
+     * O/P: Value put is kept in the cache and returned to the caller waiting on the load
+     */
+    @Test(timeOut = 10000)
+    public void testPutDuringLoadWins() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LoadingCache<String, String> cache = new LoadingCache<>(new LinkedLRUCache<String, String>(10, null), key -> {
+            started.countDown();
+            release.await();
+            return "loaded-" + key;
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> result = executor.submit(() -> cache.get("key1"));
+            started.await();
+            cache.put("key1", "explicit");
+            release.countDown();
+            assertEquals(result.get(), "explicit");
+            assertEquals(cache.get("key1"), "explicit");
+            assertEquals(cache.loadCount(), 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
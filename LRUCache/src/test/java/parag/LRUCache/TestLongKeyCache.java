@@ -0,0 +1,132 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.diskBacked.DiskCache;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.primitive.LongKeyCache;
+import parag.LRUCache.serializer.Serializers;
+import parag.LRUCache.stats.ConcurrentStatsCounter;
+
+/**
+ * Test Class for {@link LongKeyCache}
+ */
+public class TestLongKeyCache {
+
+    /**
+     * I/P: Random gets and puts of colliding keys against an access ordered LinkedHashMap of the same size
+     * O/P: Same values returned and same entries kept after every operation
+     */
+    @Test
+    public void testMatchesAccessOrderedMap() throws StoreException, RetrievalException {
+        final int maxSize = 100;
+        LongKeyCache<Long> cache = new LongKeyCache<>(maxSize, null);
+        Map<Long, Long> expected = new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // Multiples of the table size land in the same probe run
+            long key = random.nextInt(300) * 512L;
+            if (random.nextBoolean()) {
+                cache.put(key, Long.valueOf(i));
+                expected.put(key, Long.valueOf(i));
+            } else {
+                assertEquals(cache.get(key), expected.get(key));
+            }
+        }
+        assertEquals(cache.size(), expected.size());
+        for (long key : expected.keySet()) {
+            assertTrue(cache.containsKey(key));
+        }
+    }
+
+    /**
+     * I/P: More keys than the cache holds, then the evicted ones read back
+     * O/P: Least recently used keys spilled to disk and promoted back, stats count the disk hits
+     */
+    @Test
+    public void testSpillAndPromote() throws StoreException, RetrievalException, IOException, DeserializationException {
+        String dir = Files.createTempDirectory("longkey").toString() + File.separator;
+        DiskCache<Long, String> disk = new DiskCache<>(dir, Serializers.STRING);
+        LongKeyCache<String> cache = new LongKeyCache<>(3, disk, new ConcurrentStatsCounter());
+        for (long key = 1; key <= 5; key++) {
+            cache.put(key, "value" + key);
+        }
+        assertFalse(cache.containsKey(1));
+        assertEquals(disk.get(1L), "value1");
+        assertEquals(cache.get(1), "value1");
+        assertTrue(cache.containsKey(1));
+        // Promotion spilled key 3, the least recently used at that point
+        assertFalse(cache.containsKey(3));
+        assertNull(cache.get(42));
+        assertEquals(cache.stats().evictionCount(), 3);
+        assertEquals(cache.stats().diskHitCount(), 1);
+        assertEquals(cache.stats().missCount(), 2);
+        assertEquals(disk.get(2L), "value2");
+        assertEquals(disk.get(3L), "value3");
+    }
+
+
+    /**
+     * I/P: Full cache whose disk tier fails every write, then a put of a new key
+     * O/P: PUT() fails, the least recently used key is still held in memory and the new key is not
+     */
+    @Test
+    public void testFailedSpillKeepsVictim() throws StoreException, RetrievalException {
+        DiskBackend<Long, String> failingDisk = new DiskBackend<Long, String>() {
+
+            @Override
+            public void put(Long key, String value) throws SerializationException {
+                throw new SerializationException("Disk full");
+            }
+
+            @Override
+            public String get(Long key) {
+                return null;
+            }
+
+            @Override
+            public void remove(Long key) {
+                // Nothing stored
+            }
+        };
+        LongKeyCache<String> cache = new LongKeyCache<>(2, failingDisk);
+        cache.put(1, "value1");
+        cache.put(2, "value2");
+        try {
+            cache.put(3, "value3");
+            fail("Expected the failed spill to fail the put");
+        } catch (StoreException e) {
+            // Expected
+        }
+        assertEquals(cache.size(), 2);
+        assertFalse(cache.containsKey(3));
+        assertEquals(cache.get(1), "value1");
+        assertEquals(cache.get(2), "value2");
+    }
+
+}
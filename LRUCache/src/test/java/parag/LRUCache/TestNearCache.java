@@ -0,0 +1,227 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.diskBacked.DiskCache;
+import parag.LRUCache.exception.DeserializationException;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.invalidation.InvalidationBatch;
+import parag.LRUCache.invalidation.InvalidationChannel;
+import parag.LRUCache.invalidation.LoopbackTransport;
+import parag.LRUCache.invalidation.NearCache;
+import parag.LRUCache.serializer.Serializers;
+
+/**
+ * Test Class for near caches sharing a disk tier
+ */
+public class TestNearCache {
+
+    /**
+     * I/P: Two nodes on one directory and one loopback transport, the first writes a key the second has cached, then removes it
+     * O/P: Second node reads the new value once the invalidation is flushed and finds nothing after the remove
+     */
+    @Test
+    public void testWriteInvalidatesOtherNode() throws IOException, StoreException, RetrievalException {
+        String dir = Files.createTempDirectory("near").toString() + File.separator;
+        LoopbackTransport<String> transport = new LoopbackTransport<>();
+        InvalidationChannel<String> channelA = new InvalidationChannel<>("a", transport, 16, 60000);
+        InvalidationChannel<String> channelB = new InvalidationChannel<>("b", transport, 16, 60000);
+        NearCache<String, String> nodeA = new NearCache<>(10, new DiskCache<String, String>(dir, Serializers.STRING), channelA);
+        NearCache<String, String> nodeB = new NearCache<>(10, new DiskCache<String, String>(dir, Serializers.STRING), channelB);
+
+        nodeA.put("k", "1");
+        assertEquals(nodeB.get("k"), "1");
+        assertEquals(nodeB.size(), 1);
+
+        nodeA.put("k", "2");
+        // Not flushed yet, the second node still serves its copy from memory
+        assertEquals(nodeB.get("k"), "1");
+        channelA.flush();
+        assertEquals(nodeB.invalidatedCount(), 1);
+        assertEquals(nodeB.size(), 0);
+        assertEquals(nodeB.get("k"), "2");
+        // Own batches are not applied locally
+        assertEquals(nodeA.invalidatedCount(), 0);
+        assertEquals(nodeA.get("k"), "2");
+
+        nodeA.remove("k");
+        nodeA.close();
+        assertNull(nodeB.get("k"));
+        nodeB.close();
+    }
+
+    /**
+     * I/P: Same key invalidated repeatedly with others on a channel whose batches hold three keys
+     * O/P: Every key is sent once, in batches of at most three, either by the sender thread or by close
+     */
+    @Test
+    public void testBatchingAndCoalescing() {
+        LoopbackTransport<Integer> transport = new LoopbackTransport<>();
+        List<List<Integer>> received = Collections.synchronizedList(new ArrayList<List<Integer>>());
+        transport.register((InvalidationBatch<Integer> batch) -> received.add(batch.getKeys()));
+        InvalidationChannel<Integer> channel = new InvalidationChannel<>("a", transport, 3, 60000);
+
+        channel.invalidate(1);
+        channel.invalidate(1);
+        channel.invalidate(2);
+        channel.invalidate(1);
+        channel.close();
+        assertEquals(channel.coalescedCount(), 2);
+        assertEquals(received, Collections.singletonList(Arrays.asList(1, 2)));
+
+        received.clear();
+        channel = new InvalidationChannel<>("a", transport, 3, 60000);
+        for (int i = 0; i < 7; i++) {
+            channel.invalidate(i);
+        }
+        channel.close();
+        List<Integer> sent = new ArrayList<>();
+        for (List<Integer> batch : received) {
+            assertTrue(batch.size() <= 3);
+            sent.addAll(batch);
+        }
+        assertEquals(sent, Arrays.asList(0, 1, 2, 3, 4, 5, 6));
+        assertEquals(channel.failureCount(), 0);
+    }
+
+    /**
+     * I/P: Invalidation of another key arriving while a node reads a key from disk, then two threads writing one key on the same node
+     * O/P: Read still keeps the key in memory, memory and disk hold the same value once both writers are done
+     */
+    @Test
+    public void testUnrelatedInvalidationAndConcurrentPuts() throws Exception {
+        String dir = Files.createTempDirectory("near").toString() + File.separator;
+        DiskCache<String, String> shared = new DiskCache<>(dir, Serializers.STRING);
+        LoopbackTransport<String> transport = new LoopbackTransport<>();
+        InvalidationChannel<String> channelA = new InvalidationChannel<>("a", transport, 16, 60000);
+        AtomicReference<Runnable> duringRead = new AtomicReference<>();
+        DiskBackend<String, String> hookedDisk = new DiskBackend<String, String>() {
+
+            @Override
+            public void put(String key, String value) throws SerializationException {
+                shared.put(key, value);
+            }
+
+            @Override
+            public String get(String key) throws DeserializationException {
+                String value = shared.get(key);
+                Runnable hook = duringRead.getAndSet(null);
+                if (hook != null) {
+                    hook.run();
+                }
+                return value;
+            }
+
+            @Override
+            public void remove(String key) {
+                shared.remove(key);
+            }
+        };
+        NearCache<String, String> nodeA = new NearCache<>(10, new DiskCache<String, String>(dir, Serializers.STRING), channelA);
+        NearCache<String, String> nodeB = new NearCache<>(10, hookedDisk, new InvalidationChannel<String>("b", transport, 16, 60000));
+        nodeA.put("k", "1");
+        channelA.flush();
+        duringRead.set(() -> {
+            try {
+                nodeA.put("other", "2");
+            } catch (StoreException e) {
+                throw new IllegalStateException(e);
+            }
+            channelA.flush();
+        });
+        assertEquals(nodeB.get("k"), "1");
+        assertEquals(nodeB.invalidatedCount(), 2);
+        assertEquals(nodeB.size(), 1);
+
+        ExecutorService writers = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int writer = 0; writer < 2; writer++) {
+                String prefix = "writer" + writer + "-";
+                done.add(writers.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        nodeB.put("k", prefix + i);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+        assertEquals(nodeB.get("k"), shared.get("k"));
+        nodeA.close();
+        nodeB.close();
+    }
+
+    /**
+     * I/P: Two nodes on one directory, the first rewrites a large value of one key and flushes each invalidation while the second reads it
+     * O/P: Second node only ever reads a whole value written by the first, never an empty or partly written file
+     */
+    @Test
+    public void testReadWhileOtherNodeRewrites() throws Exception {
+        String dir = Files.createTempDirectory("near").toString() + File.separator;
+        LoopbackTransport<String> transport = new LoopbackTransport<>();
+        InvalidationChannel<String> channelA = new InvalidationChannel<>("a", transport, 16, 60000);
+        InvalidationChannel<String> channelB = new InvalidationChannel<>("b", transport, 16, 60000);
+        NearCache<String, String> nodeA = new NearCache<>(10, new DiskCache<String, String>(dir, Serializers.STRING), channelA);
+        NearCache<String, String> nodeB = new NearCache<>(10, new DiskCache<String, String>(dir, Serializers.STRING), channelB);
+        int length = 64 * 1024;
+        nodeA.put("k", repeat('a', length));
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            AtomicBoolean writing = new AtomicBoolean(true);
+            Future<Integer> reads = reader.submit(() -> {
+                int count = 0;
+                while (writing.get()) {
+                    String value = nodeB.get("k");
+                    assertEquals(value.length(), length);
+                    assertEquals(value, repeat(value.charAt(0), length));
+                    count++;
+                }
+                return count;
+            });
+            for (int i = 0; i < 200; i++) {
+                nodeA.put("k", repeat((char) ('a' + i % 26), length));
+                channelA.flush();
+            }
+            writing.set(false);
+            assertTrue(reads.get(30, TimeUnit.SECONDS) > 0);
+        } finally {
+            reader.shutdownNow();
+        }
+        assertEquals(nodeB.get("k"), nodeA.get("k"));
+        nodeA.close();
+        nodeB.close();
+    }
+
+    private static String repeat(char c, int length) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+}
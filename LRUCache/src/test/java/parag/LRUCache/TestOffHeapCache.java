@@ -0,0 +1,142 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.diskBacked.DiskBackend;
+import parag.LRUCache.diskBacked.LogStructuredDiskCache;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.SerializationException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.offheap.OffHeapCache;
+import parag.LRUCache.offheap.SlabAllocator;
+import parag.LRUCache.serializer.Serializers;
+
+/**
+ * Test Class for {@link OffHeapCache}
+ */
+public class TestOffHeapCache {
+
+    private static final int SLAB_SIZE = 64 * 1024;
+
+    /**
+     * I/P: Values of different sizes
+     * O/P: Smallest size class holding each value is picked, values larger than a slab have none
+     */
+    @Test
+    public void testSizeClasses() {
+        SlabAllocator allocator = new SlabAllocator(SLAB_SIZE * 4L, SLAB_SIZE);
+        assertEquals(allocator.chunkSize(allocator.sizeClass(1)), 64);
+        assertTrue(allocator.chunkSize(allocator.sizeClass(1000)) >= 1000);
+        assertEquals(allocator.chunkSize(allocator.sizeClass(SLAB_SIZE)), SLAB_SIZE);
+        assertEquals(allocator.sizeClass(SLAB_SIZE + 1), -1);
+    }
+
+    /**
+     * I/P: More bytes than the off-heap capacity
+     * O/P: Budget is respected, least recently used values are evicted and recent ones read back
+     */
+    @Test
+    public void testByteCapacity() throws StoreException, RetrievalException {
+        OffHeapCache<Integer, byte[]> cache = new OffHeapCache<>(SLAB_SIZE * 4L, SLAB_SIZE, Serializers.BYTE_ARRAY, null);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, value(i, 1_000));
+        }
+        assertTrue(cache.allocatedBytes() <= SLAB_SIZE * 4L);
+        assertTrue(cache.size() < 1_000);
+        assertNull(cache.get(0));
+        assertEquals(cache.get(999), value(999, 1_000));
+    }
+
+    /**
+     * I/P: Small values fill every slab, then a larger size class is needed
+     * O/P: A slab is taken from the small class and the spilled values are promoted back from disk
+     */
+    @Test
+    public void testSlabReassignmentAndSpill() throws StoreException, RetrievalException, IOException {
+        try (LogStructuredDiskCache<Integer, byte[]> disk = new LogStructuredDiskCache<>(Files.createTempDirectory("offheap").toString(),
+                Serializers.BYTE_ARRAY)) {
+            OffHeapCache<Integer, byte[]> cache = new OffHeapCache<>(SLAB_SIZE * 2L, SLAB_SIZE, Serializers.BYTE_ARRAY, disk);
+            for (int i = 0; i < 2_000; i++) {
+                cache.put(i, value(i, 60));
+            }
+            cache.put(-1, value(-1, 20_000));
+            assertEquals(cache.get(-1), value(-1, 20_000));
+            for (int i = 0; i < 2_000; i++) {
+                assertEquals(cache.get(i), value(i, 60));
+            }
+            // Larger than a slab, served from disk
+            cache.put(-2, value(-2, SLAB_SIZE * 2));
+            assertEquals(cache.get(-2), value(-2, SLAB_SIZE * 2));
+        }
+    }
+
+    /**
+     * I/P: Value larger than a slab put over a key held in memory, without a disk tier
+     * O/P: PUT() fails and the previous value of the key is still served
+     */
+    @Test
+    public void testOversizePutKeepsOldValue() throws StoreException, RetrievalException {
+        OffHeapCache<Integer, byte[]> cache = new OffHeapCache<>(SLAB_SIZE * 2L, SLAB_SIZE, Serializers.BYTE_ARRAY, null);
+        cache.put(1, value(1, 100));
+        try {
+            cache.put(1, value(1, SLAB_SIZE * 2));
+            fail("Expected a value larger than a slab to be rejected");
+        } catch (StoreException e) {
+            // Expected
+        }
+        assertEquals(cache.get(1), value(1, 100));
+    }
+
+    /**
+     * I/P: Full cache whose disk tier fails every write, then a put which evicts
+     * O/P: PUT() reports the evicted keys it could not spill, the new value is held in memory
+     */
+    @Test
+    public void testFailedSpillIsReported() throws StoreException, RetrievalException {
+        DiskBackend<Integer, byte[]> failingDisk = new DiskBackend<Integer, byte[]>() {
+
+            @Override
+            public void put(Integer key, byte[] value) throws SerializationException {
+                throw new SerializationException("Disk full");
+            }
+
+            @Override
+            public byte[] get(Integer key) {
+                return null;
+            }
+
+            @Override
+            public void remove(Integer key) {
+                // Nothing stored
+            }
+        };
+        OffHeapCache<Integer, byte[]> cache = new OffHeapCache<>(SLAB_SIZE, SLAB_SIZE, Serializers.BYTE_ARRAY, failingDisk);
+        int i = 0;
+        try {
+            for (; i < 1_000; i++) {
+                cache.put(i, value(i, 1_000));
+            }
+            fail("Expected the failed spill to be reported");
+        } catch (StoreException e) {
+            assertTrue(e.getCause().getMessage().contains("[0]"), e.getCause().getMessage());
+        }
+        assertEquals(cache.get(i), value(i, 1_000));
+    }
+
+    private static byte[] value(int seed, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (seed + i);
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,147 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.diskBacked.DiskCache;
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.impl.LinkedLRUCache;
+import parag.LRUCache.listener.RemovalCause;
+import parag.LRUCache.listener.RemovalDispatcher;
+import parag.LRUCache.listener.RemovalNotification;
+import parag.LRUCache.policy.LruPolicy;
+import parag.LRUCache.serializer.Serializers;
+import parag.LRUCache.stats.StatsCounter;
+
+/**
+ * Test Class for removal listeners
+ */
+public class TestRemovalListener {
+
+    /**
+     * I/P: Spill, promotion and invalidation on a disk backed cache whose dispatcher queue holds only two notifications
+     * O/P: Listener receives every notification in order with its cause, in batches on the dispatcher thread
+     */
+    @Test
+    public void testSpillPromoteAndInvalidate() throws IOException, StoreException, RetrievalException {
+        List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+        RemovalDispatcher<String, String> dispatcher = new RemovalDispatcher<>(batch -> {
+            threads.add(Thread.currentThread().getName());
+            for (RemovalNotification<String, String> notification : batch) {
+                received.add(notification.getKey() + ":" + notification.getCause());
+            }
+        }, 2, 10);
+        String dir = Files.createTempDirectory("listener").toString() + File.separator;
+        DiskCache<String, String> disk = new DiskCache<>(dir, Serializers.STRING);
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(2, Weigher.<String, String>singleton(), disk,
+                new LruPolicy<String, String>(), Runnable::run, null, Ticker.system(), StatsCounter.disabled(), dispatcher);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        assertEquals(cache.get("a"), "1");
+        cache.invalidate("c");
+        dispatcher.close();
+        assertEquals(received, Arrays.asList("a:SPILLED", "a:PROMOTED", "b:SPILLED", "c:EXPLICIT"));
+        assertTrue(threads.size() >= 1);
+        for (String thread : threads) {
+            assertEquals(thread, "removal-dispatcher");
+        }
+    }
+
+    /**
+     * I/P: Memory only cache which runs out of room, then lets its entries expire
+     * O/P: Evicted entry reported with cause SIZE, the others with EXPIRED
+     */
+    @Test
+    public void testSizeAndExpiry() throws StoreException {
+        List<RemovalNotification<String, String>> received = Collections.synchronizedList(new ArrayList<>());
+        RemovalDispatcher<String, String> dispatcher = new RemovalDispatcher<>(received::addAll);
+        AtomicLong time = new AtomicLong();
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(2, Weigher.<String, String>singleton(), null,
+                new LruPolicy<String, String>(), Runnable::run, Expiry.<String, String>afterWrite(10, TimeUnit.SECONDS), time::get,
+                StatsCounter.disabled(), dispatcher);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        time.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        cache.cleanUp();
+        dispatcher.close();
+        assertEquals(received.size(), 3);
+        assertEquals(received.get(0).getKey(), "a");
+        assertEquals(received.get(0).getValue(), "1");
+        assertEquals(received.get(0).getCause(), RemovalCause.SIZE);
+        assertEquals(received.get(1).getCause(), RemovalCause.EXPIRED);
+        assertEquals(received.get(2).getCause(), RemovalCause.EXPIRED);
+        assertEquals(dispatcher.failureCount(), 0);
+    }
+
+    /**
+     * I/P: Listener which stalls and then calls back into the cache, behind a full dispatcher queue, while another thread evicts
+     * O/P: Evicting thread waits outside the lock, other threads and the listener keep using the cache, nothing is lost
+     */
+    @Test
+    public void testFullQueueDoesNotBlockCache() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<LinkedLRUCache<String, String>> cacheRef = new AtomicReference<>();
+        List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        RemovalDispatcher<String, String> dispatcher = new RemovalDispatcher<>(batch -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            cacheRef.get().size();
+            for (RemovalNotification<String, String> notification : batch) {
+                received.add(notification.getKey());
+            }
+        }, 1, 1);
+        LinkedLRUCache<String, String> cache = new LinkedLRUCache<>(1, Weigher.<String, String>singleton(), null,
+                new LruPolicy<String, String>(), Runnable::run, null, Ticker.system(), StatsCounter.disabled(), dispatcher);
+        cacheRef.set(cache);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        // Listener holds a, b waits in the queue
+        cache.put("c", "3");
+        Thread evicting = new Thread(() -> {
+            try {
+                cache.put("d", "4");
+            } catch (StoreException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        evicting.start();
+        for (int i = 0; i < 500 && evicting.getState() != Thread.State.WAITING; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(evicting.getState(), Thread.State.WAITING);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals(reader.submit(() -> cache.get("d")).get(5, TimeUnit.SECONDS), "4");
+        } finally {
+            reader.shutdownNow();
+        }
+        release.countDown();
+        evicting.join(5000);
+        dispatcher.close();
+        assertEquals(received, Arrays.asList("a", "b", "c"));
+    }
+
+}
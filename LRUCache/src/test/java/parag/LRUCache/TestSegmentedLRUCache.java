@@ -0,0 +1,135 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.impl.SegmentedLRUCache;
+import parag.LRUCache.policy.EvictionPolicy;
+import parag.LRUCache.policy.LruPolicy;
+import parag.LRUCache.stats.StatsCounter;
+
+/**
+ * Test Class for {@link SegmentedLRUCache}
+ */
+public class TestSegmentedLRUCache {
+
+    /**
+     * I/P: Concurrency level larger than max size
+     * O/P: Segment count limited so every segment can hold an entry
+     */
+    @Test
+    public void testSegmentCount() {
+        assertEquals(new SegmentedLRUCache<String, String>(1000, 16, null).segmentCount(), 16);
+        assertEquals(new SegmentedLRUCache<String, String>(1000, 10, null).segmentCount(), 16);
+        assertEquals(new SegmentedLRUCache<String, String>(5, 16, null).segmentCount(), 4);
+    }
+
+    /**
+     * I/P: Entries of weight 200 in a cache of total weight 1000 asked for 16 segments, with and without a maximum entry weight of 200
+     * O/P: Without it the 62 weight shares reject the entry, with it 4 segments are created and the entry is kept; a maximum entry weight
+     * above the total is refused
+     */
+    @Test
+    public void testMaximumEntryWeight() throws StoreException, RetrievalException {
+        Weigher<String, String> weigher = (key, value) -> value.length();
+        LongFunction<EvictionPolicy<String, String>> lru = weight -> new LruPolicy<String, String>();
+        SegmentedLRUCache<String, String> narrow = new SegmentedLRUCache<>(1000, weigher, 16, null, lru);
+        assertEquals(narrow.maximumEntryWeight(), 62);
+        narrow.put("heavy", repeat(200));
+        assertNull(narrow.get("heavy"));
+
+        SegmentedLRUCache<String, String> wide = new SegmentedLRUCache<>(1000, 200, weigher, 16, null, lru, null, Ticker.system(),
+                StatsCounter.disabled(), null);
+        assertEquals(wide.segmentCount(), 4);
+        assertEquals(wide.maximumEntryWeight(), 250);
+        wide.put("heavy", repeat(200));
+        assertEquals(wide.get("heavy"), repeat(200));
+
+        try {
+            new SegmentedLRUCache<String, String>(1000, 1001, weigher, 16, null, lru, null, Ticker.system(), StatsCounter.disabled(), null);
+            fail("Expected a maximum entry weight above the total to be refused");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * I/P: Concurrent PUT() from many threads on distinct keys
+     * O/P: No lost writes and size never goes beyond max size
+     */
+    @Test(timeOut = 10000)
+    public void testConcurrentPuts() throws Exception {
+        final SegmentedLRUCache<Integer, Integer> cache = new SegmentedLRUCache<>(10_000, 4, null);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t * 2_000;
+            futures.add(executor.submit(() -> {
+                for (int i = offset; i < offset + 2_000; i++) {
+                    cache.put(i, i);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(cache.size(), 8_000);
+        for (int i = 0; i < 8_000; i++) {
+            assertEquals(cache.get(i), Integer.valueOf(i));
+        }
+    }
+
+    /**
+     * I/P: More entries than max size
+     * O/P: Every segment evicts within its own share
+     */
+    @Test
+    public void testEvictionPerSegment() throws StoreException, RetrievalException {
+        SegmentedLRUCache<Integer, Integer> cache = new SegmentedLRUCache<>(64, 4, null);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(cache.size(), 64);
+    }
+
+    /**
+     * I/P: PUTALL() of keys spread over all segments
+     * O/P: GETALL() returns every key from its own segment
+     */
+    @Test
+    public void testGetAllPutAll() throws StoreException, RetrievalException {
+        SegmentedLRUCache<Integer, Integer> cache = new SegmentedLRUCache<>(1000, 8, null);
+        Map<Integer, Integer> entries = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            entries.put(i, i * 2);
+        }
+        cache.putAll(entries);
+        assertEquals(cache.size(), 500);
+        assertEquals(cache.getAll(Arrays.asList(1, 250, 499, 600)).size(), 3);
+        assertEquals(cache.getAll(entries.keySet()), entries);
+    }
+
+    private static String repeat(int length) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, 'x');
+        return new String(chars);
+    }
+
+}
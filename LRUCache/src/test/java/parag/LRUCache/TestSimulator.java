@@ -0,0 +1,95 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.policy.LruPolicy;
+import parag.LRUCache.simulator.CacheSimulator;
+import parag.LRUCache.simulator.SimulationResult;
+import parag.LRUCache.simulator.Simulator;
+
+/**
+ * Test Class for {@link Simulator}
+ */
+public class TestSimulator {
+
+    /**
+     * I/P: Short trace replayed against LRU of size 2 with and without a disk tier
+     * O/P: Hits, disk hits and evictions as LinkedLRUCache would count them
+     */
+    @Test
+    public void testLruReplay() {
+        CacheSimulator<String> memoryOnly = new CacheSimulator<>("lru", new LruPolicy<String, Object>(), 2, 0);
+        CacheSimulator<String> withDisk = new CacheSimulator<>("lru", new LruPolicy<String, Object>(), 2, 1);
+        for (String key : "a b a c b a d a".split(" ")) {
+            memoryOnly.access(key);
+            withDisk.access(key);
+        }
+        SimulationResult result = memoryOnly.result();
+        // a b [a] c evicts b, b evicts a, a evicts c, d evicts b, [a]
+        assertEquals(result.requests(), 8);
+        assertEquals(result.hits(), 2);
+        assertEquals(result.diskHits(), 0);
+        assertEquals(result.evictions(), 4);
+        // Disk holds the last victim only: b found, a found, c forgotten when b was spilled
+        assertEquals(withDisk.result().diskHits(), 2);
+        assertEquals(withDisk.result().combinedHitRate(), 0.5);
+    }
+
+    /**
+     * I/P: Skewed trace in a gzip file with comments and extra columns, replayed at doubling sizes
+     * O/P: One result per policy and size, hit rate growing with the size
+     */
+    @Test
+    public void testHitRateCurve() throws IOException {
+        Path trace = Files.createTempFile("trace", ".gz");
+        Random random = new Random(1);
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(trace)), StandardCharsets.UTF_8)) {
+            writer.write("# key,timestamp\n\n");
+            for (int i = 0; i < 50_000; i++) {
+                int key = (int) Math.abs(random.nextGaussian() * 500);
+                writer.write("key" + key + "," + i + "\n");
+            }
+        }
+        List<String> policies = Simulator.policyNames();
+        long[] sizes = Simulator.parseSizes("16..512");
+        assertEquals(sizes.length, 6);
+        Simulator simulator = new Simulator(policies, sizes, 0);
+        assertEquals(simulator.replay(trace), 50_000);
+        List<SimulationResult> results = simulator.results();
+        assertEquals(results.size(), policies.size() * sizes.length);
+        for (int i = 0; i < results.size(); i += sizes.length) {
+            for (int j = 1; j < sizes.length; j++) {
+                assertTrue(results.get(i + j).hitRate() > results.get(i + j - 1).hitRate(), results.get(i + j).toString());
+            }
+        }
+        Files.delete(trace);
+    }
+
+    /**
+     * I/P: Sizes as a list, trace from a reader
+     * O/P: Requests counted, blank lines skipped
+     */
+    @Test
+    public void testReplayReader() throws IOException {
+        Simulator simulator = new Simulator(Arrays.asList("lru", "tinylfu"), Simulator.parseSizes("1, 3"), 0);
+        assertEquals(simulator.replay(new StringReader("a\n  b 10\n\na\nc\n")), 4);
+        assertEquals(simulator.results().get(1).hits(), 1);
+        assertEquals(simulator.results().get(1).maximumSize(), 3);
+    }
+
+}
@@ -0,0 +1,181 @@
+package parag.LRUCache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.testng.annotations.Test;
+
+import parag.LRUCache.exception.RetrievalException;
+import parag.LRUCache.exception.StoreException;
+import parag.LRUCache.serializer.Serializers;
+import parag.LRUCache.tiered.HeapTier;
+import parag.LRUCache.tiered.InProcessRemoteStore;
+import parag.LRUCache.tiered.OffHeapTier;
+import parag.LRUCache.tiered.RemoteTier;
+import parag.LRUCache.tiered.Tier;
+import parag.LRUCache.tiered.TieredCache;
+
+/**
+ * Test Class for {@link TieredCache}
+ */
+public class TestTieredCache {
+
+    private static final int SLAB_SIZE = 4096;
+
+    /**
+     * I/P: More entries than a heap tier and an off-heap tier hold, over a remote tier, then every entry read and one overwritten
+     * O/P: Entries cascade down the tiers and move back up when read, each held by exactly one tier, an overwrite hides older copies
+     */
+    @Test
+    public void testCascadeAndPromotion() throws StoreException, RetrievalException {
+        HeapTier<String, String> heap = new HeapTier<>(2);
+        OffHeapTier<String, String> offHeap = new OffHeapTier<>(2 * SLAB_SIZE, SLAB_SIZE, Serializers.STRING);
+        InProcessRemoteStore store = new InProcessRemoteStore();
+        TieredCache<String, String> cache = new TieredCache<>(
+                Arrays.<Tier<String, String>>asList(heap, offHeap, new RemoteTier<String, String>(store, Serializers.STRING)));
+        for (int i = 0; i < 20; i++) {
+            cache.put("key" + i, value(i));
+        }
+        assertEquals(heap.size(), 2);
+        assertTrue(offHeap.size() > 0 && offHeap.size() < 18);
+        assertEquals(heap.size() + offHeap.size() + store.size(), 20);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(cache.get("key" + i), value(i));
+        }
+        assertEquals(heap.size() + offHeap.size() + store.size(), 20);
+        assertEquals(heap.get("key19"), value(19));
+
+        cache.put("key0", "new");
+        assertEquals(cache.get("key0"), "new");
+        assertEquals(heap.size() + offHeap.size() + store.size(), 20);
+    }
+
+    /**
+     * I/P: A remote tier which serves hits in place, then a heap tier which drops what it gives up
+     * O/P: Hit stays in the remote tier without replacing the heap entry, dropped entries are gone
+     */
+    @Test
+    public void testPromotionAndDemotionPolicies() throws StoreException, RetrievalException {
+        HeapTier<String, String> heap = new HeapTier<>(1);
+        InProcessRemoteStore store = new InProcessRemoteStore();
+        Tier<String, String> remote = new RemoteTier<String, String>(store, Serializers.STRING).withPolicies(Tier.Promotion.STAY,
+                Tier.Demotion.DEMOTE);
+        TieredCache<String, String> cache = new TieredCache<>(Arrays.<Tier<String, String>>asList(heap, remote));
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals(cache.get("a"), "1");
+        assertEquals(store.size(), 1);
+        assertEquals(heap.get("b"), "2");
+
+        InProcessRemoteStore unused = new InProcessRemoteStore();
+        cache = new TieredCache<>(Arrays.asList(new HeapTier<String, String>(1).withPolicies(Tier.Promotion.MOVE, Tier.Demotion.DROP),
+                new RemoteTier<String, String>(unused, Serializers.STRING)));
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertNull(cache.get("a"));
+        assertEquals(cache.get("b"), "2");
+        assertEquals(unused.size(), 0);
+    }
+
+    /**
+     * I/P: Value larger than a slab put twice through an off-heap first tier over a remote tier
+     * O/P: Off-heap tier hands the value down and the remote tier keeps the latest one
+     */
+    @Test
+    public void testOversizeValueThroughOffHeapTier() throws StoreException, RetrievalException {
+        OffHeapTier<String, String> offHeap = new OffHeapTier<>(2 * SLAB_SIZE, SLAB_SIZE, Serializers.STRING);
+        InProcessRemoteStore store = new InProcessRemoteStore();
+        TieredCache<String, String> cache = new TieredCache<>(
+                Arrays.<Tier<String, String>>asList(offHeap, new RemoteTier<String, String>(store, Serializers.STRING)));
+        String large = value(1) + value(2) + value(3) + value(4) + value(5);
+        cache.put("large", large);
+        assertEquals(offHeap.size(), 0);
+        assertEquals(store.size(), 1);
+        assertEquals(cache.get("large"), large);
+
+        cache.put("large", large + "!");
+        assertEquals(cache.get("large"), large + "!");
+        assertEquals(store.size(), 1);
+    }
+
+    /**
+     * I/P: Four threads each rewriting its own keys through a small heap tier over a slow one, so the put of one thread keeps demoting the
+     * keys of another while they are written again
+     * O/P: A key never reads back an older value than its last write, the lower tier holds no older value once the writers are done
+     */
+    @Test(timeOut = 30000)
+    public void testConcurrentPutsDoNotDemoteStaleValues() throws Exception {
+        HeapTier<String, String> heap = new HeapTier<>(4);
+        HeapTier<String, String> lower = new HeapTier<>(1_000);
+        Tier<String, String> slowLower = new Tier<String, String>() {
+
+            @Override
+            public String get(String key) throws RetrievalException {
+                return lower.get(key);
+            }
+
+            @Override
+            public List<Map.Entry<String, String>> put(String key, String value) throws StoreException {
+                LockSupport.parkNanos(20_000);
+                return lower.put(key, value);
+            }
+
+            @Override
+            public void remove(String key) {
+                lower.remove(key);
+            }
+        };
+        TieredCache<String, String> cache = new TieredCache<>(Arrays.asList(heap, slowLower));
+        int rounds = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < rounds; i++) {
+                        String key = "key" + thread + "-" + i % 4;
+                        cache.put(key, Integer.toString(i));
+                        String read = cache.get(key);
+                        assertTrue(read == null || read.equals(Integer.toString(i)), key + " read " + read + " after writing " + i);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int t = 0; t < 4; t++) {
+            for (int k = 0; k < 4; k++) {
+                String last = Integer.toString(rounds - 4 + k);
+                String below = lower.get("key" + t + "-" + k);
+                assertTrue(below == null || below.equals(last), "key" + t + "-" + k + " holds " + below + " below " + last);
+                assertEquals(cache.get("key" + t + "-" + k), last);
+            }
+        }
+    }
+
+    private static String value(int i) {
+        StringBuilder value = new StringBuilder();
+        while (value.length() < 1000) {
+            value.append(i).append(' ');
+        }
+        return value.toString();
+    }
+
+}